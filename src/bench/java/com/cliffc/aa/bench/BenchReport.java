@@ -0,0 +1,143 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.AA;
+import com.cliffc.aa.Exec;
+import com.cliffc.aa.type.Type;
+import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.SB;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Per-program, per-phase compile profile, written as JSON; plus a
+// regression-compare of two such JSON files.
+//
+//   BenchReport run     out.json [reps] [corpus...]
+//   BenchReport compare old.json new.json [threshold%]
+//
+// Worklist orders come from -Dgvn_order=XXX, -Dcombo_order=XXX and
+// -Dlive_order=XXX (read by AA), so strategies can be compared run against run.
+//
+// Times are the median over 'reps' after an equal count of warmup runs.
+// Worklist pops are deterministic for a fixed seed, so any change in pops is
+// reported; times and allocation are only flagged past the threshold.
+public abstract class BenchReport {
+  static final String[] METRICS = new String[]{"parse_ms","opto_ms","iter_ms","total_ms","gvn_pops","combo_pops","intern","alloc_kb"};
+  static final boolean[] NOISY  = new boolean[]{ true    , true    , true    , true     , false    , false      , false  , true     };
+
+  public static void main( String[] args ) throws IOException {
+    if( args.length >= 2 && args[0].equals("run") ) {
+      int reps = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+      String[] names = args.length > 3 ? Arrays.copyOfRange(args,3,args.length) : Corpus.NAMES;
+      Files.writeString(Path.of(args[1]),run(names,reps));
+    } else if( args.length >= 3 && args[0].equals("compare") ) {
+      double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 5.0;
+      if( !compare(read(args[1]),read(args[2]),threshold) )
+        System.exit(1);
+    } else {
+      System.err.println("Usage: BenchReport run out.json [reps] [corpus...] | compare old.json new.json [threshold%]");
+      System.exit(2);
+    }
+  }
+
+  // Thread-local allocated bytes, a HotSpot extension
+  static final com.sun.management.ThreadMXBean TMX = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+  static String run( String[] names, int reps ) {
+    SB sb = new SB().p("{").nl().ii(1);
+    sb.ip("\"reps\": ").p(reps).p(',').nl();
+    sb.ip("\"gvn_order\": \"").p(AA.GVN_ORDER.toString()).p("\",").nl();
+    sb.ip("\"combo_order\": \"").p(AA.COMBO_ORDER.toString()).p("\",").nl();
+    sb.ip("\"live_order\": \"").p(AA.LIVE_ORDER.toString()).p("\",").nl();
+    sb.ip("\"programs\": [").nl().ii(1);
+    for( String name : names ) {
+      String[] progs = Corpus.get(name);
+      for( int i=0; i<progs.length; i++ ) {
+        double[][] ms = new double[METRICS.length][reps];
+        for( int r=0; r<reps; r++ )   // Warmup
+          Exec.file("bench",progs[i],0,true,true);
+        for( int r=0; r<reps; r++ ) {
+          long a0 = TMX.getCurrentThreadAllocatedBytes();
+          long t0 = System.nanoTime();
+          Exec.file("bench",progs[i],0,true,true);
+          long t1 = System.nanoTime();
+          long a1 = TMX.getCurrentThreadAllocatedBytes();
+          ms[0][r] = Exec.PARSE_NS/1e6;
+          ms[1][r] = Exec.OPTO_NS /1e6;
+          ms[2][r] = Exec.ITER_NS /1e6;
+          ms[3][r] = (t1-t0)      /1e6;
+          ms[4][r] = Exec.GVN_POPS;
+          ms[5][r] = Exec.COMBO_POPS;
+          ms[6][r] = Type.intern_size();
+          ms[7][r] = (a1-a0)/1024.0;
+        }
+        sb.ip("{\"name\": \"").p(name).p('#').p(i).p('"');
+        for( int m=0; m<METRICS.length; m++ )
+          sb.p(", \"").p(METRICS[m]).p("\": ").p(String.format("%.3f",median(ms[m])));
+        sb.p("},").nl();
+        System.out.printf("%-16s %8.3f ms%n",name+"#"+i,median(ms[3]));
+      }
+    }
+    sb.unchar(1+System.lineSeparator().length()).nl();
+    return sb.di(1).ip("]").nl().di(1).p("}").nl().toString();
+  }
+
+  private static double median( double[] ds ) {
+    double[] xs = ds.clone();
+    Arrays.sort(xs);
+    return xs[xs.length>>1];
+  }
+
+  // Read a JSON file written by 'run'.  Not a general JSON parser; relies on
+  // one program per line.
+  private static final Pattern KV = Pattern.compile("\"(\\w+)\": *(\"([^\"]*)\"|[-0-9.eE]+)");
+  static HashMap<String,double[]> read( String file ) throws IOException {
+    HashMap<String,double[]> progs = new HashMap<>();
+    for( String line : Files.readAllLines(Path.of(file)) ) {
+      if( !line.contains("\"name\"") ) continue;
+      Matcher m = KV.matcher(line);
+      String name = null;
+      double[] ds = new double[METRICS.length];
+      Arrays.fill(ds,Double.NaN);
+      while( m.find() ) {
+        if( m.group(1).equals("name") ) { name = m.group(3); continue; }
+        int idx = Arrays.asList(METRICS).indexOf(m.group(1));
+        if( idx >= 0 ) ds[idx] = Double.parseDouble(m.group(2));
+      }
+      if( name != null ) progs.put(name,ds);
+    }
+    return progs;
+  }
+
+  // Print a delta table; return false if anything regressed past threshold
+  static boolean compare( HashMap<String,double[]> olds, HashMap<String,double[]> news, double threshold ) {
+    boolean ok = true;
+    Ary<String> names = new Ary<>(String.class);
+    for( String name : olds.keySet() ) if( news.containsKey(name) ) names.push(name);
+    names.sort_update(String::compareTo);
+    double lsum=0;
+    System.out.printf("%-16s %-10s %12s %12s %9s%n","program","metric","old","new","delta");
+    for( String name : names ) {
+      double[] o = olds.get(name), n = news.get(name);
+      for( int m=0; m<METRICS.length; m++ ) {
+        double pct = o[m]==0 ? (n[m]==0 ? 0 : 100) : (n[m]-o[m])*100.0/o[m];
+        boolean bad = NOISY[m] ? pct > threshold : pct != 0;
+        if( bad || (NOISY[m] && pct < -threshold) )
+          System.out.printf("%-16s %-10s %12.3f %12.3f %+8.1f%%%s%n",name,METRICS[m],o[m],n[m],pct,bad ? "  <<<" : "");
+        if( bad && NOISY[m] ) ok = false;
+      }
+      lsum += Math.log(n[3]/o[3]);
+    }
+    for( String name : olds.keySet() ) if( !news.containsKey(name) ) System.out.println("Missing in new: "+name);
+    for( String name : news.keySet() ) if( !olds.containsKey(name) ) System.out.println("Missing in old: "+name);
+    if( names._len > 0 )
+      System.out.printf("Geomean total_ms new/old: %.3f over %d programs%n",Math.exp(lsum/names._len),names._len);
+    return ok;
+  }
+}
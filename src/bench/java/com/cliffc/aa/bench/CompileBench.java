@@ -0,0 +1,54 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.AA;
+import com.cliffc.aa.Exec;
+import com.cliffc.aa.type.Type;
+import com.cliffc.aa.util.Work;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmark of the whole compile pipeline: Parse, Combo.opto and the
+// final GVNGCM.iter, with both GCP and HMT on.  One op is one Exec.file of
+// every program in the named corpus.  Run with "-prof gc" for allocation;
+// use BenchReport for the per-phase breakdown.
+//
+//   make bench JMH_ARGS="-p corpus=hm -prof gc"
+//   make bench JMH_ARGS="-p combo_order=RANDOM,RPO,LIFO"
+//   make bench JMH_ARGS="-p combo_order=RPO -p live_order=PO"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview","-Xms1g"})
+public class CompileBench {
+
+  @Param({"parse","hm","gen_int_100","gen_flt_100","gen_asgn_100","gen_logic_50"})
+  public String corpus;
+
+  // Worklist pop orders
+  @Param({"RANDOM"}) public String gvn_order;
+  @Param({"RANDOM"}) public String combo_order;
+  @Param({"RANDOM"}) public String live_order;
+
+  private String[] _progs;
+
+  @Setup public void setup() {
+    _progs = Corpus.get(corpus);
+    AA.GVN_ORDER   = Work.Order.valueOf(gvn_order);
+    AA.COMBO_ORDER = Work.Order.valueOf(combo_order);
+    AA.LIVE_ORDER  = Work.Order.valueOf(live_order);
+  }
+
+  @Benchmark public void compile( Blackhole bh ) {
+    for( String prog : _progs )
+      bh.consume(Exec.file("bench",prog,0,true,true));
+  }
+
+  // Just the type-table side effect, to watch INTERN growth across a run
+  @TearDown(Level.Iteration) public void intern() {
+    System.out.println(" INTERN size: "+Type.intern_size());
+  }
+}
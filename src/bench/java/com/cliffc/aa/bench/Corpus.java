@@ -0,0 +1,137 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.util.SB;
+
+import static com.cliffc.aa.AA.unimpl;
+
+// Benchmark corpus.  Small programs lifted from TestParse, the lambda-heavy
+// programs from the HM tests (in aa syntax), plus generated large
+// straight-line programs to stress the worklists and the type tables.
+//
+// Every program here must compile cleanly with GCP and HMT both on; a
+// compile that throws leaves the global state unusable for the next program.
+public abstract class Corpus {
+
+  // From TestParse: operators, precedence, conversions, assignment, short-circuits
+  static final String[] PARSE = new String[]{
+    "1",
+    "-1",
+    "1+2*3",
+    " 1+2 * 3+4 *5",
+    "(1+2)*(3+4)*5",
+    "-1-2*3-4*5",
+    "1.2+3.4",
+    "1+2.3",
+    "1.2<=2",
+    "math.pi",
+    "1._+_(2)",
+    "(1 + 2 * 3)._+_(4 * 5 + 6) ",
+    "(1;2;)",
+    "-1==---1",
+    "x=2; y=x+1; x*y",
+    "1+(x=2*3)+x*x",
+    "x:=1;x++ + x--",
+    "0 && 1 || 2 && 3",
+    "(x=1) && x+2",
+    "math.rand(1) && (x=2;x*x) || 3 && 4",
+    "x:flt = 1",
+    "(1+2.3):flt",
+    "math.rand(1)?(x:=4):(x:=3);x:=x+1",
+  };
+
+  // From the HM tests: lambdas, let-polymorphism, tuples and structs, and
+  // escaping lambdas.
+  static final String[] HM = new String[]{
+    "{5}()",
+    "id={x->x};id(1)",
+    "{x->x}(3.14)",
+    "{ g -> (g,3)}",
+    "x={x -> x x}",
+    "fun={ g -> f={x -> g}; (f 3,f 1)}",
+    "noinline_map={tup fcn -> (0,fcn tup.1)};",
+    "x=3; andx={y -> x & y}; andx(2)",
+    "mul3={x -> y=3; x*y}; mul3(2)",
+    "x=3; mul2={x -> x*2}; mul2(2.1)",
+    "sq={x -> x*x}; sq 2.1",
+    "f = g = {-> 3}; f() == g();",
+    "for={A->    A+3 }; for 2  ",
+    "(1,2)",
+    "@{ n=0; v=1.2 }",
+  };
+
+  // For the interpreter: numeric, and struct-heavy via tuples and mutable
+  // variables (which live in the display, through New, Store and Load).
+  // math.rand keeps the work from folding away.
+  static final String[] INTERP = new String[]{
+    "x=math.rand(10); y=x*3+7; z=y*y-x; z/2+z%5",
+    "x=math.rand(10)+0.5; y=x*3.0+7; y*y-x",
+    "sq={x -> x*x}; sq(math.rand(1)+2)",
+    "f={a b -> a*b+a-b}; f(math.rand(3),math.rand(4)+1)",
+    "x=math.rand(3); x>1 ? x*2 : x+1",
+    "x=math.rand(9); -x + !x",
+    "(math.rand(3),math.rand(2)+1.5,3)",
+    "x:=math.rand(3); x++; x++; x*2",
+    "x:=math.rand(3); y:=x*2; x++; y++; (x,y)",
+    "a:=math.rand(5); b:=a+1; c:=a*b; a:=c-b; b:=a*a; (a,b,c)",
+  };
+
+  // Generated: a chain of int lets, each using the prior
+  static String gen_int( int n ) {
+    SB sb = new SB().p("x0=1; ");
+    for( int i=1; i<n; i++ )  sb.p('x').p(i).p("=x").p(i-1).p("*2+").p(i).p("; ");
+    return sb.p('x').p(n-1).toString();
+  }
+  // Generated: a chain of flt lets, each using the prior
+  static String gen_flt( int n ) {
+    SB sb = new SB().p("y0=1.0; ");
+    for( int i=1; i<n; i++ )  sb.p('y').p(i).p("=y").p(i-1).p("*1.5+").p(i).p("; ");
+    return sb.p('y').p(n-1).toString();
+  }
+  // Generated: repeated re-assignment of a single mutable variable
+  static String gen_asgn( int n ) {
+    SB sb = new SB().p("x:=1; ");
+    for( int i=0; i<n; i++ )  sb.p("x:=x*2+").p(i).p("; ");
+    return sb.p('x').toString();
+  }
+  // Generated: a chain of short-circuit logic, lots of control flow
+  static String gen_logic( int n ) {
+    SB sb = new SB().p("b0=1; ");
+    for( int i=1; i<n; i++ )
+      sb.p('b').p(i).p("=(b").p(i-1).p('+').p(i).p(") && (b").p(i-1).p('*').p(i).p(") || ").p(i).p("; ");
+    return sb.p('b').p(n-1).toString();
+  }
+
+  // Generated: one long expression on a single let; the display stays one
+  // field, so program size is all in the expression graph
+  static String gen_expr( int n ) {
+    SB sb = new SB().p("x=math.rand(2); x");
+    for( int i=0; i<n; i++ )  sb.p((i&1)==0 ? "*x" : "+x");
+    return sb.toString();
+  }
+
+  // Default program sets, by name
+  public static final String[] NAMES = new String[]{"parse","hm","gen_int_100","gen_flt_100","gen_asgn_100","gen_logic_50"};
+
+  // Program set by name: "parse", "hm", "interp", or "gen_XXX_N" for a
+  // single generated program of size N.
+  public static String[] get( String name ) {
+    if( name.equals("parse" ) ) return PARSE;
+    if( name.equals("hm"    ) ) return HM;
+    if( name.equals("interp") ) return INTERP;
+    if( name.startsWith("gen_") ) {
+      int x = name.lastIndexOf('_');
+      int n = Integer.parseInt(name.substring(x+1));
+      return new String[] {
+        switch( name.substring(4,x) ) {
+        case "int"   -> gen_int  (n);
+        case "flt"   -> gen_flt  (n);
+        case "asgn"  -> gen_asgn (n);
+        case "logic" -> gen_logic(n);
+        case "expr"  -> gen_expr (n);
+        default -> throw unimpl("Unknown generator "+name);
+        }
+      };
+    }
+    throw unimpl("Unknown corpus "+name);
+  }
+}
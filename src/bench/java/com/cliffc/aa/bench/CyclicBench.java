@@ -0,0 +1,96 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.type.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Cyclic.install benchmark: builds a fresh not-interned type graph per op,
+// shaped like the recursive types in TestType and TestLift, and installs it.
+// After the first op each install hits the prior interned graph, as repeated
+// installs do in the optimizer.  The chain shape is acyclic and takes the
+// fast path; the rest run the full DFA minimization.
+//
+//   make bench JMH_ARGS="CyclicBench -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview","-Xms1g"})
+public class CyclicBench {
+
+  @Param({"self","nil","triple","pair","ring","chain"}) public String shape;
+  @Param({"8"}) public int len;  // Structs in a ring or chain
+
+  private static final String[] FLDS3 = new String[]{"0","1","2"};
+  private int _alias;
+  private TypeFld _fldv;
+
+  @Setup public void setup() {
+    Object dummy0 = TypeMemPtr.DISPLAY_PTR; // Must <clinit> out of RECURSIVE_MEET
+    _alias = BitsAlias.new_alias(BitsAlias.ALLX);
+    _fldv = TypeFld.make("v",TypeInt.INT64);
+  }
+
+  @Benchmark public void install( Blackhole bh ) {
+    Type.RECURSIVE_MEET++;
+    TypeStruct ts = switch( shape ) {
+    case "self"   -> self(false);
+    case "nil"    -> self(true);
+    case "triple" -> triple();
+    case "pair"   -> ring(2);
+    case "ring"   -> ring(len);
+    case "chain"  -> chain(len);
+    default -> throw new IllegalArgumentException(shape);
+    };
+    Type.RECURSIVE_MEET--;
+    bh.consume(Cyclic.install(ts));
+  }
+
+  // @{n:*[a]self,v:int}, or with a nilable pointer
+  private TypeStruct self( boolean nil ) {
+    TypeFld fldn = TypeFld.malloc("n");
+    TypeStruct ts = TypeStruct.malloc_test("",fldn,_fldv);
+    fldn.setX(nil ? TypeMemPtr.make_nil(_alias,ts) : TypeMemPtr.make(_alias,ts));
+    return ts;
+  }
+
+  // (self,self,self), as a recursive HM triple
+  private TypeStruct triple() {
+    TypeFld[] flds = TypeFlds.get(4);
+    flds[0] = TypeFld.NO_DSP;
+    for( int i=1; i<4; i++ )
+      flds[i] = TypeFld.malloc(FLDS3[i-1],null,TypeFld.Access.Final);
+    TypeStruct ts = TypeStruct.malloc("",Type.ALL,flds);
+    TypeMemPtr ptr = TypeMemPtr.make(_alias,ts);
+    for( int i=1; i<4; i++ ) flds[i].setX(ptr);
+    return ts;
+  }
+
+  // S0 -> S1 -> ... -> S0, alternating int and float values
+  private TypeStruct ring( int n ) {
+    TypeFld[] fldns = new TypeFld[n];
+    TypeStruct[] tss = new TypeStruct[n];
+    for( int i=0; i<n; i++ ) {
+      fldns[i] = TypeFld.malloc("n");
+      Type v = (i&1)==0 ? TypeInt.INT64 : TypeFlt.FLT64;
+      tss[i] = TypeStruct.malloc_test("",fldns[i],TypeFld.make("v",v));
+    }
+    for( int i=0; i<n; i++ )
+      fldns[i].setX(TypeMemPtr.make(_alias,tss[(i+1)%n]));
+    return tss[0];
+  }
+
+  // S0 -> S1 -> ... -> int; no cycle
+  private TypeStruct chain( int n ) {
+    TypeStruct ts = null;
+    for( int i=0; i<n; i++ ) {
+      TypeFld fldn = TypeFld.malloc("n");
+      fldn.setX(ts==null ? TypeInt.INT64 : TypeMemPtr.make(_alias,ts));
+      ts = TypeStruct.malloc_test("",fldn,_fldv);
+    }
+    return ts;
+  }
+}
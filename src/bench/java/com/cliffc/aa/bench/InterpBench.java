@@ -0,0 +1,54 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.*;
+import com.cliffc.aa.node.PrimNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Interpreter throughput: every program in the corpus is compiled and
+// lowered once in setup; one op runs each of them once.  The gen_expr
+// programs are one long straight-line expression, so time per op is
+// roughly time per executed Insn.
+//
+// Frames hold boxed Long/Double values, so allocation is a real part of the
+// cost; it is reported per op as "alloc_bytes" next to the time.
+//
+//   make bench JMH_ARGS="InterpBench"
+//   make bench JMH_ARGS="InterpBench -p corpus=gen_expr_4000 -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview","-Xms1g","-Xss1g"})
+public class InterpBench {
+
+  @Param({"interp","gen_expr_1000"}) public String corpus;
+
+  private Interp[] _interps;
+
+  @Setup public void setup() {
+    String[] progs = Corpus.get(corpus);
+    _interps = new Interp[progs.length];
+    for( int i=0; i<progs.length; i++ ) {
+      Exec.go(Env.TOP,"bench",progs[i],0,true,true);
+      _interps[i] = new Interp(GCM.schedule(),Env.ROOT);
+      Env.top_reset();
+    }
+    PrimNode.RandI64.seed(0);
+  }
+
+  // Bytes allocated by the last op, on the benchmark thread
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Allocs { public long alloc_bytes; }
+
+  @Benchmark public void run( Blackhole bh, Allocs allocs ) {
+    long a0 = BenchReport.TMX.getCurrentThreadAllocatedBytes();
+    for( Interp interp : _interps )
+      bh.consume(interp.run());
+    allocs.alloc_bytes = BenchReport.TMX.getCurrentThreadAllocatedBytes()-a0;
+  }
+}
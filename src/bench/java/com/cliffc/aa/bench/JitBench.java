@@ -0,0 +1,49 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.*;
+import com.cliffc.aa.node.PrimNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Backends head to head: the graph interpreter against the bytecode backend,
+// on the same compiled programs.  Setup compiles every program once and
+// lowers it for the chosen engine; one op runs each program once.
+//
+//   make bench JMH_ARGS="JitBench"
+//   make bench JMH_ARGS="JitBench -p corpus=gen_expr_4000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview","-Xms1g","-Xss1g"})
+public class JitBench {
+
+  @Param({"interp","jit"}) public String engine;
+  @Param({"interp","gen_expr_1000"}) public String corpus;
+
+  private Interp[] _interps;
+  private Jit[] _jits;
+
+  @Setup public void setup() {
+    String[] progs = Corpus.get(corpus);
+    boolean jit = engine.equals("jit");
+    _interps = jit ? null : new Interp[progs.length];
+    _jits    = jit ? new Jit[progs.length] : null;
+    for( int i=0; i<progs.length; i++ ) {
+      Exec.go(Env.TOP,"bench",progs[i],0,true,true);
+      GCM gcm = GCM.schedule();
+      if( jit ) _jits[i] = new Jit(gcm,Env.ROOT);
+      else _interps[i] = new Interp(gcm,Env.ROOT);
+      Env.top_reset();
+    }
+    PrimNode.RandI64.seed(0);
+  }
+
+  @Benchmark public void run( Blackhole bh ) {
+    if( _jits!=null ) for( Jit    jit    : _jits    ) bh.consume(jit   .run());
+    else              for( Interp interp : _interps ) bh.consume(interp.run());
+  }
+}
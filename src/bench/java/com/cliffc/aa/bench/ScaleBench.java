@@ -0,0 +1,55 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.Exec;
+import com.cliffc.aa.Metrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Compile scaling stress: one large generated program per op, at growing
+// sizes, reporting Nodes made and nanos per Node.  Near-linear scaling shows
+// as a flat ns/Node across sizes.  The gen_expr programs make 16 Nodes per
+// operator, so gen_expr_64000 is about 10^6 Nodes.  Parsing recurses per
+// operator, hence the big thread stack.
+//
+// The let chains (gen_int) do not scale: every top-level let is a field of
+// the display struct, and each StructNode flow is linear in its fields.
+//
+//   make bench JMH_ARGS="ScaleBench"
+//   make bench JMH_ARGS="ScaleBench -p corpus=gen_expr_64000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview","-Xms4g","-Xss1g"})
+public class ScaleBench {
+
+  @Param({"gen_expr_4000","gen_expr_16000"}) public String corpus;
+
+  private String _prog;
+  private long _nodes, _ns;
+
+  @Setup public void setup() {
+    _prog = Corpus.get(corpus)[0];
+    Metrics.ON = true;          // For the Node count
+  }
+
+  @Benchmark public void compile( Blackhole bh ) {
+    long t0 = System.nanoTime();
+    bh.consume(Exec.file("bench",_prog,0,true,false));
+    _ns += System.nanoTime()-t0;
+    String m = Exec.METRICS;
+    int x = m.indexOf("\"nodes\": ")+9;
+    _nodes += Long.parseLong(m.substring(x,m.indexOf(',',x)));
+  }
+
+  @TearDown(Level.Iteration) public void report() {
+    if( _nodes==0 ) return;
+    System.out.printf(" Nodes/op: %d, ns/Node: %d%n",_nodes,_ns/_nodes);
+    _nodes = _ns = 0;
+  }
+
+  @TearDown public void done() { Metrics.ON = false; }
+}
@@ -0,0 +1,55 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.Exec;
+import com.cliffc.aa.Metrics;
+import com.cliffc.aa.tvar.TV2;
+import com.cliffc.aa.tvar.TVArgs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// HM type-variable benchmark: compiles the lambda-heavy HM corpus with HMT on,
+// and reports TV2 allocations and Combo unify time per op.  The TVArgs hash
+// threshold is a parameter; 0 hashes every TV2 argument map, as the prior
+// per-TV2 hash map did.  Run with "-prof gc" for allocated bytes.
+//
+//   make bench JMH_ARGS="TV2Bench -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview","-Xms1g"})
+public class TV2Bench {
+
+  @Param({"hm"}) public String corpus;
+  @Param({"0","8"}) public int tv2_args_max;
+
+  private String[] _progs;
+  private long _ops, _mallocs, _unify_ns;
+
+  @Setup public void setup() {
+    _progs = Corpus.get(corpus);
+    TVArgs.MAX = tv2_args_max;
+    Metrics.ON = true;          // For the unify step times
+  }
+
+  @Benchmark public void compile( Blackhole bh ) {
+    for( String prog : _progs ) {
+      bh.consume(Exec.file("bench",prog,0,true,true));
+      // Metrics reset per compile; accumulate
+      _mallocs  += TV2.mallocs();
+      _unify_ns += Metrics.nanos(Metrics.UNIFY);
+    }
+    _ops++;
+  }
+
+  @TearDown(Level.Iteration) public void report() {
+    if( _ops==0 ) return;
+    System.out.printf(" TV2 mallocs/op: %d, unify us/op: %d%n",_mallocs/_ops,_unify_ns/_ops/1000);
+    _ops = _mallocs = _unify_ns = 0;
+  }
+
+  @TearDown public void done() { Metrics.ON = false; }
+}
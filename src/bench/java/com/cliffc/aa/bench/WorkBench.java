@@ -0,0 +1,76 @@
+package com.cliffc.aa.bench;
+
+import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.BitSetSparse;
+import com.cliffc.aa.util.Work;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+// Worklist micro-benchmark, in pops per second.  Compares the dense Work
+// against the prior design, a NonBlockingHashMapLong membership set plus an
+// Ary, kept here as SparseWork.  Each op is one add of every item (with a
+// duplicate add of each, as the compiler loops do), then a pop of each.
+//
+//   make bench JMH_ARGS="WorkBench"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview"})
+public class WorkBench {
+  static final int N = 10000;
+
+  @Param({"dense","sparse"})
+  public String impl;
+
+  // Items with dense uids, as Nodes and Syntax have
+  record Item(int uid) implements IntSupplier {
+    @Override public int getAsInt() { return uid; }
+  }
+
+  // The prior worklist: hashed membership, random pop
+  static class SparseWork<E extends IntSupplier> extends BitSetSparse {
+    private final Ary<Object> _work = new Ary<>(new Object[1],0);
+    private final int _rseed;
+    private int _idx;
+    SparseWork(int rseed) { _rseed = rseed; }
+    E add(E e) { if( !tset(e.getAsInt()) ) _work.push(e); return e; }
+    @SuppressWarnings("unchecked")
+    E pop() {
+      if( _work._len==0 ) return null;
+      _idx = (_idx+_rseed)&((1<<30)-1);
+      E e = (E)_work.del(_idx % _work._len);
+      clr(e.getAsInt());
+      return e;
+    }
+  }
+
+  private Item[] _items;
+  private Work<Item> _dense;
+  private SparseWork<Item> _sparse;
+
+  @Setup public void setup() {
+    _items = new Item[N];
+    for( int i=0; i<N; i++ ) _items[i] = new Item(i);
+    _dense  = new Work<>(0);
+    _sparse = new SparseWork<>(0);
+  }
+
+  @Benchmark @OperationsPerInvocation(N)
+  public int pops() {
+    int sum=0;
+    if( impl.equals("dense") ) {
+      for( Item x : _items ) { _dense.add(x); _dense.add(x); }
+      Item x;
+      while( (x=_dense.pop())!=null ) sum += x.uid;
+    } else {
+      for( Item x : _items ) { _sparse.add(x); _sparse.add(x); }
+      Item x;
+      while( (x=_sparse.pop())!=null ) sum += x.uid;
+    }
+    return sum;
+  }
+}
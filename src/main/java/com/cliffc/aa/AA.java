@@ -1,6 +1,7 @@
 package com.cliffc.aa;
 
 import com.cliffc.aa.node.Node;
+import com.cliffc.aa.util.Work;
 
 /** an implementation of language AA
  */
@@ -16,6 +17,11 @@ public abstract class AA {
   public static final int ARG_IDX=3; // Start of user-visible args
 
   public static int RSEED;              // Global random seed for worklist draws
+  // Worklist pop orders, e.g. -Dcombo_order=RPO -Dlive_order=PO
+  public static Work.Order GVN_ORDER   = order("gvn_order"  ); // Worklist pop order, GVNGCM
+  public static Work.Order COMBO_ORDER = order("combo_order"); // Worklist pop order, Combo forwards flow
+  public static Work.Order LIVE_ORDER  = order("live_order" ); // Worklist pop order, Combo backwards liveness
+  private static Work.Order order( String prop ) { return Work.Order.valueOf(System.getProperty(prop,"RANDOM")); }
   public static boolean DO_GCP, DO_HMT; // Global type-precision controllers
 
 
@@ -30,6 +36,8 @@ public abstract class AA {
     } catch (Exception ignore) { }
     ABV = abv;
   }
+  // Build version stamp, or null if not built with one
+  public static String version() { return ABV==null ? null : ABV.toString(); }
   public static void main( String[] args ) {
     System.out.println(ABV.toString());
     // Command line program
@@ -40,6 +48,7 @@ public abstract class AA {
         System.out.println(te._hmt.toString());
         System.out.println(te._tmem.sharptr(te._t).toString());
       }
+      if( Exec.METRICS != null ) System.err.print(Exec.METRICS);
     } else {
       REPL.go();
     }
@@ -2,7 +2,9 @@ package com.cliffc.aa;
 
 import com.cliffc.aa.node.*;
 import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Budget;
 import com.cliffc.aa.util.VBitSet;
+import com.cliffc.aa.util.Work;
 
 import static com.cliffc.aa.AA.unimpl;
 
@@ -122,64 +124,153 @@ their inputs, and so their inputs are treated as dead.
 ==============================================================================
 
  */
-public abstract class Combo {
-  static public boolean HM_FREEZE;
+public class Combo {
+  // Combo's own state is per-instance: the worklists, the freeze flag and
+  // the incremental bookkeeping.  The graph, Root's escapes, the type intern
+  // tables and the H-M core are global, so one Combo runs at a time over the
+  // whole program: the one in Env.COMBO.
+  public boolean _hm_freeze;
+  public boolean _running;      // Flow work goes to the worklists here
+  public boolean _parsing;      // Text parsing into a typed program; its Nodes lack type-vars
+
+  // Forwards flow and unification pop in AA.COMBO_ORDER.  Backwards liveness
+  // pops from the same list, on the same pop, unless a non-default
+  // AA.LIVE_ORDER is selected; then it has its own list in that order.
+  final WorkNode _work_flow = new WorkNode("combo_flow") {
+      @Override public Work.Order order() { return AA.COMBO_ORDER; }
+    };
+  final WorkNode _work_live = new WorkNode("combo_live") {
+      @Override public Work.Order order() { return AA.LIVE_ORDER; }
+    };
+
+  // Incremental re-typing.  _typed is the set of Nodes typed by the last
+  // opto, and _watermark the Node uid count then.  Old typed Nodes with any
+  // edge change since are recorded in _changed.  When the program only grows
+  // (a REPL line, more text in an open file scope), old types sit at or above
+  // the new fixed point, and so are a valid optimistic start: only the new
+  // and changed Nodes and their transitive uses restart from ANY.  If any
+  // type rises anyways the old point did not bound the new one, and Combo
+  // restarts from scratch.
+  public int _watermark;
+  public final VBitSet _typed   = new VBitSet();
+  public final VBitSet _changed = new VBitSet();
+  public boolean _incr;         // Running incrementally
+  public boolean _restart;      // Incremental start failed, run from scratch
+  boolean _split;               // Liveness on its own worklist
+
+  // Returns the count of worklist pops, for profiling
+  public int opto() { return opto(false); }
+  public int opto( boolean incr ) {
+    int work_cnt=0;
+    if( incr && _watermark>0 && AA.DO_GCP ) {
+      work_cnt = _opto(true);
+      if( !_restart ) return work_cnt;
+    }
+    return work_cnt+_opto(false);
+  }
 
-  public static void opto() {
-    Env.GVN.flow_clear();       // Will be used as a worklist
+  private int _opto( boolean incr ) {
+    Env.GVN.flow_clear();       // Stale GVN flow work is redone here
+    _work_flow.clear();
+    _work_live.clear();
+    _incr = incr;
+    _restart = false;
+    _split = AA.DO_GCP && AA.LIVE_ORDER!=Work.Order.RANDOM;
 
     // Set all values to ANY and lives to DEAD, their most optimistic types.
     // Set all type-vars to Leafs.
     if( AA.DO_HMT )
       for( StructNode n : Env.PROTOS.values() )
         n.set_tvar();           // Set prototypes early, so instances can find
-    Env.ROOT.walk_initype();
+    // Ordered worklists want a fresh reverse-postorder, before filling the
+    // worklist
+    _running = true;
+    _parsing = false;
+    if( ordered(AA.COMBO_ORDER) || ordered(AA.LIVE_ORDER) )
+      WorkNode.rpo_number(Env.ROOT);
+    if( incr ) Env.ROOT.walk_initype_incr(new VBitSet(),new VBitSet());
+    else       Env.ROOT.walk_initype();
 
     // Make the non-gen set in a pre-pass
-    assert Env.ROOT.more_work(false)==0; // Initial conditions are correct
+    assert incr || Env.ROOT.more_work(false)==0; // Initial conditions are correct
 
     // Init
-    HM_FREEZE = false;
+    _hm_freeze = false;
     int work_cnt=0;
 
     // Pass 1: Everything starts high/top/leaf and falls; escaping function args are assumed high
     work_cnt += main_work_loop();
+    if( _restart ) return work_cnt;
     //assert Env.ROOT.more_work(false)==0;
 
     // H-M types freeze, escaping function args are assumed called with lowest H-M compatible
-    HM_FREEZE = true;
+    _hm_freeze = true;
     Env.GVN.add_flow(Env.ROOT);
     //assert Env.ROOT.more_work(false)==0;
 
     // Pass 2: GCP types continue to run downhill.
     work_cnt += main_work_loop();
+    if( _restart ) return work_cnt;
     assert Env.ROOT.more_work(false)==0;
 
-    Env.ROOT.walk_opt(new VBitSet());
+    _running = _incr = false;
+    Env.ROOT.walk_opt(_typed.clr()); // Also records the typed Nodes
+    _watermark = Node.uid_cnt(); // Everything after here is new
+    _changed.clear();
+    return work_cnt;
   }
 
-  static int main_work_loop( ) {
+  private static boolean ordered( Work.Order order ) { return order==Work.Order.RPO || order==Work.Order.PO; }
+  private Node pop( boolean fwds ) { return (fwds ? _work_flow : _work_live).pop(); }
+
+  int main_work_loop( ) {
 
     int cnt=0;                  // Debug counter
+    Budget budget = new Budget(Node.uid_cnt());
 
     // Analysis phase.
-    // Work down list until all reachable nodes types quit falling
-    Node n;
-    while( (n=Env.GVN.pop_flow()) != null ) {
-      cnt++; assert cnt < 100000; // Infinite loop check
+    // Work down list until all reachable nodes types quit falling.  By
+    // default each pop runs forwards flow, backwards liveness and unification.
+    // With liveness split onto its own list, the two lists take turns, so
+    // functions come alive while the flow list is still unifying them.
+    boolean fwds = false;
+    while( !_restart ) {
+      Node n;
+      if( _split ) {
+        n = pop(fwds = !fwds);
+        if( n==null && (n=pop(fwds = !fwds))==null ) break; // Both lists empty
+      } else if( (n=pop(fwds=true))==null ) break;
+      cnt++; assert budget.ok(Node.uid_cnt(),_work_flow.len()+_work_live.len()) : "Combo not converging"; // Infinite loop check
+      boolean progress = false;
 
       if( AA.DO_GCP ) {
-        // Forwards flow
-        n.combo_forwards();
-
-        // Backwards flow
-        n.combo_backwards();
-
+        long t0 = Metrics.ON ? System.nanoTime() : 0;
+        if( fwds ) {
+          // Forwards flow
+          progress = n.combo_forwards();
+          if( Metrics.ON ) Metrics.step(Metrics.FWDS,n,progress,t0);
+        }
+        if( !fwds || !_split ) {
+          // Backwards flow.  Newly alive Nodes can unify.
+          if( Metrics.ON ) t0 = System.nanoTime();
+          boolean p = n.combo_backwards();
+          if( Metrics.ON ) Metrics.step(Metrics.BACKS,n,p,t0);
+          if( p && _split && AA.DO_HMT ) Env.GVN.add_flow(n);
+          progress |= p;
+        }
       }
 
       // H-M unification
-      if( AA.DO_HMT )
-        n.combo_unify();
+      if( AA.DO_HMT && fwds ) {
+        long t0 = Metrics.ON ? System.nanoTime() : 0;
+        boolean p = n.combo_unify();
+        if( Metrics.ON ) Metrics.step(Metrics.UNIFY,n,p,t0);
+        progress |= p;
+      }
+
+      // Shared profiling with GVN, to compare worklist orders
+      GVNGCM.ITER_CNT++;
+      if( !progress ) GVNGCM.ITER_CNT_NOOP++;
 
       // Very expensive assert: everything that can make progress is on worklist
       //assert Env.ROOT.more_work(false)==0;
@@ -189,19 +280,19 @@ public abstract class Combo {
 
   // Walk any escaping root functions, and claim they are called by the most
   // conservative callers.
-  private static final VBitSet RVISIT = new VBitSet();
-  private static void update_root_args(ScopeNode scope) {
+  private final VBitSet _rvisit = new VBitSet();
+  private void update_root_args(ScopeNode scope) {
     // If an argument changes type, adjust the lambda arg types
     Type flow = scope.rez()._val;
     if( AA.DO_GCP && !flow.above_center() ) {
-      ADD_SIG.clear();
+      _add_sig.clear();
       Type sflow = add_sig((TypeMem)scope.mem()._val,flow); // Sharpen
-      RVISIT.clear();
+      _rvisit.clear();
       _walk_root_funs(sflow);
     }
   }
-  static private void _walk_root_funs(Type flow) {
-    if( RVISIT.tset(flow._uid) ) return;
+  private void _walk_root_funs(Type flow) {
+    if( _rvisit.tset(flow._uid) ) return;
     // Find any functions
     if( flow instanceof TypeFunPtr tfp && !tfp.is_full() ) {
       // Walk all functions; these might be called by external callers
@@ -227,9 +318,9 @@ public abstract class Combo {
   }
 
   // Expand functions to full signatures, recursively.
-  private static final VBitSet ADD_SIG = new VBitSet();
-  private static Type add_sig(TypeMem mem, Type t) {
-    if( ADD_SIG.tset(t._uid) ) return t;
+  private final VBitSet _add_sig = new VBitSet();
+  private Type add_sig(TypeMem mem, Type t) {
+    if( _add_sig.tset(t._uid) ) return t;
     if( t instanceof TypeFunPtr fun )
       return fun.make_from(fun.dsp(),add_sig(mem,fun._ret));
     if( t instanceof TypeMemPtr tmp )
@@ -237,5 +328,9 @@ public abstract class Combo {
     return t;
   }
 
-  static void reset() { HM_FREEZE=false; }
+  void reset() {
+    _hm_freeze = _running = _parsing = _incr = _restart = false;
+    _work_flow.clear();  _work_live.clear();
+    _watermark=0;  _typed.clear();  _changed.clear();
+  }
 }
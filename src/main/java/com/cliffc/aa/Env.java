@@ -3,6 +3,7 @@ package com.cliffc.aa;
 import com.cliffc.aa.node.*;
 import com.cliffc.aa.tvar.TV2;
 import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Ary;
 import com.cliffc.aa.util.VBitSet;
 
 import java.util.*;
@@ -32,6 +33,7 @@ import static com.cliffc.aa.AA.*;
 
 public class Env implements AutoCloseable {
   public static Env TOP,FILE;
+  public static final Combo COMBO = new Combo(); // Combined GCP and H-M typing; before GVN, which makes Nodes
   public static final GVNGCM GVN = new GVNGCM(); // Initial GVN
 
   // KeepNode represents future un-parsed users of a Node.  Removed after parsing.
@@ -119,6 +121,7 @@ public class Env implements AutoCloseable {
 
   // Shared Env constructor.
   Env( Env par, FunNode fun, boolean is_closure, Node ctrl, Node mem, Node dsp_ptr, StructNode fref ) {
+    if( RECLAIM_PENDING ) reclaim_types();
     _par = par;
     _fun = fun;
     StructNode dsp = fref==null ? new StructNode(is_closure,false,null, TypeStruct.ISUSED).init() : fref;
@@ -207,6 +210,7 @@ public class Env implements AutoCloseable {
     BitsAlias.init0();
     BitsFun  .init0();
     BitsRPC  .init0();
+    Type     .intern_init0();
   }
 
   // Reset all global statics for the next parse.  Useful during testing when
@@ -229,13 +233,15 @@ public class Env implements AutoCloseable {
     GVN.iter_dead();
     TV2.reset_to_init0();
     Node.VALS.clear();          // Clean out hashtable
+    Type.meet_cache_clear();    // Drop memoized meets
+    TypeMem.sharp_cache_clear();// Drop memoized sharpens
     GVN.flow_clear();
     ROOT.walk_reset();          // Clean out any wired prim calls
     KEEP_ALIVE.walk_reset();    // Clean out any wired prim calls
     GVNGCM.KEEP_ALIVE.walk_reset();
     CallNode  .reset_to_init0();
     GVN.iter();                 // Clean out any dead; reset prim types
-    for( Node n : Node.VALS.keySet() ) // Assert no leftover bits from the prior compilation
+    for( Node n : Node.VALS ) // Assert no leftover bits from the prior compilation
       assert n._uid < Node._INIT0_CNT; //
     Node      .reset_to_init0();
     GVN       .reset_to_init0();
@@ -243,7 +249,23 @@ public class Env implements AutoCloseable {
     BitsAlias .reset_to_init0();
     BitsFun   .reset_to_init0();
     BitsRPC   .reset_to_init0();
-    Combo.reset();
+    COMBO.reset();
+    RECLAIM_PENDING = Type.RECLAIM;
+  }
+
+  // With -Dreclaim_types, drop the Types from the last compile when the next
+  // one makes its first Env; so results stay valid past the top_reset.  The
+  // roots are the primitives and the clazz prototypes.
+  private static boolean RECLAIM_PENDING;
+  private static void reclaim_types() {
+    RECLAIM_PENDING = false;
+    Ary<Type> ts = new Ary<>(Type.class);
+    VBitSet visit = new VBitSet();
+    ROOT.walk_types(visit,ts);
+    KEEP_ALIVE.walk_types(visit,ts);
+    GVNGCM.KEEP_ALIVE.walk_types(visit,ts);
+    for( StructNode proto : PROTOS.values() ) proto.walk_types(visit,ts);
+    Type.reclaim(ts);
   }
 
   static private void unhook_last(Node n) {
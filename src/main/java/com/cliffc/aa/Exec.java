@@ -1,5 +1,9 @@
 package com.cliffc.aa;
 
+import com.cliffc.aa.node.*;
+import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.VBitSet;
+
 import static com.cliffc.aa.AA.*;
 
 /** an implementation of language AA
@@ -8,6 +12,17 @@ import static com.cliffc.aa.AA.*;
 // A basic implementation of 'eval'.
 
 public abstract class Exec {
+  // Phase profile of the last go(): nanos spent parsing (including the
+  // parse-time GVN), in Combo and in the final GVN iter, plus worklist pops.
+  // Cheap enough to always gather; read by the benchmarks.
+  public static long PARSE_NS, OPTO_NS, ITER_NS;
+  public static int GVN_POPS, COMBO_POPS;
+  // Functions cloned by type-splitting, and the unresolved dispatches in the
+  // clones, in the last go().
+  public static int TYPE_SPLITS, SPLIT_DISPATCHES;
+  // JSON Metrics dump of the last go(), if Metrics.ON
+  public static String METRICS;
+
   // Parse and type a file-level string.  Reset back to Env.<clinit> when done.
   // Suitable for repeated tests
   public static TypeEnv file( String src, String str, int rseed, boolean do_gcp, boolean do_hmt ) { // Execute string
@@ -20,6 +35,22 @@ public abstract class Exec {
     return te;
   }
 
+  // As file(), with the results as plain Strings: the sharpened flow type,
+  // the HM type and the first error; null if not computed.  Strings cross
+  // ClassLoaders, as ExecPool workers need, and are kept in the ExecCache.
+  public static String[] file_strs( String src, String str, int rseed, boolean do_gcp, boolean do_hmt ) {
+    String[] rs = ExecCache.get(src,str,rseed,do_gcp,do_hmt);
+    if( rs != null ) return rs;
+    TypeEnv te = file(src,str,rseed,do_gcp,do_hmt);
+    rs = te._errs != null
+      ? new String[]{null,null,te._errs.get(0).toString()}
+      : new String[]{do_gcp ? te._tmem.sharptr(te._t).toString() : null,
+                     do_hmt ? te._hmt.p() : null,
+                     null};
+    ExecCache.put(src,str,rseed,do_gcp,do_hmt,rs);
+    return rs;
+  }
+
   // Parse and type a string.  Can be nested.  In theory, will be eval() someday.
   // In theory, can keep the result node and promote them for the REPL.
   public static TypeEnv go( Env top, String src, String str, int rseed, boolean do_gcp, boolean do_hmt ) { // Execute string
@@ -27,26 +58,97 @@ public abstract class Exec {
     AA.DO_GCP = do_gcp;
     AA.DO_HMT = do_hmt;
     Env e = Env.FILE = new Env(top,null,false,top._scope.ctrl(),top._scope.mem(),top._scope.ptr(), null);
+    return _go(e,src,str,0,true,false);
+  }
+
+  // Parse and type more program text into a file-level Env, keeping all prior
+  // state.  The Env is left open for more text, and re-typing is incremental
+  // from the prior fixed point.  Suitable for a REPL.
+  //
+  // Text with errors is rolled back: the file scope fields, control, memory
+  // and result return to their prior Nodes, and the text's Nodes die.  Old
+  // memory is not held alive, as that blocks stores folding into the display;
+  // it is restored if a failed store still points at it.  The failed typing
+  // may have lowered old types, so the rolled back program re-types from
+  // scratch, and the next text is again incremental.  Error line numbers
+  // count from line0, the lines of text already in the program.
+  public static TypeEnv more( Env e, String src, String str ) { return more(e,src,str,0); }
+  public static TypeEnv more( Env e, String src, String str, int line0 ) {
+    ScopeNode scope = e._scope;
+    StructNode stk = scope.stk();
+    if( stk.is_closed() ) stk.reopen();
+    Env.FILE = e;
+    // Keep the prior file scope alive for a rollback
+    TypeStruct ts = stk.ts();
+    Node[] flds = stk._defs.asAry();
+    Parse[] fld_starts = stk.fld_starts();
+    Node ctrl = scope.ctrl(), mem = scope.mem(), rez = scope.rez();
+    for( Node fld : flds ) fld.push();
+    ctrl.push();  rez.push();
+
+    Env.COMBO._parsing = Env.COMBO._watermark>0;
+    TypeEnv te = _go(e,src,str,line0,false,true);
+
+    if( te._errs != null ) {
+      stk.rollback(ts,flds,fld_starts);
+      scope.set_ctrl(ctrl);
+      scope.set_rez (rez );
+      if( !mem.is_dead() ) scope.set_mem(mem);
+      Env.ROOT.set_def(CTL_IDX,ctrl);
+      Env.ROOT.set_def(MEM_IDX,scope.mem());
+      Env.ROOT.set_def(REZ_IDX,rez );
+    }
+    Node.pops(flds.length+2);
+    if( te._errs != null ) {
+      if( AA.DO_HMT ) Env.ROOT.walk_clr_tvar(new VBitSet());
+      Env.COMBO.opto();         // Re-type from scratch
+      Env.GVN.iter();           // Clean out the dead text
+    }
+    return te;
+  }
+
+  private static TypeEnv _go( Env e, String src, String str, int line0, boolean close, boolean incr ) {
+    int iter0 = GVNGCM.ITER_CNT, splits0 = FunNode.TYPE_SPLITS, disps0 = FunNode.SPLIT_DISPATCHES;
+    if( Metrics.ON ) Metrics.reset();
+    long t0 = System.nanoTime();
 
     // Parse a program
-    ErrMsg err = new Parse(src,false,e,str).prog();
+    ErrMsg err = new Parse(src,false,e,str,line0).prog();
 
     // Move final results into Root; close out the top scope
     Env.ROOT.set_def(CTL_IDX,e._scope.ctrl());
     Env.ROOT.set_def(MEM_IDX,e._scope.mem ());
     Env.ROOT.set_def(REZ_IDX,e._scope.rez ());
     Env.GVN.add_flow(Env.ROOT);
-    e.close();      // No more fields added to the parse scope
+    if( close ) e.close(); // No more fields added to the parse scope
+    else if( err==null ) pin_funs(e._scope); // More text can call the bound functions
+    long t1 = System.nanoTime();
 
-    Combo.opto(); // Global Constant Propagation and Hindley-Milner Typing
+    COMBO_POPS = Env.COMBO.opto(incr); // Global Constant Propagation and Hindley-Milner Typing
+    long t2 = System.nanoTime();
 
     Env.GVN.iter(); // Re-check all ideal calls now that types have been maximally lifted
+    long t3 = System.nanoTime();
 
     Env.FILE=null;
+    PARSE_NS = t1-t0;  OPTO_NS = t2-t1;  ITER_NS = t3-t2;
+    GVN_POPS = GVNGCM.ITER_CNT-iter0-COMBO_POPS;
+    TYPE_SPLITS = FunNode.TYPE_SPLITS-splits0;  SPLIT_DISPATCHES = FunNode.SPLIT_DISPATCHES-disps0;
+    METRICS = Metrics.ON ? Metrics.json() : null;
 
     return e.gather_errors(err);  // Gather errors and/or program typing
   }
 
+  // Functions bound in an open file scope stay callable by more text, so they
+  // escape even when the current text does not return them.
+  private static void pin_funs( ScopeNode scope ) {
+    if( !(scope.mem()._val instanceof TypeMem tmem) ) return;
+    TypeStruct ts = tmem.at(scope.dsp()._alias);
+    for( TypeFld fld : ts )
+      if( fld._t instanceof TypeFunPtr tfp && !tfp.above_center() )
+        for( int fidx : tfp.fidxs() )
+          if( fidx != 0 ) Env.ROOT.pin(fidx);
+  }
 
   public static String dump() { return Env.ROOT.dumprpo(false,false,false); } // Debugging hook
 }
@@ -0,0 +1,110 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.PrimNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Content-addressed on-disk cache of Exec.file_strs results.  Off unless
+// -Dexec_cache=<dir> (or DIR is set).
+//
+// The key is a SHA-256 over the build version, a fingerprint of the
+// primitives, the compile settings that change the answer (rseed, GCP and
+// HMT, worklist orders), and the source name and text.  A rebuild, or any
+// change to the primitive set, misses every old entry.  Without a build
+// version (running from bare classes) there is nothing to detect a compiler
+// change, so the cache stays off.
+//
+// Entries are the three result Strings, written to a temp file and moved
+// into place, so concurrent ExecPool workers can share a directory.  Any
+// I/O trouble is a miss.
+public abstract class ExecCache {
+  public static String DIR = System.getProperty("exec_cache");
+  public static long HITS, MISSES;
+
+  private static String PRIMS_HASH; // Lazily computed primitive fingerprint
+
+  // Cached result, or null
+  static String[] get( String src, String str, int rseed, boolean do_gcp, boolean do_hmt ) {
+    Path p = path(src,str,rseed,do_gcp,do_hmt);
+    if( p==null ) return null;
+    try( DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p))) ) {
+      String[] rs = new String[]{read(in),read(in),read(in)};
+      HITS++;
+      return rs;
+    } catch( IOException e ) {
+      MISSES++;
+      return null;
+    }
+  }
+
+  static void put( String src, String str, int rseed, boolean do_gcp, boolean do_hmt, String[] rs ) {
+    Path p = path(src,str,rseed,do_gcp,do_hmt);
+    if( p==null ) return;
+    try {
+      Files.createDirectories(p.getParent());
+      Path tmp = Files.createTempFile(p.getParent(),"aa",".tmp");
+      try( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))) ) {
+        for( String s : rs ) write(out,s);
+      }
+      Files.move(tmp,p,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+    } catch( IOException ignore ) { }
+  }
+
+  // Entry path, or null if the cache is off
+  private static Path path( String src, String str, int rseed, boolean do_gcp, boolean do_hmt ) {
+    if( DIR==null || AA.version()==null ) return null;
+    MessageDigest md = sha();
+    update(md,AA.version());
+    update(md,prims_hash());
+    update(md,rseed+" "+do_gcp+" "+do_hmt+" "+AA.GVN_ORDER+" "+AA.COMBO_ORDER+" "+AA.LIVE_ORDER);
+    update(md,src);
+    update(md,str);
+    return Path.of(DIR,hex(md.digest()));
+  }
+
+  // Fingerprint of every primitive: class, name, formals, return and laziness
+  static String prims_hash() {
+    if( PRIMS_HASH!=null ) return PRIMS_HASH;
+    Object dummy = Env.TOP;     // Must <clinit>, which makes the primitives
+    MessageDigest md = sha();
+    for( PrimNode prim : PrimNode.PRIMS() )
+      update(md,prim.getClass().getName()+" "+prim._name+" "+prim._formals+" "+prim._ret+" "+prim._is_lazy);
+    return (PRIMS_HASH = hex(md.digest()));
+  }
+
+  private static MessageDigest sha() {
+    try { return MessageDigest.getInstance("SHA-256"); }
+    catch( NoSuchAlgorithmException e ) { throw new RuntimeException(e); }
+  }
+  // Length-prefixed, so adjacent fields cannot run together
+  private static void update( MessageDigest md, String s ) {
+    byte[] bs = s.getBytes(StandardCharsets.UTF_8);
+    md.update((byte)(bs.length>>24)); md.update((byte)(bs.length>>16));
+    md.update((byte)(bs.length>> 8)); md.update((byte) bs.length     );
+    md.update(bs);
+  }
+  private static String hex( byte[] bs ) {
+    StringBuilder sb = new StringBuilder();
+    for( byte b : bs ) sb.append(String.format("%02x",b));
+    return sb.toString();
+  }
+
+  // Nullable Strings, any length
+  private static void write( DataOutputStream out, String s ) throws IOException {
+    if( s==null ) { out.writeInt(-1); return; }
+    byte[] bs = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bs.length);
+    out.write(bs);
+  }
+  private static String read( DataInputStream in ) throws IOException {
+    int len = in.readInt();
+    if( len==-1 ) return null;
+    byte[] bs = new byte[len];
+    in.readFully(bs);
+    return new String(bs,StandardCharsets.UTF_8);
+  }
+}
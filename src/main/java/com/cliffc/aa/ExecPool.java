@@ -0,0 +1,62 @@
+package com.cliffc.aa;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Concurrent compiles of independent programs in one JVM.
+//
+// The compiler state (Env, GVN, the Node and Type tables, TV2, Combo) is all
+// JVM-global statics, so a compile owns the whole compiler.  Rather than
+// thread a context through every Node and Type, each worker thread loads a
+// private copy of the compiler classes in its own ClassLoader, and so gets
+// private statics.  Workers are reused across compiles, so a compile pays
+// neither JVM startup nor the primitives setup.  A compile that throws leaves
+// its statics unusable, so that worker drops its copy and loads a fresh one.
+//
+// Results come back as plain Strings, which cross the ClassLoaders.
+public class ExecPool implements AutoCloseable {
+  public record Result( String type, String hmt, String err ) { }
+
+  private final URL[] _urls;    // Where the compiler classes load from
+  private final ExecutorService _pool;
+  private final ThreadLocal<Method> _file = ThreadLocal.withInitial(this::load);
+
+  public ExecPool( int nthreads ) {
+    _urls = new URL[]{Exec.class.getProtectionDomain().getCodeSource().getLocation()};
+    _pool = Executors.newFixedThreadPool(nthreads, r -> {
+        Thread t = new Thread(r,"aa-exec");
+        t.setDaemon(true);
+        return t;
+      });
+  }
+
+  // A private copy of the compiler; the parent only supplies the JDK
+  private Method load() {
+    try {
+      ClassLoader cl = new URLClassLoader(_urls,ClassLoader.getPlatformClassLoader());
+      return cl.loadClass(Exec.class.getName()).getMethod("file_strs",String.class,String.class,int.class,boolean.class,boolean.class);
+    } catch( ReflectiveOperationException e ) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Compile on some worker, as Exec.file
+  public Future<Result> file( String src, String str, int rseed, boolean do_gcp, boolean do_hmt ) {
+    return _pool.submit(() -> {
+        try {
+          String[] rs = (String[])_file.get().invoke(null,src,str,rseed,do_gcp,do_hmt);
+          return new Result(rs[0],rs[1],rs[2]);
+        } catch( InvocationTargetException e ) {
+          _file.remove();       // Statics are broken; next compile loads afresh
+          throw e.getCause() instanceof Exception ex ? ex : e;
+        }
+      });
+  }
+
+  @Override public void close() { _pool.shutdownNow(); }
+}
@@ -0,0 +1,485 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.*;
+import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.AryInt;
+import com.cliffc.aa.util.SB;
+import com.cliffc.aa.util.VBitSet;
+
+import static com.cliffc.aa.AA.*;
+
+/** Global Code Motion: schedule the final Sea-of-Nodes into basic blocks.
+
+Run after Combo.opto and GVN.iter, over everything reachable from Env.ROOT.
+The graph is not changed; the result is a side structure for backends and
+dumps.
+
+Each FunNode, plus the top-level program starting at Env.CTL_0, is a Func.
+The control Nodes of a Func are cut into Blocks: a new Block starts at the
+Func entry, at every RegionNode, and after any control Node with more than
+one control successor (i.e. after an If).  Calls stay inside a Block.
+Call-graph edges (CEProjs into FunNodes, RetNodes into CallEpis) are not part
+of any Func's CFG, so each Func has its own dominator tree.
+
+Dominators use the Cooper-Harvey-Kennedy iteration over reverse post-order.
+Loops are natural loops from backedges (an edge to a dominator); the loop
+depth of a Block counts its enclosing loops.
+
+Placement is Click's 1995 GCM.  Pinned Nodes are control, Phis and Parms, and
+projections of control.  Every other Node is scheduled Early (the deepest
+Block of its inputs) and Late (the LCA of its uses' Blocks; a Phi use counts
+in the matching predecessor Block).  The final Block is on the dominator
+path from Late up to Early, picking the shallowest loop depth and, for
+equal depth, the latest Block.  So loop-invariant work hoists out of loops,
+and work needed on only some paths sinks into them.  A Load is also kept
+above any other consumer of its memory state (an anti-dependence).
+Projections of a floating multi-node (e.g. a NewNode) go with their head.
+
+Nodes without a single home Func are left unscheduled: constants, Root
+projections, and any Node whose inputs or uses span Funcs.  Backends
+rematerialize these as needed.
+
+Within a Block, the order is the Block head, its Phis, then every Node after
+its in-Block inputs, with the control Nodes in order and any If or Return
+last.
+*/
+public class GCM {
+
+  // A straight run of control Nodes, and the data Nodes scheduled with them
+  public static class Block {
+    public final Func _func;    // Enclosing function
+    public int _idx;            // Reverse post-order index in the Func
+    public final Ary<Node > _cfgs  = new Ary<>(Node .class); // Control Nodes, in order; [0] is the head
+    public final Ary<Block> _preds = new Ary<>(Block.class);
+    public final Ary<Block> _succs = new Ary<>(Block.class);
+    public Block _idom;         // Immediate dominator; null for the entry
+    public int _dom_depth;      // Depth in the dominator tree; 0 for the entry
+    public int _loop_depth;     // Number of enclosing loops
+    public final Ary<Node > _nodes = new Ary<>(Node .class); // All scheduled Nodes, in order
+    Block( Func func ) { _func = func; }
+    public Node head() { return _cfgs.at(0); }
+    public Node tail() { return _cfgs.last(); }
+    // True if this Block dominates b
+    public boolean dominates( Block b ) {
+      if( b._func != _func ) return false;
+      while( b._dom_depth > _dom_depth ) b = b._idom;
+      return b==this;
+    }
+    @Override public String toString() { return "B"+_idx; }
+  }
+
+  // One function body: a CFG and its dominator tree
+  public static class Func {
+    public final FunNode _fun;  // Null for the top-level program
+    public final Node _start;   // Entry control
+    public final Ary<Block> _blocks = new Ary<>(Block.class); // Reverse post-order; [0] is the entry
+    Func( FunNode fun, Node start ) { _fun=fun; _start=start; }
+    public Block entry() { return _blocks.at(0); }
+    public String name() { return _fun==null ? "top" : _fun.name(true); }
+  }
+
+  public final Ary<Func> _funcs = new Ary<>(Func.class);
+  public final Ary<Node> _globals = new Ary<>(Node.class); // Unscheduled Nodes
+  private final Node _root;
+  private final VBitSet _reach = new VBitSet(); // Reachable from Root, by uid
+  private final Block[] _n2b;   // Final (or pinned) Block, by uid
+  private final Block[] _early; // Early Block, by uid
+  private final VBitSet _pinned = new VBitSet();
+  private final VBitSet _global = new VBitSet();
+  private final Ary<Node> _all = new Ary<>(Node.class);
+
+  // Schedule the current program
+  public static GCM schedule() { return new GCM(Env.ROOT,Env.CTL_0); }
+
+  // Schedule everything reachable from root; the top-level code starts at start
+  public GCM( Node root, Node start ) {
+    _root = root;
+    _n2b   = new Block[Node.uid_cnt()];
+    _early = new Block[Node.uid_cnt()];
+    reach();
+    // Build all CFGs
+    if( _reach.test(start._uid) ) build(new Func(null,start));
+    for( Node n : _all )
+      if( n instanceof FunNode fun )
+        build(new Func(fun,fun));
+    // Place every Node
+    pin();
+    Ary<Node> rpo = floating_postorder();
+    for( Node n : rpo ) early(n);
+    for( int i=rpo._len-1; i>=0; i-- ) late(rpo.at(i));
+    for( Node n : _all )        // Bucket, then order within each Block
+      if( _n2b[n._uid]!=null && !n.is_CFG() )
+        _n2b[n._uid]._nodes.push(n);
+    for( Func f : _funcs )
+      for( Block b : f._blocks )
+        local(b);
+    assert check();
+  }
+
+  // Final Block for n, or null if unscheduled
+  public Block block( Node n ) { return n._uid < _n2b.length ? _n2b[n._uid] : null; }
+
+  // ----------------------------------------------------------------------
+  // All Nodes reachable from Root along def edges
+  private void reach() {
+    Ary<Node> work = new Ary<>(Node.class);
+    _reach.set(_root._uid);
+    work.push(_root);
+    while( !work.isEmpty() ) {
+      Node n = work.pop();
+      if( n!=_root ) _all.push(n);
+      for( Node def : n._defs )
+        if( def!=null && !_reach.tset(def._uid) )
+          work.push(def);
+    }
+  }
+  private boolean reached( Node n ) { return n!=null && n!=_root && _reach.test(n._uid); }
+
+  // Control successors of c in the same Func.  Skips the call-graph edges,
+  // and the Root and Scope which end the top-level.
+  private final Ary<Node> _succs = new Ary<>(Node.class);
+  private Ary<Node> succs( Node c ) {
+    _succs.clear();
+    for( Node use : c._uses ) {
+      if( !use.is_CFG() || !reached(use) ) continue;
+      if( use instanceof FunNode || use instanceof RootNode || use instanceof ScopeNode || use instanceof CEProjNode ) continue;
+      if( (use instanceof RegionNode || use.in(0)==c) && _succs.find(use)==-1 ) _succs.push(use); // Uses can repeat
+    }
+    return _succs;
+  }
+
+  // Cut the CFG of f into Blocks, then order and analyze them
+  private void build( Func f ) {
+    Ary<Block> work = new Ary<>(Block.class);
+    Ary<Block> blocks = new Ary<>(Block.class);
+    work.push(blocks.push(new_block(f,f._start)));
+    while( !work.isEmpty() ) {
+      Block b = work.pop();
+      for( Node s : succs(b.tail()).asAry() ) {
+        Block sb = _n2b[s._uid];
+        if( sb==null ) work.push(blocks.push(sb = new_block(f,s)));
+        else if( sb._func!=f ) continue;
+        b._succs.push(sb);
+        sb._preds.push(b);
+      }
+    }
+    rpo(f,blocks._len);
+    dom(f);
+    loops(f);
+    _funcs.push(f);
+  }
+
+  // A new Block at head, extended down any single non-merging successor chain
+  private Block new_block( Func f, Node head ) {
+    Block b = new Block(f);
+    Node c = head;
+    while( true ) {
+      _n2b[c._uid] = b;
+      b._cfgs.push(c);
+      Ary<Node> ss = succs(c);
+      if( ss._len!=1 ) break;
+      c = ss.at(0);
+      if( c instanceof RegionNode || _n2b[c._uid]!=null ) break;
+    }
+    return b;
+  }
+
+  // Reverse post-order of Blocks
+  private void rpo( Func f, int nblocks ) {
+    Block[] post = new Block[nblocks];
+    int npost=0;
+    Ary<Block> stk = new Ary<>(Block.class);
+    AryInt idx = new AryInt();
+    Block entry = _n2b[f._start._uid];
+    entry._idx = 1;             // _idx is a visit flag until numbered
+    stk.push(entry); idx.push(0);
+    while( !stk.isEmpty() ) {
+      Block b = stk.last();
+      int i = idx.last();
+      if( i < b._succs._len ) {
+        idx.set(idx._len-1,i+1);
+        Block s = b._succs.at(i);
+        if( s._idx==0 ) { s._idx = 1; stk.push(s); idx.push(0); }
+      } else {
+        post[npost++] = stk.pop();
+        idx.pop();
+      }
+    }
+    for( int i=npost-1; i>=0; i-- ) {
+      post[i]._idx = f._blocks._len;
+      f._blocks.push(post[i]);
+    }
+  }
+
+  // Cooper, Harvey & Kennedy "A Simple, Fast Dominance Algorithm"
+  private static void dom( Func f ) {
+    Block entry = f.entry();
+    entry._idom = entry;
+    boolean progress = true;
+    while( progress ) {
+      progress = false;
+      for( int i=1; i<f._blocks._len; i++ ) {
+        Block b = f._blocks.at(i), idom = null;
+        for( Block p : b._preds )
+          if( p._idom!=null )
+            idom = idom==null ? p : intersect(p,idom);
+        if( b._idom != idom ) { b._idom = idom; progress = true; }
+      }
+    }
+    entry._idom = null;
+    for( int i=1; i<f._blocks._len; i++ ) {
+      Block b = f._blocks.at(i);
+      b._dom_depth = b._idom._dom_depth+1;
+    }
+  }
+  private static Block intersect( Block a, Block b ) {
+    while( a!=b ) {
+      while( a._idx > b._idx ) a = a._idom;
+      while( b._idx > a._idx ) b = b._idom;
+    }
+    return a;
+  }
+
+  // Natural loops: every Block reaching a backedge without passing the
+  // header is in the header's loop.
+  private static void loops( Func f ) {
+    Ary<Block> work = new Ary<>(Block.class);
+    VBitSet body = new VBitSet();
+    for( Block h : f._blocks ) {
+      body.clear();
+      for( Block p : h._preds )
+        if( h.dominates(p) ) {  // Backedge p->h
+          body.set(h._idx);
+          if( !body.tset(p._idx) ) work.push(p);
+        }
+      while( !work.isEmpty() )
+        for( Block p : work.pop()._preds )
+          if( !body.tset(p._idx) ) work.push(p);
+      for( int i = body.nextSetBit(0); i>=0; i = body.nextSetBit(i+1) )
+        f._blocks.at(i)._loop_depth++;
+    }
+  }
+
+  // ----------------------------------------------------------------------
+  // Pin control, Phis and Parms, and projections of control.  Pinned Nodes
+  // outside of any Func (e.g. Root projections) and constants are global.
+  private void pin() {
+    for( Node n : _all ) {
+      Node ctl = null;
+      if( n.is_CFG() ) ctl = n;
+      else if( n instanceof PhiNode || (n instanceof ProjNode && n.in(0)!=null && n.in(0).is_CFG()) ) ctl = n.in(0);
+      else if( !(n instanceof ConNode) ) continue;
+      _pinned.set(n._uid);
+      Block b = ctl==null ? null : _n2b[ctl._uid];
+      if( b==null ) global(n);
+      else if( ctl!=n ) _n2b[n._uid] = b;
+    }
+  }
+  private void global( Node n ) {
+    if( _global.tset(n._uid) ) return;
+    _globals.push(n);
+    _n2b[n._uid] = null;
+    if( _pinned.test(n._uid) ) return;
+    for( Node use : n._uses )
+      if( tied(use) && use.in(0)==n && reached(use) )
+        global(use);
+  }
+
+  // Projections of a floating multi-node go with their head
+  private boolean tied( Node n ) { return n instanceof ProjNode && !_pinned.test(n._uid); }
+
+  // Floating Nodes, each after its floating inputs and after any Load it
+  // must stay below.
+  private Ary<Node> floating_postorder() {
+    Ary<Node> post = new Ary<>(Node.class);
+    VBitSet visit = new VBitSet(), done = new VBitSet();
+    Ary<Node> stk = new Ary<>(Node.class);
+    for( Node n : _all )
+      if( !_pinned.test(n._uid) )
+        postorder(n,null,visit,done,stk,post);
+    return post;
+  }
+
+  // Iterative post-order over the dependences of n: its inputs, and the
+  // Loads reading any memory n consumes.  Restricted to floating Nodes if b
+  // is null, else to Nodes in b.
+  private void postorder( Node n, Block b, VBitSet visit, VBitSet done, Ary<Node> stk, Ary<Node> post ) {
+    stk.push(n);
+    while( !stk.isEmpty() ) {
+      Node x = stk.last();
+      if( !visit.tset(x._uid) ) {
+        for( int i=x.len()-1; i>=0; i-- ) {
+          Node def = x.in(i);
+          if( dep(def,b,visit) ) stk.push(def);
+          if( def!=null && def.is_mem() && !(x instanceof LoadNode) )
+            for( Node ld : def._uses )
+              if( ld!=x && ld instanceof LoadNode && ld.in(MEM_IDX)==def && dep(ld,b,visit) )
+                stk.push(ld);
+        }
+      } else {
+        stk.pop();
+        if( !done.tset(x._uid) ) post.push(x);
+      }
+    }
+  }
+  private boolean dep( Node d, Block b, VBitSet visit ) {
+    if( !reached(d) || visit.test(d._uid) ) return false;
+    return b==null ? !_pinned.test(d._uid) : _n2b[d._uid]==b;
+  }
+
+  // Deepest input Block.  Inputs from more than one Func make n global.
+  private void early( Node n ) {
+    Block e = null;
+    for( int i=0; i<n.len(); i++ ) {
+      Node def = n.in(i);
+      if( !reached(def) || def instanceof RetNode ) continue; // FunPtrs do not execute their Ret
+      Block db = _pinned.test(def._uid) ? _n2b[def._uid] : _early[def._uid];
+      if( db==null ) continue;
+      if( e!=null && e._func!=db._func ) { global(n); return; }
+      if( e==null || db._dom_depth > e._dom_depth ) e = db;
+    }
+    _early[n._uid] = e;
+  }
+
+  // LCA of all uses, then the best Block between Late and Early
+  private void late( Node n ) {
+    if( tied(n) || _global.test(n._uid) ) return;
+    Block lca = use_lca(n,null);
+    if( lca!=null && n instanceof LoadNode ) lca = anti_lca(n,lca);
+    if( _global.test(n._uid) ) return;
+    Block early = _early[n._uid];
+    if( lca==null ) lca = early;          // No scheduled uses
+    if( lca==null ) { global(n); return; } // Neither inputs nor uses in any Func
+    if( early==null ) early = lca._func.entry();
+    if( early._func!=lca._func ) { global(n); return; }
+    place(n,best(early,lca));
+  }
+
+  private Block use_lca( Node n, Block lca ) {
+    for( Node use : n._uses ) {
+      if( use==_root ) {        // Program results are used at the exit
+        Node ctl = use.in(CTL_IDX);
+        if( reached(ctl) ) lca = lca(n,lca,_n2b[ctl._uid]);
+      } else if( !reached(use) ) {
+      } else if( tied(use) && use.in(0)==n ) {
+        lca = use_lca(use,lca);
+      } else if( use instanceof PhiNode ) {
+        for( int i=1; i<use.len(); i++ )
+          if( use.in(i)==n ) lca = lca(n,lca,pred(use,i));
+      } else lca = lca(n,lca,_n2b[use._uid]);
+    }
+    return lca;
+  }
+  // The Block ending in the i'th control input of a Phi's Region
+  private Block pred( Node phi, int i ) {
+    Node r = phi.in(0);
+    return r!=null && i<r.len() && reached(r.in(i)) ? _n2b[r.in(i)._uid] : null;
+  }
+
+  // Raise a Load above other consumers of its memory, where Early allows
+  private Block anti_lca( Node ld, Block lca ) {
+    Node mem = ld.in(MEM_IDX);
+    Block early = _early[ld._uid];
+    for( Node use : mem._uses ) {
+      if( use==ld || use instanceof LoadNode || !reached(use) ) continue;
+      if( use instanceof PhiNode ) {
+        for( int i=1; i<use.len(); i++ )
+          if( use.in(i)==mem ) lca = anti(ld,lca,early,pred(use,i));
+      } else lca = anti(ld,lca,early,_n2b[use._uid]);
+    }
+    return lca;
+  }
+  private Block anti( Node ld, Block lca, Block early, Block b ) {
+    return b==null || (early!=null && !early.dominates(b)) ? lca : lca(ld,lca,b);
+  }
+
+  // Least common dominator.  Uses in more than one Func make n global.
+  private Block lca( Node n, Block a, Block b ) {
+    if( a==null ) return b;
+    if( b==null ) return a;
+    if( a._func != b._func ) { global(n); return a; }
+    while( a!=b ) {
+      if( a._dom_depth >= b._dom_depth ) a = a._idom;
+      else                               b = b._idom;
+    }
+    return a;
+  }
+
+  // Walk up from Late to Early, keeping the shallowest loop depth; ties go to
+  // the later Block.
+  private static Block best( Block early, Block late ) {
+    Block best = late;
+    for( Block b = late; b!=early; ) {
+      b = b._idom;
+      if( b==null ) return early; // Early does not dominate Late; stay safe
+      if( b._loop_depth < best._loop_depth ) best = b;
+    }
+    return best;
+  }
+
+  private void place( Node n, Block b ) {
+    _n2b[n._uid] = b;
+    for( Node use : n._uses )
+      if( tied(use) && use.in(0)==n && reached(use) )
+        place(use,b);
+  }
+
+  // ----------------------------------------------------------------------
+  // Order the Nodes within a Block
+  private void local( Block b ) {
+    Node[] ns = b._nodes.asAry();
+    Ary<Node> post = b._nodes;
+    post.clear();
+    VBitSet visit = new VBitSet(), done = new VBitSet();
+    Ary<Node> stk = new Ary<>(Node.class);
+    Node head = b.head();
+    visit.set(head._uid); done.set(head._uid); post.push(head);
+    for( Node n : ns )
+      if( n instanceof PhiNode && n.in(0)==head )
+        { visit.set(n._uid); done.set(n._uid); post.push(n); }
+    Node tail = b.tail();
+    boolean last = tail!=head && (tail instanceof IfNode || tail instanceof RetNode);
+    for( int i=1; i<b._cfgs._len-(last?1:0); i++ )
+      postorder(b._cfgs.at(i),b,visit,done,stk,post);
+    for( Node n : ns )
+      postorder(n,b,visit,done,stk,post);
+    if( last ) postorder(tail,b,visit,done,stk,post);
+  }
+
+  // Every input is placed where it dominates its use, and comes first in a
+  // shared Block.
+  private boolean check() {
+    VBitSet prior = new VBitSet();
+    for( Func f : _funcs )
+      for( Block b : f._blocks ) {
+        prior.clear();
+        for( Node n : b._nodes ) {
+          prior.set(n._uid);
+          assert _n2b[n._uid]==b;
+          if( n instanceof PhiNode || n instanceof RegionNode ) continue; // Inputs from predecessors
+          for( Node def : n._defs ) {
+            if( !reached(def) || def instanceof RetNode ) continue;
+            Block db = _n2b[def._uid];
+            if( db==null || db._func!=f ) continue;
+            assert db.dominates(b) : "GCM: "+def._uid+" does not dominate "+n._uid;
+            assert db!=b || prior.test(def._uid) : "GCM: "+def._uid+" not before "+n._uid;
+          }
+        }
+      }
+    return true;
+  }
+
+  @Override public String toString() {
+    SB sb = new SB();
+    for( Func f : _funcs ) {
+      sb.p("============ ").p(f.name()).p(" ============").nl();
+      for( Block b : f._blocks ) {
+        sb.p(b.toString()).p(" <-");
+        for( Block p : b._preds ) sb.s().p(p.toString());
+        sb.p("  idom ").p(b._idom==null ? "-" : b._idom.toString()).p("  loop ").p(b._loop_depth).nl();
+        for( Node n : b._nodes ) sb.p(n.toString()).nl();
+      }
+    }
+    return sb.toString();
+  }
+}
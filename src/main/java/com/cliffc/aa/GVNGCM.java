@@ -6,7 +6,9 @@ import com.cliffc.aa.type.Type;
 import com.cliffc.aa.type.TypeMem;
 import com.cliffc.aa.type.TypeTuple;
 import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.Budget;
 import com.cliffc.aa.util.VBitSet;
+import com.cliffc.aa.util.Work;
 
 import java.util.BitSet;
 
@@ -14,16 +16,20 @@ import java.util.BitSet;
 public class GVNGCM {
   public static final KeepNode KEEP_ALIVE = new KeepNode();
 
-  // Iterative worklists.
+  // Iterative worklists.  While Combo runs, flow work goes to its worklists.
   private final WorkNode _work_dead   = new WorkNode("dead"  );
   private final WorkNode _work_flow   = new WorkNode("flow"  );
   private final WorkNode _work_reduce = new WorkNode("reduce");
   private final WorkNode _work_mono   = new WorkNode("mono"  );
   private final WorkNode _work_grow   = new WorkNode("grow"  );
   private final WorkNode _work_inline = new WorkNode("inline");
-  private final WorkNode _work_dom    = new WorkNode("dom"   );
+  private final WorkNode _work_dom    = new WorkNode("dom"   , Work.Order.RANDOM); // Walked by index, not popped
+  private WorkNode flow() { return Env.COMBO._running ? Env.COMBO._work_flow : _work_flow; }
+  // Liveness work is flow work, unless Combo has split it onto its own list
+  private WorkNode live() { return Env.COMBO._running && Env.COMBO._split ? Env.COMBO._work_live : flow(); }
   public boolean on_dead( Node n ) { return _work_dead.on(n); }
-  public boolean on_flow( Node n ) { return _work_flow.on(n); }
+  public boolean on_flow( Node n ) { return flow().on(n); }
+  public boolean on_live( Node n ) { return live().on(n); }
 
   static public <N extends Node> N add_work( WorkNode work, N n ) {
     if( n==null || n.is_dead() ) return n;
@@ -32,12 +38,14 @@ public class GVNGCM {
   }
   public void add_dead  ( Node n ) { add_work(_work_dead, n); }
   public <N extends Node> N add_reduce( N n ) { return add_work(_work_reduce,n); }
-  public <N extends Node> N add_flow  ( N n ) { return add_work(_work_flow  ,n); }
+  // During Combo a flow change is re-checked both forwards and backwards
+  public <N extends Node> N add_flow  ( N n ) { WorkNode flow=flow(), live=live(); if( live!=flow ) add_work(live,n); return add_work(flow,n); }
+  public <N extends Node> N add_live  ( N n ) { return add_work(live(),n); }
   public <N extends Node> N add_mono  ( N n ) { return add_work(_work_mono  ,n); }
   public void add_grow  ( Node n ) { add_work(_work_grow  ,n); }
   public void add_inline( FunNode n ) { add_work(_work_inline, n); }
-  public void add_flow_defs  ( Node n ) { add_work_defs(_work_flow  ,n); }
-  public void add_flow_uses  ( Node n ) { add_work_uses(_work_flow  ,n); }
+  public void add_flow_defs  ( Node n ) { WorkNode flow=flow(), live=live(); add_work_defs(flow,n); if( live!=flow ) add_work_defs(live,n); }
+  public void add_flow_uses  ( Node n ) { WorkNode flow=flow(), live=live(); add_work_uses(flow,n); if( live!=flow ) add_work_uses(live,n); }
   public void add_flow( UQNodes deps ) { if( deps != null ) for( Node dep : deps.values() ) add_flow(dep); }
   public void add_dom(Node n) { add_work(_work_dom,n); }
   public void add_reduce_uses( Node n ) { add_work_uses(_work_reduce,n); }
@@ -67,8 +75,6 @@ public class GVNGCM {
     return n;
   }
 
-  public Node pop_flow() { return _work_flow.pop(); }
-
   // Initial state after loading e.g. primitives.
   void init0() {
   }
@@ -84,6 +90,7 @@ public class GVNGCM {
     _work_inline.clear();
     _work_dom   .clear();
     ITER_CNT = ITER_CNT_NOOP = 0;
+    WorkNode.reset_rpo();
   }
   void flow_clear() { _work_flow.clear(); }
 
@@ -116,22 +123,27 @@ public class GVNGCM {
 
   // Any time anything is on any worklist we can always conservatively iterate on it.
   // Empties the worklists, attempting to do every possible thing.
+  // Pop counts, including Combo's, for comparing worklist orders.
   static int ITER_CNT;
   static int ITER_CNT_NOOP;
+  private int work_len() { return _work_dead.len()+_work_flow.len()+_work_reduce.len()+_work_mono.len()+_work_grow.len()+_work_inline.len(); }
   void do_iter() {
+    Budget budget = new Budget(Node.uid_cnt());
     while( true ) {
-      Node n, m;
+      Node n, m;  int kind;
+      long t0 = Metrics.ON ? System.nanoTime() : 0;
       if( false ) ;
-      else if( (n=_work_dead  .pop())!=null ) m = n._uses._len == 0 ? n.kill() : null;
-      else if( (n=_work_flow  .pop())!=null ) m = n.do_flow  ();
-      else if( (n=_work_reduce.pop())!=null ) m = n.do_reduce();
-      else if( (n=_work_mono  .pop())!=null ) m = n.do_mono  ();
-      else if( (n=_work_grow  .pop())!=null ) m = n.do_grow  ();
-      else if( (n=_work_inline.pop())!=null ) m = ((FunNode)n).ideal_inline(false);
+      else if( (n=_work_dead  .pop())!=null ) { kind=Metrics.DEAD  ; m = n._uses._len == 0 ? n.kill() : null; }
+      else if( (n=_work_flow  .pop())!=null ) { kind=Metrics.FLOW  ; m = n.do_flow  (); }
+      else if( (n=_work_reduce.pop())!=null ) { kind=Metrics.REDUCE; m = n.do_reduce(); }
+      else if( (n=_work_mono  .pop())!=null ) { kind=Metrics.MONO  ; m = n.do_mono  (); }
+      else if( (n=_work_grow  .pop())!=null ) { kind=Metrics.GROW  ; m = n.do_grow  (); }
+      else if( (n=_work_inline.pop())!=null ) { kind=Metrics.INLINE; m = ((FunNode)n).ideal_inline(false); }
       else break;
-      ITER_CNT++; assert ITER_CNT < 10000; // Catch infinite ideal-loops
+      ITER_CNT++; assert budget.ok(Node.uid_cnt(),work_len()) : "GVN not converging"; // Catch infinite ideal-loops
       if( m == null ) ITER_CNT_NOOP++;     // No progress profiling
       else assert m.is_dead() || m.check_vals();
+      if( Metrics.ON ) Metrics.step(kind,n,m!=null,t0);
       // VERY EXPENSIVE ASSERT
       //assert Env.ROOT == null || Env.ROOT.more_work(true) == 0; // Initial conditions are correct
     }
@@ -156,6 +168,7 @@ public class GVNGCM {
     };
     // Expensive assert
     //assert Env.ROOT.more_work(true)==0;
+    Node.recycle_uids();        // Worklists are empty
     IDEAL_VISIT.clear();
     //assert !Env.ROOT.more_ideal(IDEAL_VISIT);
   }
@@ -196,10 +196,10 @@ public class HM {
 
   static void main_work_loop( Root prog, Work<Syntax> work) {
 
-    int cnt=0;
+    Budget budget = new Budget(Syntax.CNT);
     while( true ) {
       while( work.len()>0 ) {     // While work
-        cnt++; assert cnt<10000;  // Check for infinite loops
+        assert budget.ok(Syntax.CNT,work.len()) : "HM not converging"; // Check for infinite loops
         Syntax syn = work.pop();  // Get work
 
         // Do Hindley-Milner work
@@ -2211,7 +2211,7 @@ public class HM {
     // Structural parts to unify with, or null.
     // If Leaf   , then null and _flow is null.
     // If Base   , then null and _flow is set.
-    // If unified, contains the single key ">>" and all other fields are null.
+    // If unified, then null and _fwd is set.
     // If Nil    , contains the single key "?"  and all other fields are null.
     // If Ptr    , contains the single key "*"  and all other fields are null.
     // If Lambda , contains keys " x"," y"," z" for args or " ret" for return.
@@ -2220,6 +2220,11 @@ public class HM {
     // If Error  , _eflow may contain a 2nd flow type; also blends keys from all takers
     NonBlockingHashMap<String,T2> _args;
 
+    // U-F forwarding pointer, or null if not unified.  If set, all other
+    // fields are null.  Union keeps the higher ranked root.
+    T2 _fwd;
+    byte _rank;
+
     // Any/all of Base,Lambda,Struct may appear at once.
     // If more than one appears, then we have a "Cannot unify" error.
     // Nil is NOT allowed to appear with others, but it can fold into all of them.
@@ -2273,8 +2278,8 @@ public class HM {
       return t;
     }
 
-    boolean is_leaf() { return _args==null && _tflow ==null && !_is_obj && !_is_fun; }
-    boolean unified() { return get(">>")!=null; }
+    boolean is_leaf() { return _args==null && _tflow ==null && !_is_obj && !_is_fun && _fwd==null; }
+    boolean unified() { return _fwd!=null; }
     boolean is_nil () { return get("?" )!=null; }
     boolean is_ptr () { return get("*" )!=null; }
     boolean is_over() { return get("&0")!=null; }
@@ -2360,6 +2365,7 @@ public class HM {
 
     void free() {
       if( _args!=null ) _args.clear();
+      _fwd = null;
       _tflow = _eflow = null;
       _is_fun = _is_obj = _may_nil = _open = false;
       _is_copy = true;
@@ -2369,11 +2375,10 @@ public class HM {
 
     T2 debug_find() {// Find, without the roll-up
       if( !unified() ) return this; // Shortcut
-      if( _args==null ) return this;
-      T2 u = _args.get(">>");
+      T2 u = _fwd;
       if( !u.unified() ) return u;  // Shortcut
       // U-F search, no fixup
-      while( u.unified() ) u = u._args.get(">>");
+      while( u.unified() ) u = u._fwd;
       return u;
     }
 
@@ -2387,10 +2392,10 @@ public class HM {
     private T2 _find0() {
       T2 u = debug_find();
       if( u==this ) return u;
-      if( u==_args.get(">>") ) return u;
+      if( u==_fwd ) return u;
       // UF fixup
       T2 v = this, v2;
-      while( (v2=v._args.get(">>"))!=u ) { v._args.put(">>",u); v = v2; }
+      while( (v2=v._fwd)!=u ) { v._fwd = u; v = v2; }
       return u;
     }
     // Nilable fixup.  nil-of-leaf is OK.  nil-of-anything-else folds into a
@@ -2572,20 +2577,39 @@ public class HM {
       return _union(that,work);
     }
 
-    // Hard unify this into that, no testing for progress.
+    // Hard unify this into that, no testing for progress.  Union-by-rank: if
+    // this is the higher ranked root, the merged parts in that move back into
+    // this, and that is forwarded instead.
     private boolean _union( T2 that, Work<Syntax> work ) {
       assert !unified() && !that.unified(); // Cannot union twice
       // Work<Syntax>: put updates on the worklist for revisiting
       merge_deps(that,work);    // Merge update lists, for future unions
-      // Kill extra information, to prevent accidentally using it
-      _args = new NonBlockingHashMap<>() {{put(">>", that);}};
+      if( _rank > that._rank ) that._move(this);
+      else {
+        if( _rank==that._rank ) that._rank++;
+        _crush(that);
+      }
+      return true;
+    }
+    // Move all parts of this into that, and forward this to that
+    private void _move( T2 that ) {
+      that._args = _args;  that._tflow = _tflow;  that._eflow = _eflow;
+      that._is_fun = _is_fun;  that._is_obj = _is_obj;  that._may_nil = _may_nil;
+      that._open = _open;  that._is_copy = _is_copy;
+      that._deps = _deps;  that._err = _err;
+      _crush(that);
+    }
+    // Forward this to that, killing extra information to prevent accidentally
+    // using it
+    private void _crush( T2 that ) {
+      _args = null;
+      _fwd = that;
       _tflow = _eflow = null;
       _is_fun = _is_obj = _may_nil = _open = false;
       _is_copy = true;
       _deps = null;
       _err  = null;
       assert unified();
-      return true;
     }
 
     // Propagate error from left to right (if work).
@@ -3273,6 +3297,7 @@ public class HM {
       if( _args != null )
         for( T2 t2 : _args.values() )
           t2._clr_cp();
+      if( _fwd != null ) _fwd._clr_cp();
     }
 
     // -----------------
@@ -3305,6 +3330,7 @@ public class HM {
       if( _args != null )
         for( T2 t2 : _args.values() )
           t2.add_deps_work_impl(work);
+      if( _fwd != null ) _fwd.add_deps_work_impl(work);
     }
 
     // Merge this._deps into that
@@ -3332,6 +3358,7 @@ public class HM {
           for( String key : _args.keySet() )
             if( !key.equals("??") )
               _args.get(key)._get_dups(visit,dups);
+        if( _fwd!=null ) _fwd._get_dups(visit,dups);
       }
       return dups;
     }
@@ -3350,7 +3377,7 @@ public class HM {
       if( debug && !_is_copy ) sb.p('%');
       if( unified() || (is_leaf() && _err==null) ) {
         vname(sb,debug);
-        return unified() ? _args.get(">>").str(sb.p(">>"), visit, dups, debug) : sb;
+        return unified() ? _fwd.str(sb.p(">>"), visit, dups, debug) : sb;
       }
 
       // Dup printing for all but bases (which are short, just repeat them)
@@ -3473,6 +3500,7 @@ public class HM {
     private T2 _find(int uid, VBitSet visit) {
       if( visit.tset(_uid) ) return null;
       if( _uid==uid ) return this;
+      if( _fwd!=null ) return _fwd._find(uid,visit);
       if( _args==null ) return null;
       for( T2 arg : _args.values() )
         if( (arg=arg._find(uid,visit)) != null )
@@ -0,0 +1,531 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.*;
+import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.AryInt;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import static com.cliffc.aa.AA.*;
+import static com.cliffc.aa.node.Node.*;
+
+/** Graph interpreter: executes the final program, following its GCM schedule.
+
+Each GCM Func is lowered once to a Code: every Block becomes a straight-line
+array of Insns over frame slots, plus an exit (a Return, an If, a goto, or
+the end of the top-level program).  Phi values move on the edges into a
+merge Block; Parms are filled in by the caller.  Nodes which only rename a
+value (projections, Fresh, CallEpi, Cast, Assert) get no slot and no Insn,
+and read their input's slot instead.  Constants and the other unscheduled
+(global) Nodes are evaluated once into a constant pool, and are read with
+negative operands.
+
+At runtime an Insn dispatches with one switch over Node._op.  Values are
+plain Java objects and never Types: ints are Longs with nil as 0L, flts are
+Doubles, and structs, heap cells and function pointers are the small classes
+below.  Primitives run via PrimNode.exec, which shares each op() with the
+constant folder.
+
+Memory is a single heap.  A NewNode allocates a Ptr cell holding a Struct, a
+Store replaces the cell's Struct, and a Load reads it.  Memory values are
+just the MEM token: GCM keeps every Load above the Stores which would clobber
+it (anti-dependences), so running in schedule order sees the right memory.
+*/
+public class Interp {
+
+  // A struct value; immutable.  Field names are interned.
+  public static final class Struct {
+    public final String _clz;
+    public final String[] _flds;
+    public final Object[] _vals;
+    Struct( String clz, String[] flds, Object[] vals ) { _clz=clz; _flds=flds; _vals=vals; }
+    public int find( String fld ) {
+      for( int i=0; i<_flds.length; i++ )
+        if( _flds[i]==fld )
+          return i;
+      return -1;
+    }
+    public Object get( String fld ) { int i=find(fld); return i==-1 ? null : _vals[i]; }
+    // Copy with the field replaced, or added
+    Struct set( String fld, Object val ) {
+      int i = find(fld);
+      String[] flds = _flds;
+      if( i==-1 ) { flds = java.util.Arrays.copyOf(flds,(i=flds.length)+1); flds[i]=fld; }
+      Object[] vals = java.util.Arrays.copyOf(_vals,flds.length);
+      vals[i] = val;
+      return new Struct(_clz,flds,vals);
+    }
+    @Override public String toString() {
+      StringBuilder sb = new StringBuilder(_clz).append("@{");
+      for( int i=0; i<_flds.length; i++ )
+        sb.append(i==0 ? "" : "; ").append(_flds[i]).append('=').append(_vals[i] instanceof Struct ? "..." : _vals[i]);
+      return sb.append('}').toString();
+    }
+  }
+
+  // A heap cell, made by a NewNode
+  public static final class Ptr {
+    public Struct _s;
+    Ptr( Struct s ) { _s=s; }
+    @Override public String toString() { return "*"+_s; }
+  }
+
+  // A function pointer: code plus display.  A null display is unbound.
+  public static final class Closure {
+    final Code _code;
+    final Object _dsp;
+    Closure( Code code, Object dsp ) { _code=code; _dsp=dsp; }
+    @Override public String toString() { return "{"+_code._name+"}"; }
+  }
+
+  // Overloaded functions, picked at the call by the argument count and the
+  // kind of the first argument.  A non-null display replaces the choices'.
+  public static final class Unr {
+    final String _name;
+    final Closure[] _fns;
+    final int[] _nargs;
+    final byte[] _kinds;
+    final Object _dsp;
+    Unr( String name, Closure[] fns, int[] nargs, byte[] kinds, Object dsp ) { _name=name; _fns=fns; _nargs=nargs; _kinds=kinds; _dsp=dsp; }
+    Unr bind( Object dsp ) { return new Unr(_name,_fns,_nargs,_kinds,dsp); }
+    Closure pick( int nargs, Object arg ) {
+      byte k = kind(arg);
+      for( int i=0; i<_fns.length; i++ )
+        if( _nargs[i]==nargs && (_kinds[i]==K_ANY || _kinds[i]==k) )
+          return _fns[i];
+      throw new RuntimeException("No overload of "+_name+" takes "+arg);
+    }
+    @Override public String toString() { return "{?"+_name+"}"; }
+  }
+  private static final byte K_ANY=0, K_INT=1, K_FLT=2;
+  private static byte kind( Object v ) { return v instanceof Long ? K_INT : (v instanceof Double ? K_FLT : K_ANY); }
+
+  // The memory token
+  public static final Object MEM = new Object() { @Override public String toString() { return "MEM"; } };
+
+  // ----------------------------------------------------------------------
+  // One Func, lowered
+  static final class Code {
+    final String _name;
+    int _nslots;                // Frame size
+    int[] _parms;               // Slot per Parm index, or -1
+    Blk _entry;
+    Code( String name ) { _name=name; }
+  }
+  private static final byte X_RET=0, X_IF=1, X_GOTO=2;
+  static final class Blk {
+    Insn[] _body;
+    byte _exit;                 // X_RET, X_IF or X_GOTO
+    int _val;                   // Returned value, or the If test
+    Edge _e0, _e1;              // Goto target, or the If true and false targets
+  }
+  // Control flow edge, with the Phi moves into the target
+  static final class Edge {
+    final Blk _to;
+    final int[] _dst, _src;
+    final Object[] _tmp;        // Moves are parallel
+    Edge( Blk to, int[] dst, int[] src ) { _to=to; _dst=dst; _src=src; _tmp=new Object[dst.length]; }
+  }
+  static final class Insn {
+    final byte _op;             // Node._op
+    final int _dst;             // Result slot
+    final int[] _src;           // Operands: slots, or ~constant
+    final Object _aux;          // Per-op: the primitive, field name, struct shape, ...
+    Insn( byte op, int dst, int[] src, Object aux ) { _op=op; _dst=dst; _src=src; _aux=aux; }
+  }
+
+  private final GCM _gcm;
+  private final Node _root;
+  private final IdentityHashMap<Node,Code> _codes = new IdentityHashMap<>();
+  private final Code _top;
+  private final HashMap<String,Struct> _protos = new HashMap<>();
+  private final Struct _int_proto, _flt_proto;
+  private Object[] _cons = new Object[16]; // Constant pool
+  private int _ncons;
+
+  // Run the current program
+  public static Object run_program() { return new Interp(GCM.schedule(),Env.ROOT).run(); }
+
+  // Lower every Func in the schedule; the top-level program returns root's result
+  public Interp( GCM gcm, Node root ) {
+    _gcm = gcm;
+    _root = root;
+    _slots = new int[Node.uid_cnt()];
+    Code top = null;
+    for( GCM.Func fn : gcm._funcs ) {
+      Code code = new Code(fn.name());
+      if( fn._fun==null ) top = code;
+      else _codes.put(fn._fun,code);
+    }
+    if( top==null ) throw unimpl("No top-level program");
+    _top = top;
+    for( GCM.Func fn : gcm._funcs )
+      compile(fn,fn._fun==null ? top : _codes.get(fn._fun));
+    // Clazz prototypes, for fields on ints, flts and named structs
+    for( String clz : Env.PROTOS.keySet() )
+      _protos.put(clz,(Struct)gval(Env.PROTOS.get(clz)));
+    _int_proto = _protos.get("int:");
+    _flt_proto = _protos.get("flt:");
+  }
+
+  // Run the program, answering the value Root returns
+  public Object run() { return exec(_top,new Object[_top._nslots]); }
+
+  // ----------------------------------------------------------------------
+  private Object exec( Code code, Object[] f ) {
+    Blk b = code._entry;
+    while( true ) {
+      for( Insn x : b._body )
+        f[x._dst] = step(x,f);
+      switch( b._exit ) {
+      case X_RET:  return val(b._val,f);
+      case X_IF:   b = move(truthy(val(b._val,f)) ? b._e0 : b._e1,f); break;
+      default:     b = move(b._e0,f);
+      }
+    }
+  }
+
+  private Object val( int o, Object[] f ) { return o>=0 ? f[o] : _cons[~o]; }
+
+  // Only nil and zero are false
+  private static boolean truthy( Object v ) {
+    if( v instanceof Long   l ) return l!=0;
+    if( v instanceof Double d ) return d!=0;
+    return v!=null;
+  }
+
+  private Blk move( Edge e, Object[] f ) {
+    if( e==null ) throw new RuntimeException("Branch to dead code");
+    int[] dst = e._dst, src = e._src;
+    Object[] tmp = e._tmp;
+    for( int i=0; i<src.length; i++ ) tmp[i] = val(src[i],f);
+    for( int i=0; i<dst.length; i++ ) f[dst[i]] = tmp[i];
+    return e._to;
+  }
+
+  private Object step( Insn x, Object[] f ) {
+    int[] s = x._src;
+    switch( x._op ) {
+    case OP_PRIM:   return ((PrimNode)x._aux).exec(val(s[0],f), s.length>1 ? val(s[1],f) : null);
+    case OP_CALL:   return call(x,f);
+    case OP_FIELD:  return field(val(s[0],f),(String)x._aux);
+    case OP_LOAD:   return load(val(s[0],f));
+    case OP_STORE:  ((Ptr)val(s[0],f))._s = (Struct)val(s[1],f); return MEM;
+    case OP_NEW:    return new Ptr((Struct)val(s[0],f));
+    case OP_SETFLD: return ((Struct)val(s[0],f)).set((String)x._aux,val(s[1],f));
+    case OP_FUNPTR: return new Closure((Code)x._aux,val(s[0],f));
+    case OP_UNR:    return ((Unr)x._aux).bind(val(s[0],f));
+    case OP_STRUCT: {
+      Struct t = (Struct)x._aux;
+      Object[] vals = new Object[s.length];
+      for( int i=0; i<s.length; i++ ) vals[i] = val(s[i],f);
+      return new Struct(t._clz,t._flds,vals);
+    }
+    case OP_ERR:    throw new RuntimeException((String)x._aux);
+    default:        throw unimpl();
+    }
+  }
+
+  private Object call( Insn x, Object[] f ) {
+    int[] s = x._src;
+    Object fp = val(s[0],f);
+    Closure c;
+    Object dsp;
+    if( fp instanceof Closure c0 ) { c=c0; dsp=c._dsp; }
+    else if( fp instanceof Unr u ) {
+      c = u.pick(s.length-1+ARG_IDX, s.length>1 ? val(s[1],f) : null);
+      dsp = u._dsp==null ? c._dsp : u._dsp;
+    } else throw new RuntimeException("Calling "+fp+", which is not a function");
+    Code code = c._code;
+    Object[] nf = new Object[code._nslots];
+    int[] ps = code._parms;
+    parm(nf,ps,MEM_IDX,MEM);
+    parm(nf,ps,DSP_IDX,dsp);
+    for( int i=1; i<s.length; i++ )
+      parm(nf,ps,ARG_IDX+i-1,val(s[i],f));
+    return exec(code,nf);
+  }
+  private static void parm( Object[] nf, int[] ps, int idx, Object v ) {
+    if( idx < ps.length && ps[idx]>=0 ) nf[ps[idx]] = v;
+  }
+
+  private Struct proto( Object v ) {
+    if( v instanceof Long   ) return _int_proto;
+    if( v instanceof Double ) return _flt_proto;
+    if( v instanceof Struct s ) return _protos.get(s._clz);
+    return null;
+  }
+
+  // Field from a struct; missing fields come from the clazz, where functions
+  // act as pre-bound to 'this'
+  private Object field( Object v, String fld ) {
+    if( v instanceof Struct s ) {
+      int i = s.find(fld);
+      if( i!=-1 ) return s._vals[i];
+    }
+    Struct clz = proto(v);
+    int i = clz==null ? -1 : clz.find(fld);
+    if( i==-1 ) throw new RuntimeException("No field "+fld+" in "+v);
+    Object x = clz._vals[i];
+    if( x instanceof Closure c && c._dsp==null ) return new Closure(c._code,v);
+    if( x instanceof Unr     u && u._dsp==null ) return u.bind(v);
+    return x;
+  }
+
+  // Loads from a pointer read the heap; loads against a value read its clazz
+  private Object load( Object adr ) {
+    if( adr instanceof Ptr p ) return p._s;
+    Struct clz = proto(adr);
+    if( clz==null ) throw new RuntimeException("Load from "+adr);
+    return clz;
+  }
+
+  // ----------------------------------------------------------------------
+  // Lowering
+  private final int[] _slots;   // Slot+1, by uid; per Code
+  private final Ary<Node> _slotted = new Ary<>(Node.class);
+  private int _nslots;
+  private GCM.Func _func;       // Func being lowered
+  private final IdentityHashMap<Node,Integer> _gidx = new IdentityHashMap<>();
+  private int _mem = -1;        // Operand for the MEM token
+  private int _nil = -1;        // Operand for a missing input
+
+  private void compile( GCM.Func fn, Code code ) {
+    _func = fn;
+    _nslots = 0;
+    Ary<GCM.Block> bs = fn._blocks;
+    Blk[] blks = new Blk[bs._len];
+    for( int i=0; i<blks.length; i++ ) blks[i] = new Blk();
+    code._entry = blks[0];
+    // Parms fill slots from the caller
+    int nparms = 0;
+    for( Node n : fn.entry()._nodes )
+      if( n instanceof ParmNode p && p.in(0)==fn._fun ) nparms = Math.max(nparms,p._idx+1);
+    code._parms = new int[nparms];
+    java.util.Arrays.fill(code._parms,-1);
+    for( Node n : fn.entry()._nodes )
+      if( n instanceof ParmNode p && p.in(0)==fn._fun && p._idx>0 ) code._parms[p._idx] = slot(p);
+    for( GCM.Block b : bs ) {
+      Blk blk = blks[b._idx];
+      Ary<Insn> body = new Ary<>(Insn.class);
+      for( Node n : b._nodes ) {
+        Insn x = insn(n);
+        if( x==null ) continue;
+        if( folds(x) ) _gidx.put(n,push(step(x,null))); // Evaluate once, now
+        else body.push(x);
+      }
+      blk._body = body.asAry();
+      exit(b,blk,blks);
+    }
+    code._nslots = _nslots;
+    for( Node n : _slotted ) _slots[n._uid] = 0;
+    _slotted.clear();
+  }
+
+  private int slot( Node n ) {
+    if( _slots[n._uid]==0 ) { _slots[n._uid] = ++_nslots; _slotted.push(n); }
+    return _slots[n._uid]-1;
+  }
+
+  // Operand for a Node's value: its frame slot, or for renames the renamed
+  // value, or a constant.
+  private int opnd( Node n ) {
+    if( n==null ) return _nil==-1 ? (_nil = ~push(null)) : _nil;
+    switch( n._op ) {
+    case OP_FRESH:   return opnd(n.in(1));
+    case OP_CAST:    return opnd(n.in(1));
+    case OP_TYPE:    return opnd(n.in(REZ_IDX));
+    case OP_CALLEPI: return opnd(n.in(0));
+    case OP_STORE: case OP_SPLIT: case OP_JOIN: return mem();
+    case OP_PROJ: {
+      int idx = ((ProjNode)n)._idx;
+      Node head = n.in(0);
+      if( idx==MEM_IDX ) return mem();
+      if( idx==REZ_IDX && (head._op==OP_NEW || head._op==OP_CALLEPI) ) return opnd(head);
+      break;
+    }
+    }
+    Integer g = _gidx.get(n);
+    if( g!=null ) return ~g;    // Folded or global
+    GCM.Block b = _gcm.block(n);
+    if( b==null ) return pool(n);
+    if( b._func!=_func ) throw unimpl("Interp: "+n+" used outside its function");
+    return slot(n);
+  }
+  private int mem() {
+    if( _mem==-1 ) _mem = ~push(MEM);
+    return _mem;
+  }
+  private int pool( Node n ) {
+    Integer idx = _gidx.get(n);
+    if( idx==null ) _gidx.put(n,idx = push(gval(n)));
+    return ~idx;
+  }
+  private int push( Object v ) {
+    if( _ncons==_cons.length ) _cons = java.util.Arrays.copyOf(_cons,_ncons<<1);
+    _cons[_ncons] = v;
+    return _ncons++;
+  }
+
+  // Pure, with only constant inputs
+  private static boolean folds( Insn x ) {
+    switch( x._op ) {
+    case OP_FUNPTR: case OP_UNR: case OP_STRUCT: case OP_SETFLD: case OP_FIELD: break;
+    default: return false;
+    }
+    for( int s : x._src ) if( s>=0 ) return false;
+    return true;
+  }
+
+  // Value of a Node needing no frame: constants, function pointers and
+  // clazzes.  Control and other non-values are null.
+  private Object gval( Node n ) {
+    switch( n._op ) {
+    case OP_CON:    return value(n.value());
+    case OP_FRESH:  case OP_CAST: return gval(n.in(1));
+    case OP_FUNPTR: {           // Unreached functions (e.g. unused primitives) have no pointer
+      FunPtrNode fptr = (FunPtrNode)n;
+      Code code = _codes.get(fptr.fun());
+      return code==null ? null : new Closure(code,fptr.display()==null ? null : gval(fptr.display()));
+    }
+    case OP_UNR:    return unr((UnresolvedNode)n, n.in(0)==null ? null : gval(n.in(0)));
+    case OP_STRUCT: {
+      Struct t = shape((StructNode)n);
+      Object[] vals = new Object[n.len()];
+      for( int i=0; i<vals.length; i++ ) vals[i] = gval(n.in(i));
+      return new Struct(t._clz,t._flds,vals);
+    }
+    case OP_PROJ:   return ((ProjNode)n)._idx==MEM_IDX ? MEM : null;
+    case OP_CPROJ: case OP_FUN: case OP_RET: case OP_REGION: return null;
+    default:        throw unimpl("Interp: no value for "+n);
+    }
+  }
+
+  // Runtime value of a constant Type.  Non-constants (e.g. the defaults into
+  // Parms) and control or memory have no value.
+  private static Object value( Type t ) {
+    if( t==TypeNil.XNIL || t==TypeNil.NIL ) return 0L;
+    if( !(t instanceof TypeStruct ts) ) return null;
+    String clz = ts.clz();
+    if( clz.equals("int:") ) return ts._def instanceof TypeInt ti && ti.is_con() ? ti.getl() : null;
+    if( clz.equals("flt:") ) return ts._def instanceof TypeFlt tf && tf.is_con() ? tf.getd() : null;
+    String[] flds = new String[ts.len()];
+    Object[] vals = new Object[ts.len()];
+    for( int i=0; i<flds.length; i++ ) {
+      TypeFld fld = ts.get(i);
+      flds[i] = fld._fld.intern();
+      vals[i] = value(fld._t);
+    }
+    return new Struct(clz,flds,vals);
+  }
+
+  private Unr unr( UnresolvedNode unr, Object dsp ) {
+    Ary<Closure> fns = new Ary<>(Closure.class);
+    AryInt nargs = new AryInt(), kinds = new AryInt();
+    for( int i=1; i<unr.len(); i++ ) {
+      FunPtrNode fptr = (FunPtrNode)unr.in(i);
+      Closure c = (Closure)gval(fptr);
+      if( c==null ) continue;   // Never called
+      FunNode fun = fptr.fun();
+      Type formal = fun.parm(ARG_IDX)==null ? null : fptr.ret().formal(ARG_IDX);
+      fns.push(c);
+      nargs.push(fun.nargs());
+      kinds.push(formal==TypeStruct.INT ? K_INT : (formal==TypeStruct.FLT ? K_FLT : K_ANY));
+    }
+    byte[] ks = new byte[kinds._len];
+    for( int i=0; i<ks.length; i++ ) ks[i] = (byte)kinds.at(i);
+    return new Unr(unr._name,fns.asAry(),nargs.asAry(),ks,dsp);
+  }
+
+  private static Struct shape( StructNode n ) {
+    TypeStruct ts = n.ts();
+    assert ts.len()==n.len();
+    String[] flds = new String[ts.len()];
+    for( int i=0; i<flds.length; i++ ) flds[i] = ts.get(i)._fld.intern();
+    return new Struct(ts.clz(),flds,null);
+  }
+
+  // Insn for a scheduled Node, or null if it has no code
+  private Insn insn( Node n ) {
+    switch( n._op ) {
+    case OP_PRIM: {
+      PrimNode prim = (PrimNode)n;
+      if( prim._is_lazy )       // Reachable through dynamic dispatch, but only fails if run
+        return new Insn(OP_ERR,slot(n),new int[0],"Interp: lazy primitive "+prim._name);
+      return insn(n,opnds(n,0,n.len()),prim);
+    }
+    case OP_CALL:   {
+      int[] src = new int[n.len()-DSP_IDX];
+      for( int i=0; i<src.length; i++ ) src[i] = opnd(n.in(DSP_IDX+i));
+      return insn(n,src,null);
+    }
+    case OP_FIELD:  return insn(n,opnds(n,0,1),((FieldNode)n)._fld.intern());
+    case OP_LOAD:   return insn(n,opnds(n,DSP_IDX,DSP_IDX+1),null);
+    case OP_STORE:  return insn(n,opnds(n,2,4),null);
+    case OP_NEW:    return insn(n,opnds(n,REZ_IDX,REZ_IDX+1),null);
+    case OP_SETFLD: return insn(n,opnds(n,0,2),((SetFieldNode)n)._fld.intern());
+    case OP_STRUCT: return insn(n,opnds(n,0,n.len()),shape((StructNode)n));
+    case OP_FUNPTR: {           // Unreached functions have no pointer
+      Code code = _codes.get(((FunPtrNode)n).fun());
+      return code==null ? null : insn(n,opnds(n,1,2),code);
+    }
+    case OP_UNR:    return insn(n,opnds(n,0,1),unr((UnresolvedNode)n,null));
+    case OP_ERR:    return insn(n,new int[0],n.xstr());
+    // Control, Phis and Parms, renames and memory merges have no code
+    case OP_FUN: case OP_REGION: case OP_CPROJ: case OP_IF: case OP_RET: case OP_CALLEPI:
+    case OP_PARM: case OP_PHI: case OP_PROJ: case OP_FRESH: case OP_CAST: case OP_TYPE:
+    case OP_SPLIT: case OP_JOIN: case OP_CON:
+      return null;
+    default: throw unimpl("Interp: cannot run "+n);
+    }
+  }
+  private Insn insn( Node n, int[] src, Object aux ) { return new Insn(n._op,slot(n),src,aux); }
+  private int[] opnds( Node n, int lo, int hi ) {
+    int[] src = new int[hi-lo];
+    for( int i=lo; i<hi; i++ ) src[i-lo] = opnd(n.in(i));
+    return src;
+  }
+
+  // How Block b leaves
+  private void exit( GCM.Block b, Blk blk, Blk[] blks ) {
+    Node tail = b.tail();
+    if( tail instanceof RetNode ret ) {
+      blk._exit = X_RET;
+      blk._val = opnd(ret.rez());
+    } else if( tail instanceof IfNode ) {
+      blk._exit = X_IF;
+      blk._val = opnd(tail.in(1));
+      for( GCM.Block s : b._succs ) {
+        Edge e = edge(b,s,blks);
+        if( ((ProjNode)s.head())._idx==1 ) blk._e0 = e;
+        else                               blk._e1 = e;
+      }
+    } else if( b._succs._len==1 ) {
+      blk._exit = X_GOTO;
+      blk._e0 = edge(b,b._succs.at(0),blks);
+    } else if( b._succs._len==0 && _func._fun==null ) {
+      blk._exit = X_RET;        // End of the top-level program
+      blk._val = opnd(_root.in(REZ_IDX));
+    } else if( b._succs._len==0 ) {
+      blk._exit = X_GOTO;       // Dead end (e.g. an unsupported primitive); fails if run
+    } else throw unimpl("Interp: cannot leave "+tail);
+  }
+
+  // Edge from b to s, moving the Phis for b's path into s
+  private Edge edge( GCM.Block b, GCM.Block s, Blk[] blks ) {
+    Node head = s.head();
+    AryInt dst = new AryInt(), src = new AryInt();
+    if( head instanceof RegionNode r && !(head instanceof FunNode) ) {
+      int i=1;
+      while( r.in(i)!=b.tail() ) i++;
+      for( Node n : s._nodes )
+        if( n instanceof PhiNode phi && phi.in(0)==r ) {
+          dst.push(slot(phi));
+          src.push(opnd(phi.in(i)));
+        }
+    }
+    return new Edge(blks[s._idx],dst.asAry(),src.asAry());
+  }
+}
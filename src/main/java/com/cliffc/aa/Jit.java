@@ -0,0 +1,709 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.*;
+import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Ary;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import static com.cliffc.aa.AA.*;
+import static com.cliffc.aa.node.Node.*;
+
+/** JVM backend: compiles the final program to a hidden class.
+
+The top-level program becomes the static method "top", and every Func it
+calls becomes a static method of its own, all in one class following the GCM
+schedule.  Values Combo typed as int64 or flt64 live in long and double
+locals; everything else is an Object, with the same representations as the
+Interp (so the two answer alike).  Each scheduled Node gets a local, except a
+value used just once, and first, by the very next Node, which is left on the
+JVM stack.  Phis are locals written on the edges into their Region.  Struct
+values become instances of a final-field class, one per shape, defined
+alongside.  The class is loaded with Lookup.defineHiddenClass, and HotSpot
+does the rest.
+
+Class files are version 49, which need no StackMapTable: the verifier infers
+the frames itself.
+
+Only value-computing Nodes are compiled; there is no heap, so programs which
+Load (e.g. mutable variables) are not supported, nor are calls through
+anything but a known function pointer.  Common primitives are inline
+bytecodes; the rest call PrimNode.exec on boxed values.
+*/
+public class Jit {
+  // Value representations: unboxed long, unboxed double, or an Object
+  private static final byte J=0, D=1, A=2;
+  private static final String[] DESC = {"J","D","Ljava/lang/Object;"};
+
+  private static final String CODE = "com/cliffc/aa/JitCode";
+  private static final String SELF = "com/cliffc/aa/Jit";
+  private static final String REC  = "com/cliffc/aa/Jit$Rec";
+  private static final String PRIM = "com/cliffc/aa/node/PrimNode";
+  private static final String RAND = "com/cliffc/aa/node/PrimNode$RandI64";
+  private static final String OBJ  = "java/lang/Object";
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private final GCM _gcm;
+  private final Node _root;
+  private final IdentityHashMap<FunNode,GCM.Func> _funcs = new IdentityHashMap<>();
+  private final IdentityHashMap<FunNode,String> _sigs = new IdentityHashMap<>();
+  private final Ary<FunNode> _work = new Ary<>(FunNode.class); // Called, not yet compiled
+  private final Ary<PrimNode> _prims = new Ary<>(PrimNode.class); // Slow-path primitives, by index
+  private final ClassFile _cf = new ClassFile(CODE,OBJ);
+  private final MethodHandle _top;
+
+  // Compile every Func reached from the top-level program
+  public Jit( GCM gcm, Node root ) {
+    _gcm = gcm;
+    _root = root;
+    GCM.Func top = null;
+    for( GCM.Func fn : gcm._funcs )
+      if( fn._fun==null ) top = fn;
+      else _funcs.put(fn._fun,fn);
+    if( top==null ) throw unimpl("No top-level program");
+    method(top,"top","()"+DESC[A]);
+    while( _work._len>0 ) {
+      FunNode fun = _work.pop();
+      method(_funcs.get(fun),mname(fun),sig(fun));
+    }
+    _cf.field(0x000A/*private static*/,"K","[Ljava/lang/Object;");
+    try {
+      MethodHandles.Lookup hl = LOOKUP.defineHiddenClass(_cf.bytes(),true);
+      hl.findStaticVarHandle(hl.lookupClass(),"K",Object[].class).set((Object)_prims.asAry());
+      _top = hl.findStatic(hl.lookupClass(),"top",MethodType.methodType(Object.class));
+    } catch( ReflectiveOperationException e ) { throw new RuntimeException(e); }
+  }
+
+  // Run the current program
+  public static Object run_program() { return new Jit(GCM.schedule(),Env.ROOT).run(); }
+
+  // Run the program, answering the value Root returns
+  public Object run() {
+    try { return (Object)_top.invokeExact(); }
+    catch( RuntimeException | Error e ) { throw e; }
+    catch( Throwable t ) { throw new RuntimeException(t); }
+  }
+
+  // Called from the generated code
+  public static boolean truthy( Object v ) {
+    if( v instanceof Long   l ) return l!=0;
+    if( v instanceof Double d ) return d!=0;
+    return v!=null;
+  }
+  public static RuntimeException dead() { return new RuntimeException("Branch to dead code"); }
+
+  // Base of the generated struct classes; prints like an Interp.Struct
+  public static abstract class Rec {
+    public final String _clz;
+    protected Rec( String clz ) { _clz=clz; }
+    @Override public String toString() {
+      StringBuilder sb = new StringBuilder(_clz).append("@{");
+      Field[] flds = getClass().getDeclaredFields();
+      try {
+        for( int i=0; i<flds.length; i++ ) {
+          Object v = flds[i].get(this);
+          sb.append(i==0 ? "" : "; ").append(flds[i].getName()).append('=').append(v instanceof Rec ? "..." : v);
+        }
+      } catch( IllegalAccessException e ) { throw new RuntimeException(e); }
+      return sb.append('}').toString();
+    }
+  }
+
+  // ----------------------------------------------------------------------
+  // Per-method state
+  private GCM.Func _func;
+  private Asm _a;
+  private final IdentityHashMap<Node,Integer> _locals = new IdentityHashMap<>();
+  private final IdentityHashMap<Node,Integer> _uses   = new IdentityHashMap<>(); // Use counts of needed Nodes
+  private final IdentityHashMap<Node,Byte>    _reps   = new IdentityHashMap<>(); // Of compiled Nodes
+  private int _nlocals;
+  private Node _onstack;        // Value left on the JVM stack for the next Node
+
+  private void method( GCM.Func fn, String name, String sig ) {
+    _func = fn;
+    _a = new Asm();
+    _locals.clear();  _uses.clear();  _reps.clear();
+    _nlocals = 0;
+    _onstack = null;
+    // Arguments are the first locals, in signature order
+    if( fn._fun!=null )
+      for( int i=ARG_IDX; i<fn._fun.nargs(); i++ ) {
+        ParmNode p = fn._fun.parm(i);
+        byte r = p==null ? A : rep(p._val);
+        if( p!=null ) _locals.put(p,_nlocals);
+        _nlocals += r==A ? 1 : 2;
+      }
+    need(fn);
+    int[] labels = new int[fn._blocks._len];
+    for( int i=0; i<labels.length; i++ ) labels[i] = _a.label();
+    for( GCM.Block b : fn._blocks ) {
+      _a.mark(labels[b._idx],0);
+      Ary<Node> body = new Ary<>(Node.class);
+      for( Node n : b._nodes )
+        if( _uses.containsKey(n) && emits(n) ) body.push(n);
+      for( int i=0; i<body._len; i++ ) {
+        Node n = body.at(i);
+        emit(n);
+        Node next = i+1<body._len ? first(body.at(i+1)) : (i+1==body._len ? exit_first(b) : null);
+        if( next==n && _uses.get(n)==1 ) _onstack = n;
+        else store(n);
+      }
+      exit(b,labels);
+    }
+    if( _a._len > 0xFFFF ) throw unimpl("Jit: method too large, "+name);
+    _cf.method(0x0009/*public static*/,name,sig,_a,_nlocals);
+  }
+
+  // Mark the Nodes this Func needs, and count their uses: everything feeding
+  // a return, an If, or a side effect (calls, rand).
+  private void need( GCM.Func fn ) {
+    Ary<Node> work = new Ary<>(Node.class);
+    for( GCM.Block b : fn._blocks ) {
+      for( Node n : b._nodes )
+        if( n._op==OP_CALL || n instanceof PrimNode.RandI64 ) { _uses.putIfAbsent(n,0); work.push(n); }
+      Node tail = b.tail();
+      if( tail instanceof RetNode ret ) work.push(use(ret.rez()));
+      else if( tail instanceof IfNode ) work.push(use(tail.in(1)));
+      else if( b._succs._len==0 && fn._fun==null ) work.push(use(_root.in(REZ_IDX)));
+    }
+    while( work._len>0 ) {
+      Node n = work.pop();
+      if( n._op==OP_PHI && n.in(0) instanceof FunNode ) throw unimpl("Jit: cannot compile "+n);
+      if( !_reps.containsKey(n) ) { // Visit once; _reps doubles as a visited set until emission
+        _reps.put(n,A);
+        for( Node x : opnds(n) ) work.push(use(x));
+      }
+    }
+    _reps.clear();
+  }
+  private Node use( Node x ) {
+    Node n = src(x);
+    _uses.merge(n,1,Integer::sum);
+    return n;
+  }
+
+  // The value a Node renames
+  private static Node src( Node n ) {
+    while( true ) {
+      switch( n._op ) {
+      case OP_FRESH:   case OP_CAST: n = n.in(1); continue;
+      case OP_TYPE:    n = n.in(REZ_IDX); continue;
+      case OP_CALLEPI: n = n.in(0); continue;
+      case OP_PROJ:
+        if( ((ProjNode)n)._idx==REZ_IDX && n.in(0)._op==OP_CALLEPI ) { n = n.in(0); continue; }
+      }
+      return n;
+    }
+  }
+
+  // Value inputs, in load order
+  private static Node[] opnds( Node n ) {
+    switch( n._op ) {
+    case OP_CON: case OP_PARM: case OP_FUNPTR: return new Node[0];
+    case OP_PHI:    return range(n,1,n.len());
+    case OP_PRIM:   return n instanceof PrimNode.RandI64 ? range(n,1,2) : range(n,0,n.len());
+    case OP_CALL:   return range(n,ARG_IDX,n.len());
+    case OP_STRUCT: return range(n,0,n.len());
+    default: throw unimpl("Jit: cannot compile "+n);
+    }
+  }
+  private static Node[] range( Node n, int lo, int hi ) {
+    Node[] ns = new Node[hi-lo];
+    for( int i=lo; i<hi; i++ ) ns[i-lo] = n.in(i);
+    return ns;
+  }
+  // Nodes with code of their own
+  private static boolean emits( Node n ) { return n._op==OP_PRIM || n._op==OP_CALL || n._op==OP_STRUCT; }
+
+  // The Node n loads first, if its value is on top of the stack by then
+  private Node first( Node n ) {
+    switch( n._op ) {
+    case OP_PRIM: return inline((PrimNode)n) ? src(opnds(n)[0]) : null;
+    case OP_CALL: return n.len()>ARG_IDX ? src(n.in(ARG_IDX)) : null;
+    default:      return null;  // Structs start with 'new'
+    }
+  }
+  private Node exit_first( GCM.Block b ) {
+    Node tail = b.tail();
+    if( tail instanceof RetNode ret ) return src(ret.rez());
+    if( tail instanceof IfNode ) return src(tail.in(1));
+    if( b._succs._len==0 && _func._fun==null ) return src(_root.in(REZ_IDX));
+    return null;
+  }
+
+  // ----------------------------------------------------------------------
+  // Representations
+  private static byte rep( Type t ) {
+    if( t==TypeNil.XNIL || t==TypeNil.NIL ) return J;
+    if( t instanceof TypeStruct ts ) {
+      if( ts.clz().equals("int:") ) return J;
+      if( ts.clz().equals("flt:") ) return D;
+    }
+    return A;
+  }
+  private byte rep( Node n ) {
+    switch( n._op ) {
+    case OP_CON:  return rep(n.value());
+    case OP_PARM: case OP_PHI: return rep(n._val);
+    default:
+      Byte r = _reps.get(n);
+      if( r==null ) throw unimpl("Jit: used before defined, "+n);
+      return r;
+    }
+  }
+
+  // Inline primitives: operand representation and opcode; compares, Not and
+  // Rand are pseudo-ops.
+  private static final int CMP=-1, NOT=-2, NOP=-3, RND=-4;
+  private static final HashMap<String,int[]> FAST = new HashMap<>();
+  private static void fast( byte r, int op, String... clzs ) { for( String clz : clzs ) FAST.put(clz,new int[]{r,op}); }
+  static {
+    fast(J,Asm.LADD,"AddI64");  fast(J,Asm.LSUB,"SubI64");  fast(J,Asm.LMUL,"MulI64");
+    fast(J,Asm.LDIV,"DivI64");  fast(J,Asm.LREM,"ModI64");
+    fast(J,Asm.LAND,"AndI64");  fast(J,Asm.LOR ,"OrI64" );
+    fast(J,Asm.LNEG,"MinusI64");fast(J,NOT,"NotI64");       fast(J,RND,"RandI64");
+    fast(D,Asm.DADD,"AddF64","AddIF64","AddFI64");
+    fast(D,Asm.DSUB,"SubF64","SubIF64","SubFI64");
+    fast(D,Asm.DMUL,"MulF64","MulIF64","MulFI64");
+    fast(D,Asm.DDIV,"DivF64","DivIF64","DivFI64");
+    fast(D,Asm.DNEG,"MinusF64");fast(D,NOP,"ConvertI64F64");
+    for( String c : new String[]{"LT","LE","GT","GE","EQ","NE"} ) {
+      fast(J,CMP,c+"_I64");
+      fast(D,CMP,c+"_F64",c+"_IF64",c+"_FI64");
+    }
+  }
+  // Inline if there is a fast form, and no operand is an Object
+  private boolean inline( PrimNode p ) {
+    if( !FAST.containsKey(p.getClass().getSimpleName()) ) return false;
+    for( Node x : opnds(p) )
+      if( rep(src(x))==A ) return false;
+    return true;
+  }
+
+  // ----------------------------------------------------------------------
+  // Code for one Node, leaving its value on the stack
+  private void emit( Node n ) {
+    byte r;
+    switch( n._op ) {
+    case OP_PRIM:   r = prim((PrimNode)n); break;
+    case OP_CALL:   r = call(n); break;
+    case OP_STRUCT: r = struct((StructNode)n); break;
+    default: throw unimpl("Jit: cannot compile "+n);
+    }
+    _reps.put(n,r);
+  }
+
+  private byte prim( PrimNode p ) {
+    Node[] xs = opnds(p);
+    if( !inline(p) ) {          // Slow path: PrimNode.exec on Objects
+      if( xs.length>2 ) throw unimpl("Jit: cannot compile "+p);
+      _a.getstatic(_cf,CODE,"K","[Ljava/lang/Object;");
+      _a.icon(_prims._len);
+      _a.op(Asm.AALOAD,-1);
+      _prims.push(p);
+      _a.op2(Asm.CHECKCAST,_cf.cls(PRIM),0);
+      for( int i=0; i<2; i++ )
+        if( i<xs.length ) load(xs[i],A);
+        else _a.op(Asm.ACONST_NULL,1);
+      _a.invoke(_cf,Asm.INVOKEVIRTUAL,PRIM,"exec","(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+      byte r = rep(p._val);
+      conv(A,r);
+      return r;
+    }
+    int[] f = FAST.get(p.getClass().getSimpleName());
+    byte r = (byte)f[0];
+    for( Node x : xs ) load(x,r);
+    switch( f[1] ) {
+    case NOP: return r;
+    case RND: _a.invoke(_cf,Asm.INVOKESTATIC,RAND,"rand","(J)J"); return J;
+    case NOT: _a.op(Asm.LCONST_0,2); bool(Asm.LCMP,Asm.IFNE); return J;
+    case CMP: {
+      int cmp = r==J ? Asm.LCMP : (p._name.charAt(0)=='<' ? Asm.DCMPG : Asm.DCMPL);
+      int iff = switch( p._name ) {  // Branch when false
+        case "<"  -> Asm.IFGE;  case "<=" -> Asm.IFGT;
+        case ">"  -> Asm.IFLE;  case ">=" -> Asm.IFLT;
+        case "==" -> Asm.IFNE;  default   -> Asm.IFEQ;
+      };
+      bool(cmp,iff);
+      return J;
+    }
+    case Asm.LDIV: case Asm.LREM: { // Divide by zero is zero
+      int nz = _a.label(), done = _a.label(), sp = _a._sp;
+      _a.op(Asm.DUP2,2);  _a.op(Asm.LCONST_0,2);  _a.op(Asm.LCMP,-3);
+      _a.jmp(Asm.IFNE,nz,-1);
+      _a.op(Asm.POP2,-2);  _a.op(Asm.POP2,-2);  _a.op(Asm.LCONST_0,2);
+      _a.jmp(Asm.GOTO,done,0);
+      _a.mark(nz,sp);
+      _a.op(f[1],-2);
+      _a.mark(done,sp-2);
+      return J;
+    }
+    case Asm.LNEG: case Asm.DNEG: _a.op(f[1],0); return r;
+    default: _a.op(f[1],-2); return r; // Binary op
+    }
+  }
+  // Two operands compared to a 0/1 long
+  private void bool( int cmp, int iff ) {
+    int f = _a.label(), done = _a.label();
+    _a.op(cmp,-3);
+    _a.jmp(iff,f,-1);
+    _a.op(Asm.LCONST_1,2);
+    _a.jmp(Asm.GOTO,done,0);
+    _a.mark(f,_a._sp-2);
+    _a.op(Asm.LCONST_0,2);
+    _a.mark(done,_a._sp);
+  }
+
+  // Direct call to a static method
+  private byte call( Node call ) {
+    Node fdx = src(call.in(DSP_IDX));
+    if( !(fdx instanceof FunPtrNode fptr) ) throw unimpl("Jit: indirect call "+call);
+    FunNode fun = fptr.fun();
+    if( !_funcs.containsKey(fun) ) throw unimpl("Jit: no schedule for "+fun);
+    if( fun.nargs()!=call.len() ) throw unimpl("Jit: wrong arg count calling "+fun);
+    String sig = sig(fun);
+    for( int i=ARG_IDX; i<call.len(); i++ ) {
+      ParmNode p = fun.parm(i);
+      load(call.in(i),p==null ? A : rep(p._val));
+    }
+    _a.invoke(_cf,Asm.INVOKESTATIC,CODE,mname(fun),sig);
+    return rep(fun.ret().rez()._val);
+  }
+  private String sig( FunNode fun ) {
+    String sig = _sigs.get(fun);
+    if( sig!=null ) return sig;
+    StringBuilder sb = new StringBuilder("(");
+    for( int i=ARG_IDX; i<fun.nargs(); i++ ) {
+      ParmNode p = fun.parm(i);
+      sb.append(DESC[p==null ? A : rep(p._val)]);
+    }
+    sb.append(')').append(DESC[rep(fun.ret().rez()._val)]);
+    _sigs.put(fun,sig = sb.toString());
+    _work.push(fun);
+    return sig;
+  }
+  private static String mname( FunNode fun ) { return "f"+fun._uid; }
+
+  private byte struct( StructNode n ) {
+    Node[] xs = opnds(n);
+    byte[] rs = new byte[xs.length];
+    for( int i=0; i<xs.length; i++ ) rs[i] = rep(src(xs[i]));
+    String clz = rec(n.ts(),rs);
+    _a.op2(Asm.NEW,_cf.cls(clz),1);
+    _a.op(Asm.DUP,1);
+    StringBuilder sig = new StringBuilder("(");
+    for( int i=0; i<xs.length; i++ ) { load(xs[i],rs[i]); sig.append(DESC[rs[i]]); }
+    _a.invoke(_cf,Asm.INVOKESPECIAL,clz,"<init>",sig.append(")V").toString());
+    return A;
+  }
+
+  // ----------------------------------------------------------------------
+  // Load a value in representation r
+  private void load( Node x, byte r ) {
+    Node n = src(x);
+    if( n==_onstack ) { _onstack = null; conv(rep(n),r); return; }
+    assert _onstack==null;      // Only the first load may be on the stack
+    if( n._op==OP_CON ) {
+      Type t = n.value();
+      if( t==TypeNil.XNIL || t==TypeNil.NIL ) _a.lcon(_cf,0);
+      else if( t instanceof TypeStruct ts && ts._def instanceof TypeInt ti && ti.is_con() && rep(t)==J ) _a.lcon(_cf,ti.getl());
+      else if( t instanceof TypeStruct ts && ts._def instanceof TypeFlt tf && tf.is_con() && rep(t)==D ) _a.dcon(_cf,tf.getd());
+      else throw unimpl("Jit: cannot load "+n);
+    } else {
+      Integer l = _locals.get(n);
+      if( l==null ) throw unimpl("Jit: cannot load "+n);
+      _a.load(rep(n),l);
+    }
+    conv(rep(n),r);
+  }
+  private void store( Node n ) {
+    byte r = rep(n);
+    Integer l = _locals.get(n);
+    if( l==null ) {
+      _locals.put(n,l = _nlocals);
+      _nlocals += r==A ? 1 : 2;
+    }
+    _a.store(r,l);
+  }
+  private void conv( byte from, byte to ) {
+    if( from==to ) return;
+    switch( from*3+to ) {
+    case J*3+D: _a.op(Asm.L2D,0); break;
+    case J*3+A: _a.invoke(_cf,Asm.INVOKESTATIC,"java/lang/Long"  ,"valueOf","(J)Ljava/lang/Long;"  ); break;
+    case D*3+A: _a.invoke(_cf,Asm.INVOKESTATIC,"java/lang/Double","valueOf","(D)Ljava/lang/Double;"); break;
+    case A*3+J:
+      _a.op2(Asm.CHECKCAST,_cf.cls("java/lang/Long"),0);
+      _a.invoke(_cf,Asm.INVOKEVIRTUAL,"java/lang/Long","longValue","()J");
+      break;
+    case A*3+D:
+      _a.op2(Asm.CHECKCAST,_cf.cls("java/lang/Double"),0);
+      _a.invoke(_cf,Asm.INVOKEVIRTUAL,"java/lang/Double","doubleValue","()D");
+      break;
+    default: throw unimpl("Jit: cannot convert "+DESC[from]+" to "+DESC[to]);
+    }
+  }
+
+  // How Block b leaves
+  private void exit( GCM.Block b, int[] labels ) {
+    Node tail = b.tail();
+    if( tail instanceof RetNode ret ) {
+      byte r = rep(ret.rez()._val);
+      load(ret.rez(),r);
+      _a.op(r==J ? Asm.LRETURN : (r==D ? Asm.DRETURN : Asm.ARETURN),r==A ? -1 : -2);
+    } else if( tail instanceof IfNode ) {
+      Node c = src(tail.in(1));
+      byte r = rep(c);
+      load(c,r);
+      switch( r ) {
+      case J: _a.op(Asm.LCONST_0,2); _a.op(Asm.LCMP ,-3); break;
+      case D: _a.op(Asm.DCONST_0,2); _a.op(Asm.DCMPL,-3); break;
+      default: _a.invoke(_cf,Asm.INVOKESTATIC,SELF,"truthy","(Ljava/lang/Object;)Z");
+      }
+      GCM.Block t = null, f = null;
+      for( GCM.Block s : b._succs )
+        if( ((ProjNode)s.head())._idx==1 ) t = s;
+        else                               f = s;
+      int fl = _a.label();
+      _a.jmp(Asm.IFEQ,fl,-1);
+      edge(b,t,labels,false);
+      _a.mark(fl,0);
+      edge(b,f,labels,true);
+    } else if( b._succs._len==1 ) {
+      edge(b,b._succs.at(0),labels,true);
+    } else if( b._succs._len==0 && _func._fun==null ) {
+      load(_root.in(REZ_IDX),A); // End of the top-level program
+      _a.op(Asm.ARETURN,-1);
+    } else if( b._succs._len==0 ) {
+      _a.invoke(_cf,Asm.INVOKESTATIC,SELF,"dead","()Ljava/lang/RuntimeException;");
+      _a.op(Asm.ATHROW,-1);     // Dead end (e.g. an unsupported primitive); fails if run
+    } else throw unimpl("Jit: cannot leave "+tail);
+  }
+
+  // Edge from b to s: Phi moves through the stack, so they are parallel
+  private void edge( GCM.Block b, GCM.Block s, int[] labels, boolean fall ) {
+    if( s==null ) {             // Branch to dead code
+      _a.invoke(_cf,Asm.INVOKESTATIC,SELF,"dead","()Ljava/lang/RuntimeException;");
+      _a.op(Asm.ATHROW,-1);
+      return;
+    }
+    Node head = s.head();
+    if( head instanceof RegionNode r && !(head instanceof FunNode) ) {
+      int i=1;
+      while( r.in(i)!=b.tail() ) i++;
+      Ary<Node> phis = new Ary<>(Node.class);
+      for( Node n : s._nodes )
+        if( n instanceof PhiNode phi && phi.in(0)==r && _uses.containsKey(phi) ) {
+          load(phi.in(i),rep(phi));
+          phis.push(phi);
+        }
+      for( int j=phis._len-1; j>=0; j-- ) {
+        Node phi = phis.at(j);
+        _a.store(rep(phi),local(phi));
+      }
+    }
+    if( !fall || s._idx!=b._idx+1 ) _a.jmp(Asm.GOTO,labels[s._idx],0);
+  }
+  private int local( Node n ) {
+    Integer l = _locals.get(n);
+    if( l==null ) {
+      _locals.put(n,l = _nlocals);
+      _nlocals += rep(n)==A ? 1 : 2;
+    }
+    return l;
+  }
+
+  // ----------------------------------------------------------------------
+  // Final-field struct classes, one per shape; defined as ordinary classes
+  // so the hidden code class can name them.
+  private static final HashMap<String,String> RECS = new HashMap<>();
+  private static int RECCNT;
+  private static String rec( TypeStruct ts, byte[] rs ) {
+    StringBuilder key = new StringBuilder(ts.clz()).append('{');
+    for( int i=0; i<rs.length; i++ ) key.append(ts.get(i)._fld).append(':').append(DESC[rs[i]]).append(';');
+    String name = RECS.get(key.toString());
+    if( name!=null ) return name;
+    name = REC+(RECCNT++);
+    ClassFile cf = new ClassFile(name,REC);
+    StringBuilder sig = new StringBuilder("(");
+    for( int i=0; i<rs.length; i++ ) {
+      String fld = ts.get(i)._fld;
+      if( fld.isEmpty() || fld.matches(".*[.;\\[/<>].*") ) throw unimpl("Jit: field name "+fld);
+      cf.field(0x0011/*public final*/,fld,DESC[rs[i]]);
+      sig.append(DESC[rs[i]]);
+    }
+    Asm a = new Asm();
+    a.load(A,0);
+    a.ldc(cf.str(ts.clz()));
+    a.invoke(cf,Asm.INVOKESPECIAL,REC,"<init>","(Ljava/lang/String;)V");
+    int l = 1;
+    for( int i=0; i<rs.length; i++ ) {
+      a.load(A,0);
+      a.load(rs[i],l);
+      a.op2(Asm.PUTFIELD,cf.ref(9,name,ts.get(i)._fld,DESC[rs[i]]),rs[i]==A ? -2 : -3);
+      l += rs[i]==A ? 1 : 2;
+    }
+    a.op(Asm.RETURN,0);
+    cf.method(0x0001/*public*/,"<init>",sig.append(")V").toString(),a,l);
+    try { LOOKUP.defineClass(cf.bytes()); }
+    catch( IllegalAccessException e ) { throw new RuntimeException(e); }
+    RECS.put(key.toString(),name);
+    return name;
+  }
+
+  // ----------------------------------------------------------------------
+  // Growable bytes, big-endian
+  private static class Buf {
+    byte[] _bs = new byte[64];
+    int _len;
+    Buf u1( int x ) {
+      if( _len==_bs.length ) _bs = java.util.Arrays.copyOf(_bs,_len<<1);
+      _bs[_len++] = (byte)x;
+      return this;
+    }
+    Buf u2( int x ) { return u1(x>>8).u1(x); }
+    Buf u4( int x ) { return u2(x>>>16).u2(x); }
+    Buf bytes( Buf b ) { for( int i=0; i<b._len; i++ ) u1(b._bs[i]); return this; }
+  }
+
+  // One method's bytecodes, tracking stack depth
+  private static class Asm extends Buf {
+    static final int ACONST_NULL=1, ICONST_0=3, LCONST_0=9, LCONST_1=10, DCONST_0=14, DCONST_1=15, BIPUSH=16, SIPUSH=17;
+    static final int LDC_W=19, LDC2_W=20, LLOAD=22, DLOAD=24, ALOAD=25, AALOAD=50, LSTORE=55, DSTORE=57, ASTORE=58;
+    static final int POP2=88, DUP=89, DUP2=92, LADD=97, DADD=99, LSUB=101, DSUB=103, LMUL=105, DMUL=107;
+    static final int LDIV=109, DDIV=111, LREM=113, LNEG=117, DNEG=119, LAND=127, LOR=129, L2D=138;
+    static final int LCMP=148, DCMPL=151, DCMPG=152, IFEQ=153, IFNE=154, IFLT=155, IFGE=156, IFGT=157, IFLE=158;
+    static final int GOTO=167, LRETURN=173, DRETURN=175, ARETURN=176, RETURN=177, GETSTATIC=178, PUTFIELD=181;
+    static final int INVOKEVIRTUAL=182, INVOKESPECIAL=183, INVOKESTATIC=184, NEW=187, ATHROW=191, CHECKCAST=192, WIDE=196;
+
+    int _sp, _max;              // Stack depth, in slots
+    private final Ary<int[]> _labels = new Ary<>(int[].class); // Position, and branches to patch
+    private final Ary<int[]> _fixups = new Ary<>(int[].class); // {label, branch pc, patch pc}
+
+    private void sp( int d ) { _sp += d; if( _sp>_max ) _max=_sp; }
+    void op ( int op, int d ) { u1(op); sp(d); }
+    void op2( int op, int x, int d ) { u1(op).u2(x); sp(d); }
+    void icon( int i ) {
+      if( -1<=i && i<=5 ) op(ICONST_0+i,1);
+      else if( i==(byte )i ) { u1(BIPUSH).u1(i); sp(1); }
+      else if( i==(short)i ) { u1(SIPUSH).u2(i); sp(1); }
+      else throw unimpl("Jit: too many constants");
+    }
+    void lcon( ClassFile cf, long x ) {
+      if( x==0 || x==1 ) op(LCONST_0+(int)x,2);
+      else op2(LDC2_W,cf.lng(x),2);
+    }
+    void dcon( ClassFile cf, double d ) {
+      if( d==0 && 1/d>0 ) op(DCONST_0,2);
+      else if( d==1 ) op(DCONST_1,2);
+      else op2(LDC2_W,cf.dbl(d),2);
+    }
+    void ldc( int idx ) { op2(LDC_W,idx,1); }
+    void load ( byte r, int l ) { local(r==J ? LLOAD  : (r==D ? DLOAD  : ALOAD ),l); sp(r==A ?  1 :  2); }
+    void store( byte r, int l ) { local(r==J ? LSTORE : (r==D ? DSTORE : ASTORE),l); sp(r==A ? -1 : -2); }
+    private void local( int op, int l ) {
+      if( l<256 ) u1(op).u1(l);
+      else u1(WIDE).u1(op).u2(l);
+    }
+    void getstatic( ClassFile cf, String clz, String name, String desc ) { op2(GETSTATIC,cf.ref(9,clz,name,desc),1); }
+    void invoke( ClassFile cf, int op, String clz, String name, String desc ) {
+      op2(op,cf.ref(10,clz,name,desc),slots(desc)+(op==INVOKESTATIC ? 0 : -1));
+    }
+    // Stack effect of a call: minus the args, plus the result
+    private static int slots( String desc ) {
+      int d=0, i=1;
+      while( desc.charAt(i)!=')' ) {
+        char c = desc.charAt(i++);
+        if( c=='J' || c=='D' ) d -= 2;
+        else {
+          d--;
+          while( c=='[' ) c = desc.charAt(i++);
+          if( c=='L' ) i = desc.indexOf(';',i)+1;
+        }
+      }
+      char c = desc.charAt(i+1);
+      return d + (c=='V' ? 0 : (c=='J' || c=='D' ? 2 : 1));
+    }
+    int label() { _labels.push(new int[]{-1}); return _labels._len-1; }
+    // Place a label; sp is the stack depth there
+    void mark( int l, int sp ) { _labels.at(l)[0] = _len; _sp = sp; }
+    void jmp( int op, int l, int d ) {
+      _fixups.push(new int[]{l,_len});
+      u1(op).u2(0);
+      sp(d);
+    }
+    Buf finish() {
+      for( int[] f : _fixups ) {
+        int off = _labels.at(f[0])[0] - f[1];
+        if( off!=(short)off ) throw unimpl("Jit: method too large");
+        _bs[f[1]+1] = (byte)(off>>8);
+        _bs[f[1]+2] = (byte) off;
+      }
+      return this;
+    }
+  }
+
+  // A class file under construction
+  private static class ClassFile {
+    private final Buf _pool = new Buf(), _fields = new Buf(), _methods = new Buf();
+    private final HashMap<String,Integer> _cps = new HashMap<>();
+    private int _ncp=1, _nfields, _nmethods;
+    private final int _this, _super;
+    ClassFile( String name, String sup ) { _this = cls(name); _super = cls(sup); }
+
+    // Constant pool entries, shared by content
+    private int cp( String key, int slots, Runnable write ) {
+      Integer idx = _cps.get(key);
+      if( idx!=null ) return idx;
+      write.run();
+      _cps.put(key,idx = _ncp);
+      _ncp += slots;
+      return idx;
+    }
+    int utf8( String s ) {
+      return cp("U"+s,1,() -> {
+          byte[] bs = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+          _pool.u1(1).u2(bs.length);
+          for( byte b : bs ) _pool.u1(b);
+        });
+    }
+    int cls( String s ) { int u = utf8(s); return cp("C"+s,1,() -> _pool.u1(7).u2(u)); }
+    int str( String s ) { int u = utf8(s); return cp("S"+s,1,() -> _pool.u1(8).u2(u)); }
+    int lng( long x ) { return cp("J"+x,2,() -> _pool.u1(5).u4((int)(x>>>32)).u4((int)x)); }
+    int dbl( double d ) { long x = Double.doubleToRawLongBits(d); return cp("D"+x,2,() -> _pool.u1(6).u4((int)(x>>>32)).u4((int)x)); }
+    int nat( String name, String desc ) {
+      int n = utf8(name), d = utf8(desc);
+      return cp("N"+name+" "+desc,1,() -> _pool.u1(12).u2(n).u2(d));
+    }
+    // Field (tag 9) or method (tag 10) reference
+    int ref( int tag, String clz, String name, String desc ) {
+      int c = cls(clz), nt = nat(name,desc);
+      return cp(tag+clz+"."+name+" "+desc,1,() -> _pool.u1(tag).u2(c).u2(nt));
+    }
+
+    void field( int flags, String name, String desc ) {
+      _fields.u2(flags).u2(utf8(name)).u2(utf8(desc)).u2(0);
+      _nfields++;
+    }
+    void method( int flags, String name, String desc, Asm a, int nlocals ) {
+      a.finish();
+      _methods.u2(flags).u2(utf8(name)).u2(utf8(desc)).u2(1);
+      _methods.u2(utf8("Code")).u4(12+a._len).u2(a._max).u2(nlocals).u4(a._len).bytes(a).u2(0).u2(0);
+      _nmethods++;
+    }
+    byte[] bytes() {
+      Buf b = new Buf();
+      b.u4(0xCAFEBABE).u2(0).u2(49); // Version 49: no StackMapTable
+      b.u2(_ncp).bytes(_pool);
+      b.u2(0x0031/*public final super*/).u2(_this).u2(_super).u2(0);
+      b.u2(_nfields).bytes(_fields);
+      b.u2(_nmethods).bytes(_methods);
+      b.u2(0);
+      return java.util.Arrays.copyOf(b._bs,b._len);
+    }
+  }
+}
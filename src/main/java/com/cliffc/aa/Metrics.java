@@ -0,0 +1,93 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.Node;
+import com.cliffc.aa.tvar.TV2;
+import com.cliffc.aa.type.Type;
+import com.cliffc.aa.type.TypeMem;
+import com.cliffc.aa.util.SB;
+
+// Optimizer metrics registry.  Off unless -Dmetrics=true (or ON is set), and
+// then one static boolean test per event.
+//
+// Counts and times every worklist pop in GVNGCM.do_iter and every Combo step,
+// by step kind, Node opcode and progress.  Also the Type.meet and global
+// TypeMem.sharpen cache counters, Type INTERN growth, Nodes made, Cyclic
+// installs, TV2 U-F find chain lengths and TV2 allocations per alloc site.
+// Reset at the start of each Exec compile; the JSON dump of the last compile
+// is in Exec.METRICS.
+public abstract class Metrics {
+  public static boolean ON = Boolean.getBoolean("metrics");
+
+  // Step kinds: GVN worklists, then the Combo steps
+  public static final int DEAD=0, FLOW=1, REDUCE=2, MONO=3, GROW=4, INLINE=5, FWDS=6, BACKS=7, UNIFY=8;
+  private static final String[] KINDS = new String[]{"dead","flow","reduce","mono","grow","inline","combo_fwds","combo_backs","combo_unify"};
+
+  // Per kind, per opcode, per no-progress/progress
+  private static final int NOPS = Node.OP_MAX;
+  private static final long[] CNTS  = new long[KINDS.length*NOPS*2];
+  private static final long[] NANOS = new long[KINDS.length*NOPS*2];
+
+  // Type.meet cache hits, misses and evictions at reset
+  private static long HITS0, MISSES0, EVICTS0;
+  // TypeMem.sharpen cache hits, misses and evictions at reset
+  private static long SHITS0, SMISSES0, SEVICTS0;
+  // Cyclic.install calls and nanos
+  public static long CYCLICS, CYCLIC_NS;
+  private static int INTERN0;   // INTERN size at reset
+  private static long NODES0;   // Nodes made at reset
+
+  public static void reset() {
+    java.util.Arrays.fill(CNTS ,0);
+    java.util.Arrays.fill(NANOS,0);
+    CYCLICS = CYCLIC_NS = 0;
+    HITS0 = Type.MEET_HITS;  MISSES0 = Type.MEET_MISSES;  EVICTS0 = Type.MEET_EVICTS;
+    SHITS0 = TypeMem.SHARP_HITS;  SMISSES0 = TypeMem.SHARP_MISSES;  SEVICTS0 = TypeMem.SHARP_EVICTS;
+    INTERN0 = Type.intern_size();
+    NODES0 = Node.MADE;
+    TV2.reset_allocs();
+    TV2.reset_finds();
+  }
+
+  // Record one step on Node n, started at t0 from System.nanoTime()
+  public static void step( int kind, Node n, boolean progress, long t0 ) {
+    int idx = (kind*NOPS+n.op())*2+(progress ? 1 : 0);
+    CNTS [idx]++;
+    NANOS[idx] += System.nanoTime()-t0;
+  }
+
+  // Total nanos for one step kind, all opcodes
+  public static long nanos( int kind ) {
+    long sum=0;
+    for( int i=kind*NOPS*2; i<(kind+1)*NOPS*2; i++ ) sum += NANOS[i];
+    return sum;
+  }
+
+  // JSON dump: per kind and opcode, counts and micros with and without
+  // progress; then the type-table and TV2 counters.
+  public static String json() {
+    SB sb = new SB().p("{").nl().ii(1);
+    sb.ip("\"steps\": [").nl().ii(1);
+    boolean any=false;
+    for( int k=0; k<KINDS.length; k++ )
+      for( int op=0; op<NOPS; op++ ) {
+        int idx = (k*NOPS+op)*2;
+        if( CNTS[idx]+CNTS[idx+1]==0 ) continue;
+        sb.ip("{\"kind\": \"").p(KINDS[k]).p("\", \"op\": \"").p(Node.op_str(op)).p('"');
+        sb.p(", \"noprogress\": ").p(CNTS[idx  ]).p(", \"noprogress_us\": ").p(NANOS[idx  ]/1000);
+        sb.p(", \"progress\": "  ).p(CNTS[idx+1]).p(", \"progress_us\": "  ).p(NANOS[idx+1]/1000).p("},").nl();
+        any=true;
+      }
+    if( any ) sb.unchar(1+System.lineSeparator().length()).nl();
+    sb.di(1).ip("],").nl();
+    sb.ip("\"meet_hits\": ").p(Type.MEET_HITS-HITS0).p(", \"meet_misses\": ").p(Type.MEET_MISSES-MISSES0).p(", \"meet_evicts\": ").p(Type.MEET_EVICTS-EVICTS0).p(',').nl();
+    sb.ip("\"sharp_hits\": ").p(TypeMem.SHARP_HITS-SHITS0).p(", \"sharp_misses\": ").p(TypeMem.SHARP_MISSES-SMISSES0).p(", \"sharp_evicts\": ").p(TypeMem.SHARP_EVICTS-SEVICTS0).p(',').nl();
+    sb.ip("\"intern_growth\": ").p(Type.intern_size()-INTERN0).p(',').nl();
+    sb.ip("\"nodes\": ").p(Node.MADE-NODES0).p(',').nl();
+    sb.ip("\"cyclic_installs\": ").p(CYCLICS).p(", \"cyclic_us\": ").p(CYCLIC_NS/1000).p(',').nl();
+    sb.ip("\"tv2_finds\": ").p(TV2.FINDS).p(", \"tv2_find_max\": ").p(TV2.FIND_MAX).p(", \"tv2_find_avg\": ").p(TV2.FINDS==0 ? 0 : (double)TV2.FIND_STEPS/TV2.FINDS).p(',').nl();
+    sb.ip("\"tv2_allocs\": ");
+    TV2.allocs_json(sb);
+    sb.nl().di(1).p("}").nl();
+    return sb.toString();
+  }
+}
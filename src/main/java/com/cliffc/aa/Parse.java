@@ -10,6 +10,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.text.NumberFormat;
 import java.text.ParsePosition;
+import java.util.Arrays;
 import java.util.BitSet;
 
 import static com.cliffc.aa.AA.*;
@@ -195,6 +196,7 @@ public class Parse implements Comparable<Parse> {
   private int _x;               // Parser index
   private int _lastNWS;         // Index of last non-white-space char
   private final AryInt _lines;  // char offset of each line
+  private final int _line0;     // Lines before this text, e.g. prior REPL lines
   public final GVNGCM _gvn;     // Pessimistic types
 
   // Fields strictly for Java number parsing
@@ -202,7 +204,8 @@ public class Parse implements Comparable<Parse> {
   private final ParsePosition _pp;
   private final String _str;
 
-  Parse( String src, boolean prims, Env env, String str ) {
+  Parse( String src, boolean prims, Env env, String str ) { this(src,prims,env,str,0); }
+  Parse( String src, boolean prims, Env env, String str, int line0 ) {
     _prims = prims;
     _src = src;
     _e   = env;
@@ -216,6 +219,7 @@ public class Parse implements Comparable<Parse> {
     _str = str;           // Keep a complete string copy for java number parsing
     _lines = new AryInt();//
     _lines.push(0);       // Line 0 at offset 0
+    _line0 = line0;
     _gvn = Env.GVN;       // Pessimistic during parsing
   }
   String dump() { return scope().dump(99); }// debugging hook
@@ -431,6 +435,8 @@ public class Parse implements Comparable<Parse> {
       String tok = toks.at(i);               // Token being assigned
       Access mutable = rs.get(i) ? Access.RW : Access.Final;  // Assignment is mutable or final
       ScopeNode scope = lookup_scope(tok,lookup_current_scope_only);
+      if( scope!=null && scope.stk().is_prior_final(tok) ) // e.g. bound final on a prior REPL line
+        return init(new ErrNode(ctrl(),badfs.at(i),"Cannot re-assign final val '"+tok+"'"));
       ifex = do_store(scope,ifex,mutable,tok,badfs.at(i),ts.at(i),badts.at(i));
     }
 
@@ -995,6 +1001,7 @@ public class Parse implements Comparable<Parse> {
 
     // Build the FunNode header
     FunNode fun = new FunNode(formals.len());
+    fun._args = Arrays.copyOfRange(ids._es,ARG_IDX,ids._len);
     init(fun.add_def(init(new CRProjNode(fun._fidx))));
     int fun_idx = fun.push();
 
@@ -1475,6 +1482,7 @@ public class Parse implements Comparable<Parse> {
     _buf  = P._buf;
     _x    = P._x;
     _lines= P._lines;
+    _line0= P._line0;
     _gvn  = P._gvn;
     _lastNWS = P._lastNWS;
     _e    = null;  _nf  = null;  _pp  = null;  _str = null;
@@ -1506,7 +1514,7 @@ public class Parse implements Comparable<Parse> {
     int line = _lines.binary_search(_x); // Find zero-based line insertion point
     if( line == _lines._len ||  _lines.at(line)>_x ) line--;
     // error message using 1-based line
-    SB sb = new SB().p(_src).p(':').p(line+1).p(':').p(s).nl();
+    SB sb = new SB().p(_src).p(':').p(_line0+line+1).p(':').p(s).nl();
     sb.p(new String(_buf,a,b-a)).nl();
     int line_start = a;
     for( int i=line_start; i<_x; i++ )
@@ -1,16 +1,27 @@
 package com.cliffc.aa;
 
-import com.cliffc.aa.AA.*;
-import com.cliffc.aa.type.*;
-import com.cliffc.aa.util.*;
+import com.cliffc.aa.node.FunNode;
+import com.cliffc.aa.node.Node;
+import com.cliffc.aa.node.RetNode;
+import com.cliffc.aa.type.Type;
+import com.cliffc.aa.type.TypeFunPtr;
+import com.cliffc.aa.type.TypeStruct;
+import com.cliffc.aa.util.SB;
 
 import java.util.Scanner;
 
 /** an implementation of language AA
  */
 
+// The REPL keeps one FILE level Env alive for the whole session.  Each line
+// is parsed straight into the reopened file scope, so new bindings are
+// visible to later lines, and re-typing is incremental from the prior line's
+// fixed point: per-line cost tracks the size of the line, not the session.
 public abstract class REPL {
   public static final String prompt="> ";
+  private static Env ENV;       // Session-long file scope
+  private static int KEEP0;     // Pushed Nodes at session start
+
   public static String go( ) {
     String prog = "";
     init();
@@ -21,26 +32,57 @@ public abstract class REPL {
   }
 
   static void init() {
+    if( ENV != null ) {         // Kill any prior session
+      // A line that threw leaves its parse state behind: nested scopes,
+      // pushed Nodes, a running Combo.  Unwind all of it down to the session
+      // scope, then drop that too; nothing in it outlives the session.
+      Env.COMBO.reset();
+      Node.pops(GVNGCM.KEEP_ALIVE._defs._len-KEEP0);
+      while( Env.KEEP_ALIVE.pop() != ENV._scope ) ;
+      Env.FILE = null;
+      Env.top_reset();
+    }
+    AA.RSEED = 0;
+    AA.DO_GCP = AA.DO_HMT = true;
+    KEEP0 = GVNGCM.KEEP_ALIVE._defs._len;
+    ENV = new Env(Env.TOP,null,false,Env.TOP._scope.ctrl(),Env.TOP._scope.mem(),Env.TOP._scope.ptr(),null);
     System.out.print(prompt);
     System.out.flush();
   }
 
+  // Parse and type one more line.  Returns the program text so far, lines
+  // with errors excluded.
   static String go_one( String prog, String line ) {
-    //String prog2 = prog+line+";"+System.lineSeparator();
-    //TypeEnv te = Exec.go(Env.file_scope(Env.top_scope()),"stdin",prog2);
-    //if( te._errs == null ) {
-    //  Type t = te._t;
-    //  if( t instanceof TypeMemPtr )
-    //    t = te._tmem.ld((TypeMemPtr)t); // Peek thru pointer
-    //  SB sb = t.str(new SB(),new VBitSet(),te._tmem,false); // Print what we see, with memory
-    //  System.out.println( sb.toString() );
-    //  prog = prog2;
-    //} else
-    //  System.out.print( te._errs.get(0) );
-    //System.out.print(prompt);
-    //System.out.flush();
-    //return prog;
-    throw AA.unimpl();
+    // The line goes in as the program holds it, ';' terminated, so errors
+    // print the line and line number as in the whole program text.
+    String stmt = line+";";
+    int line0 = prog.split(System.lineSeparator(),-1).length-1;
+    TypeEnv te = Exec.more(ENV,"stdin",stmt,line0);
+    if( te._errs == null ) {
+      System.out.println(show(te._tmem.sharptr(te._t)));
+      prog = prog+stmt+System.lineSeparator();
+    } else
+      System.out.print( te._errs.get(0) );
+    System.out.print(prompt);
+    System.out.flush();
+    return prog;
   }
 
+  // Non-debug print.  A boxed int or float prints as its constant, "2" and
+  // not "int:($2)".  A function prints as its name and arguments,
+  // "[sq=*{x -> }]".
+  static String show( Type t ) {
+    if( t instanceof TypeStruct ts && ts.len()==0 && (ts.clz().equals("int:") || ts.clz().equals("flt:")) )
+      t = ts._def;
+    if( t instanceof TypeFunPtr tfp && tfp.fidxs().abit()!=-1 ) {
+      RetNode ret = RetNode.get(tfp.fidxs().abit());
+      FunNode fun = ret==null ? null : ret.fun();
+      if( fun!=null && fun._name!=null && fun._args!=null ) {
+        SB sb = new SB().p('[').p(fun._name).p("=*{");
+        for( String arg : fun._args ) sb.p(arg).p(' ');
+        return sb.p("-> }]").toString();
+      }
+    }
+    return t.str(new SB(),false,false).toString();
+  }
 }
@@ -3,6 +3,7 @@ package com.cliffc.aa.node;
 import com.cliffc.aa.tvar.TV2;
 import com.cliffc.aa.type.Type;
 import com.cliffc.aa.type.TypeFunPtr;
+import com.cliffc.aa.type.TypeRPC;
 import com.cliffc.aa.type.TypeTuple;
 
 import static com.cliffc.aa.AA.DSP_IDX;
@@ -51,4 +52,17 @@ public class CEProjNode extends CProjNode {
     }
     return true;
   }
+
+  // Outside of Combo types only fall, so a new wired path cannot lower the
+  // Parms.  True if every Parm already covers the Call's actuals.
+  static boolean wired_val_check( CallNode call, Type tcall, FunNode fun ) {
+    for( Node use : fun._uses )
+      if( use instanceof ParmNode parm && parm.in(0)==fun ) {
+        if( parm._idx >= call.nargs() ) continue; // Missing args error out later
+        Type actual = parm._idx==0 ? TypeRPC.make(call._rpc) : CallNode.targ(tcall,parm._idx);
+        if( !actual.isa(parm._val) )
+          return false;
+      }
+    return true;
+  }
 }
@@ -15,6 +15,11 @@ public class CRProjNode extends CEProjNode {
     // Before Combo runs, calls might yet wire.  The default path cannot die
     // until wiring is done.
     if( in(0).in(0)==null ) return Type.CTRL;
+    // Same for a function not yet typed by Combo: the whole file before the
+    // first Combo wires the calls, or a REPL line parsed into an
+    // already-typed program.  Its escape via Root is only known after Combo,
+    // and killing the default path now would kill the function body too.
+    if( awaiting_combo() ) return Type.CTRL;
     if( is_prim() ) return Type.CTRL; // Primitives never die
     if( val(0)==Type.ANY ) return Type.XCTRL;
     // Compute liveness from Root value
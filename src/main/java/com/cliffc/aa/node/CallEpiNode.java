@@ -208,7 +208,7 @@ public final class CallEpiNode extends Node {
   // Used during GCP and Ideal calls to see if wiring is possible.
   // Return true if a new edge is wired
   public boolean check_and_wire(boolean is_combo) {
-    if( !(_val instanceof TypeTuple) ) return false; // Collapsing
+    if( _is_copy || !(_val instanceof TypeTuple || _val==Type.ANY) ) return false; // Collapsing; or not yet typed by Combo
     CallNode call = call();
     Type tcall = call._val;
     if( !(tcall instanceof TypeTuple) ) return false;
@@ -224,6 +224,7 @@ public final class CallEpiNode extends Node {
       if( _defs.find(ret) != -1 ) continue;   // Wired already
       FunNode fun = ret.fun();
       if( !CEProjNode.wired_arg_check(tcall,fun) ) continue; // Args fail basic sanity
+      if( !is_combo && !CEProjNode.wired_val_check(call,tcall,fun) ) continue; // Would lower the Parms
       progress=true;
       wire1(call,fun,ret,is_combo); // Wire Call->Fun, Ret->CallEpi
     }
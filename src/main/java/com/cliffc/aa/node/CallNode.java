@@ -483,7 +483,7 @@ public class CallNode extends Node {
         if( fidx==0 ) continue;
         for( int kid=fidx; kid!=0; kid = tree.next_kid(fidx,kid) ) {
           RetNode ret = RetNode.get(kid);
-          if( ret==null ) continue;
+          if( ret==null || ret.is_copy() ) continue; // Gone, or already inlined
           FunNode fun = ret.fun();
           ParmNode parm = fun.parm(j);
           if( parm==null ) continue;   // Formal is dead
@@ -516,10 +516,14 @@ public class CallNode extends Node {
     if( !_is_copy ) return null;
     if( _val==Type.ANY ) return Env.ANY;
     if( idx!=DSP_IDX ) return in(idx);
-    if( fdx() instanceof FunPtrNode fptr ) {
+    Node fdx = FreshNode.peek(fdx());
+    if( fdx instanceof FunPtrNode fptr ) {
       GVN.add_flow(fptr);   // Probably goes unused
       return fptr.display();
     }
+    // An operator from a prototype is bound to its receiver
+    if( fdx instanceof FieldNode fld && !(fld.val(0) instanceof TypeStruct ts && ts.get(fld._fld)!=null) )
+      return fld.in(0);
     throw unimpl(); // Need a FP2DISP
   }
   void set_rpc(int rpc) { unelock(); _rpc=rpc; } // Unlock before changing hash
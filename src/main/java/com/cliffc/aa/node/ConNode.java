@@ -3,6 +3,7 @@ package com.cliffc.aa.node;
 import com.cliffc.aa.Env;
 import com.cliffc.aa.tvar.TV2;
 import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Ary;
 
 import java.util.function.Predicate;
 
@@ -23,6 +24,7 @@ public class ConNode<T extends Type> extends Node {
   }
 
   @Override public Type value() { return _t; }
+  @Override void walk_types0( Ary<Type> ts ) { ts.push(_t); }
 
   @Override public boolean has_tvar() {
     if( _t.is_simple() ) return false; // No on CTRL, XCTRL, ANY, ALL
@@ -66,7 +66,10 @@ public class FreshNode extends Node {
     return null;
   }
 
-  // Two FreshNodes are only equal, if they have compatible TVars
+  // Two FreshNodes are only equal, if they have compatible TVars.  Without a
+  // TVar only equal to self, so hash apart: every use of a name makes a Fresh
+  // with the same inputs.
+  @Override public int hashCode() { return _tvar==null ? super.hashCode()+_uid : super.hashCode(); }
   @Override public boolean equals(Object o) {
     if( _tvar==null ) return this==o;
     if( !(o instanceof FreshNode frsh) ) return false;
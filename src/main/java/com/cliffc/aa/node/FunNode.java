@@ -1,5 +1,6 @@
 package com.cliffc.aa.node;
 
+import com.cliffc.aa.AA;
 import com.cliffc.aa.Env;
 import com.cliffc.aa.GVNGCM;
 import com.cliffc.aa.tvar.TV2;
@@ -60,6 +61,7 @@ import static com.cliffc.aa.AA.*;
 
 public class FunNode extends RegionNode {
   public String _name;      // Debug-only name
+  public String[] _args;    // Debug-only argument names
   public int _fidx;         // Unique number for this piece of code
   public int _nargs;        // Number of arguments
 
@@ -67,6 +69,11 @@ public class FunNode extends RegionNode {
   public TV2[] _nongen;
 
   private byte _cnt_size_inlines; // Count of size-based inlines; prevents infinite unrolling via inlining
+  private byte _cnt_type_splits;  // Count of type-based splits; caps code growth
+  private static final int MAX_TYPE_SPLITS = 16, MAX_TYPE_SPLIT_BODY = 64;
+  // Type-splits made, and unresolved dispatches in the split clones.  Never
+  // reset; Exec reports the deltas.
+  public static int TYPE_SPLITS, SPLIT_DISPATCHES;
   public static int _must_inline; // Used for asserts
 
   // Used to make the primitives at boot time.  Note the empty displays: in
@@ -193,10 +200,10 @@ public class FunNode extends RegionNode {
     }
 
     // Look for appropriate type-specialize callers
-    TypeStruct formals = null; // type_special(parms);
     Ary<Node> body = find_body(ret);
-    int path = -1;              // Paths will split according to type
-    if( formals == null ) {     // No type-specialization to do
+    int path = type_special(parms,body); // Path to split according to type
+    boolean tsplit = path != -1;
+    if( !tsplit ) {             // No type-specialization to do
       if( _cnt_size_inlines >= 10 && !is_prim() ) return null;
       // Large code-expansion allowed; can inline for other reasons
       path = split_size(body,parms); // Forcible size-splitting first path
@@ -212,7 +219,19 @@ public class FunNode extends RegionNode {
     if( noinline() ) return null;
 
     assert _must_inline==0; // Failed to inline a prior inline?
-    if( path > 0 ) _must_inline = in(path).in(0)._uid;
+    CallNode path_call = (CallNode)in(path).in(0);
+    if( tsplit ) {              // Clone for the one path; need not inline
+      body.add(FreshNode.peek(path_call.fdx()));
+      _cnt_type_splits++;
+      TYPE_SPLITS++;
+      // Count the dispatches the clone binds
+      for( Node parm : parms )
+        if( parm != null )
+          for( Node use : parm._uses )
+            if( (use instanceof FieldNode fld && unresolved_op(fld)) ||
+                (use instanceof CallNode ucall && FreshNode.peek(ucall.fdx()) instanceof UnresolvedNode) )
+              SPLIT_DISPATCHES++;
+    } else _must_inline = path_call._uid;
     assert !check_progress;     // Not expecting progress
 
     // --------------
@@ -273,29 +292,46 @@ public class FunNode extends RegionNode {
             }
             // Else no split will help this call, look for other calls to help
           }
+          // An operator on the parm, e.g. 'x*2', looks the field up in the
+          // prototype of the parm's class.  Mixed classes (int and flt) meet
+          // to no class, and the overloaded operator does not bind.  Split
+          // the first path with a class, and the clone binds statically.
+          if( use instanceof FieldNode fld && unresolved_op(fld) ) {
+            String clz0 = clz(parm._val);
+            for( int i=2; i<parm._defs._len; i++ ) { // For all wired inputs
+              Type tp = parm.val(i);
+              if( tp.above_center() ) continue; // This parm input is in-error
+              String clz = clz(tp);
+              if( clz != null && !clz.equals(clz0) && tp.widen().isa(parm.val(1)) )
+                return i;
+            }
+          }
         }
 
     return -1; // No unresolved calls; no point in type-specialization
   }
 
-  // Find types for which splitting appears to help.
-  private TypeStruct find_type_split( ParmNode[] parms ) {
+  // Class name of a value type, or null
+  private static String clz( Type t ) {
+    return t instanceof TypeStruct ts && !ts.clz().isEmpty() ? ts.clz() : null;
+  }
 
-    // Look for splitting to help an Unresolved Call.
-    int idx = find_type_split_index(parms);
-    if( idx != -1 ) {           // Found; split along a specific input path using widened types
-      //TypeStruct formals = _sig._formals;
-      //for( TypeFld fld : formals.flds() ) {
-      //  Node parm = parms[fld._order];
-      //  TypeFld fld2 = fld.make_from(parm==null ? Type.ALL : parm.val(idx).widen());
-      //  if( fld2.isa(fld) )
-      //    formals = formals.replace_fld(fld2);
-      //}
-      //return formals;
-      throw unimpl();
+  // True if this field is called, and does not (yet) bind to one function
+  private static boolean unresolved_op( FieldNode fld ) {
+    if( fld._val instanceof TypeFunPtr tfp && tfp.fidxs().abit() != -1 ) return false;
+    for( Node use : fld._uses ) {
+      if( use instanceof CallNode call && call.fdx()==fld ) return true;
+      if( use instanceof FreshNode fsh )
+        for( Node u : fsh._uses )
+          if( u instanceof CallNode call && call.fdx()==fsh ) return true;
     }
+    return false;
+  }
 
-    // Look for splitting to help a pointer from an unspecialized type
+  // Find types for which splitting appears to help a pointer from an
+  // unspecialized type.  Pointer types in the graph carry no class, so this
+  // is not used (yet).
+  private TypeStruct find_type_split( ParmNode[] parms ) {
     Node mem = parms[MEM_IDX];
     if( mem==null ) return null; // Pure function, has no memory read/write
     Type tmem = mem._val;
@@ -393,21 +429,28 @@ public class FunNode extends RegionNode {
 
   // Look for type-specialization inlining.  If any ParmNode has an unresolved
   // Call user, then we'd like to make a clone of the function body (in least
-  // up to getting all the Unresolved functions to clear out).  The specialized
-  // code uses generalized versions of the arguments, where we only specialize
-  // on arguments that help immediately.
+  // up to getting all the Unresolved functions to clear out).  The clone is
+  // for the callers of one class, whose argument types bind the calls in the
+  // clone; the other callers keep the original.  Repeated splits give a clone
+  // per calling class.  Returns the path to split, or -1.
   //
   // Same argument for field Loads from unspecialized values.
-  private TypeStruct type_special( ParmNode[] parms ) {
-    TypeStruct formals = find_type_split(parms);
-    if( formals == null ) return null; // No unresolved calls; no point in type-specialization
-    //// Make a new function header with new signature
-    //if( !formals.isa(_sig._formals) ) return null;    // Fails in error cases
-    //return formals == _sig._formals ? null : formals; // Must see improvement
-    throw unimpl();
+  private int type_special( ParmNode[] parms, Ary<Node> body ) {
+    if( !AA.DO_GCP ) return -1; // H-M alone types the generic body
+    // Code-growth budget: some clones of any one function, and only of modest
+    // bodies.
+    if( _cnt_type_splits >= MAX_TYPE_SPLITS || body._len > MAX_TYPE_SPLIT_BODY ) return -1;
+    int path = find_type_split_index(parms);
+    if( path == -1 ) return -1; // No unresolved calls; no point in type-specialization
+    // Split the one wired call, as a size-split does
+    if( !(in(path).in(0) instanceof CallNode call) ) return -1;
+    if( call.nargs() != nargs() || call.err(true)!=null ) return -1;
+    if( body.find(call) != -1 ) return -1; // Self-recursive; amounts to unrolling
+    if( CallNode.ttfp(call._val).fidx() == -1 ) return -1; // Call must only target one fcn
+    if( !(FreshNode.peek(call.fdx()) instanceof FunPtrNode) ) return -1;
+    return path;
   }
 
-
   // Return the function body.
   private Ary<Node> find_body( RetNode ret ) {
     // Find the function body.  Do a forwards walk first, stopping at the
@@ -0,0 +1,83 @@
+package com.cliffc.aa.node;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+// The global value-numbering table, Node.VALS.  Single-threaded, open
+// addressing with linear probing, and no Entry objects.
+//
+// Each Node caches its hashCode in _hash.  The cache is filled by a lookup
+// that misses, and stays valid while the Node is in the table: the _elock
+// protocol removes a Node before any edge change.  So put reuses the hash
+// from the failed get, and remove and resize never recompute a hash.
+// Removal is by identity, shifting later probes back; no tombstones.
+public class GVNTable implements Iterable<Node> {
+  private Node[] _ns = new Node[1<<10];
+  private int _shift = 32-10;   // Fibonacci hashing: top bits index
+  private int _len;             // Nodes in the table
+
+  private int idx( int h ) { return (h*0x9E3779B9)>>>_shift; }
+
+  public int size() { return _len; }
+
+  // A Node equal to n, or null.  Caches n's hash if n is not already in the
+  // table.
+  public Node get( Node n ) {
+    int h = n._elock ? n._hash : (n._hash = n.hashCode());
+    int msk = _ns.length-1;
+    for( int i=idx(h); ; i=(i+1)&msk ) {
+      Node x = _ns[i];
+      if( x==null ) return null;
+      if( x==n || (x._hash==h && n.equals(x)) ) return x;
+    }
+  }
+
+  // Insert n, which must have just missed in get
+  public void put( Node n ) {
+    assert n._hash==n.hashCode() && get(n)==null;
+    if( (_len+1)<<1 > _ns.length ) grow();
+    _put(n);
+    _len++;
+  }
+  private void _put( Node n ) {
+    int msk = _ns.length-1, i = idx(n._hash);
+    while( _ns[i]!=null ) i = (i+1)&msk;
+    _ns[i] = n;
+  }
+  private void grow() {
+    Node[] ns = _ns;
+    _ns = new Node[ns.length<<1];
+    _shift--;
+    for( Node n : ns ) if( n!=null ) _put(n);
+  }
+
+  // Remove exactly n, by its cached hash.  Returns n, or null if not present.
+  public Node remove( Node n ) {
+    int msk = _ns.length-1, i = idx(n._hash);
+    while( _ns[i]!=n ) {
+      if( _ns[i]==null ) return null;
+      i = (i+1)&msk;
+    }
+    // Shift back any later Node whose probe sequence crosses the hole
+    for( int j=(i+1)&msk; _ns[j]!=null; j=(j+1)&msk ) {
+      int k = idx(_ns[j]._hash);
+      if( i<=j ? (i<k && k<=j) : (i<k || k<=j) ) continue; // Home is past the hole
+      _ns[i] = _ns[j];
+      i = j;
+    }
+    _ns[i] = null;
+    _len--;
+    return n;
+  }
+
+  public void clear() { Arrays.fill(_ns,null); _len=0; }
+
+  @Override public Iterator<Node> iterator() {
+    return new Iterator<>() {
+      int _i = skip(0);
+      @Override public boolean hasNext() { return _i<_ns.length; }
+      @Override public Node next() { Node n = _ns[_i]; _i = skip(_i+1); return n; }
+    };
+  }
+  private int skip( int i ) { while( i<_ns.length && _ns[i]==null ) i++; return i; }
+}
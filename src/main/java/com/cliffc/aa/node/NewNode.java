@@ -2,6 +2,7 @@ package com.cliffc.aa.node;
 
 import com.cliffc.aa.Env;
 import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Ary;
 
 import static com.cliffc.aa.AA.*;
 
@@ -36,6 +37,7 @@ public class NewNode extends Node {
   }
   @Override public String xstr() { return "New"+"*"+_alias; } // Self short name
   @Override void walk_reset0() { assert is_prim(); set_alias(_reset_alias); }
+  @Override void walk_types0( Ary<Type> ts ) { ts.push(_tptr); }
 
   public Node ctl() { return in(CTL_IDX); }
   public Node mem() { return in(MEM_IDX); }
@@ -96,9 +98,59 @@ public class NewNode extends Node {
       Env.ROOT.kill_alias(_alias);
       return set_def(2,Env.UNUSED);
     }
+    // NewNode does not escape, so nobody else can see the alias: scalar
+    // replace.  First the alias dies in the default memory; once that flows
+    // down to here, the memory from before the allocation is no lower than
+    // the captured memory.  Then other readers of the captured memory read
+    // the memory from before the allocation, and the Stores, MProj and New die.
+    Ary<Node> chain = captured();
+    if( chain != null ) {
+      Node mem = mem();
+      for( Node c : chain )
+        if( !mem._val.isa(c._val) ) {
+          Env.ROOT.kill_alias(_alias);
+          return null;
+        }
+      for( Node c : chain )
+        for( Node use : c._uses.asAry() )
+          if( chain.find(use)==-1 )
+            for( int i=0; i<use.len(); i++ )
+              if( use.in(i)==c )
+                Env.GVN.add_flow(use.set_def(i,mem));
+      return this;
+    }
     return null;
   }
 
+  // Memory from before the allocation lifting can finish a scalar replacement
+  @Override public void add_flow_use_extra(Node chg) {
+    if( chg==mem() ) Env.GVN.add_reduce(this);
+  }
+
+  // Basic escape analysis.  The pointer is only used as the address of
+  // Stores on this allocation's own memory chain, so neither the pointer nor
+  // the alias is visible anywhere else.  Loads against the chain fold away
+  // first (LoadNode.ideal_reduce), and any other pointer use is an escape.
+  // Returns the memory chain (the MProj and the Stores), or null.
+  private Ary<Node> captured() {
+    if( is_prim() || rec()==Env.UNUSED ) return null;
+    ProjNode ptr = ProjNode.proj(this,REZ_IDX);
+    ProjNode mprj = ProjNode.proj(this,MEM_IDX);
+    if( ptr==null || mprj==null ) return null;
+    Ary<Node> chain = new Ary<>(Node.class);
+    chain.push(mprj);
+    for( Node use : ptr._uses )
+      if( !(use instanceof StoreNode st) || st.adr()!=ptr || st.rez()==ptr ||
+          // Keep errors in the program, for reporting
+          st.err(true)!=null || st.rez().err(true)!=null )
+        return null;
+      else chain.push(st);
+    for( int i=1; i<chain._len; i++ ) // Every Store hangs off the chain
+      if( chain.find(((StoreNode)chain.at(i)).mem())==-1 )
+        return null;
+    return chain;
+  }
+
 //  @Override public Node ideal_reduce() {
 //    if( _forward_ref ) return null; // Not defined yet
 //    if( _is_val ) return null; // will die with no pointers as normal
@@ -4,12 +4,12 @@ import com.cliffc.aa.*;
 import com.cliffc.aa.tvar.TV2;
 import com.cliffc.aa.type.*;
 import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.AryInt;
 import com.cliffc.aa.util.SB;
 import com.cliffc.aa.util.VBitSet;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashSet;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.IntSupplier;
 import java.util.function.Predicate;
 
@@ -17,38 +17,38 @@ import static com.cliffc.aa.AA.unimpl;
 
 // Sea-of-Nodes
 public abstract class Node implements Cloneable, IntSupplier {
-  static final byte OP_CALL   = 1;
-  static final byte OP_CALLEPI= 2;
-  static final byte OP_CAST   = 3;
-  static final byte OP_CON    = 4;
-  static final byte OP_CONTYPE= 5;
-  static final byte OP_CPROJ  = 6;
-  static final byte OP_ERR    = 7;
-  static final byte OP_FIELD  = 8;
-  static final byte OP_FRESH  = 9;
-  static final byte OP_FUN    =10;
-  static final byte OP_FUNPTR =11;
-  static final byte OP_IF     =12;
-  static final byte OP_JOIN   =13;
-  static final byte OP_KEEP   =14;
-  static final byte OP_LOAD   =15;
-  static final byte OP_NEW    =16; // Allocate a new struct
-  static final byte OP_PARM   =17;
-  static final byte OP_PHI    =18;
-  static final byte OP_PRIM   =19;
-  static final byte OP_PROJ   =20;
-  static final byte OP_REGION =21;
-  static final byte OP_RET    =22;
-  static final byte OP_ROOT   =23;
-  static final byte OP_SCOPE  =24;
-  static final byte OP_SETFLD =25;
-  static final byte OP_SPLIT  =26;
-  static final byte OP_STORE  =27;
-  static final byte OP_STRUCT =28;
-  static final byte OP_TYPE   =29;
-  static final byte OP_UNR    =30;
-  static final byte OP_VAL    =31;
-  static final byte OP_MAX    =32;
+  public static final byte OP_CALL   = 1;
+  public static final byte OP_CALLEPI= 2;
+  public static final byte OP_CAST   = 3;
+  public static final byte OP_CON    = 4;
+  public static final byte OP_CONTYPE= 5;
+  public static final byte OP_CPROJ  = 6;
+  public static final byte OP_ERR    = 7;
+  public static final byte OP_FIELD  = 8;
+  public static final byte OP_FRESH  = 9;
+  public static final byte OP_FUN    =10;
+  public static final byte OP_FUNPTR =11;
+  public static final byte OP_IF     =12;
+  public static final byte OP_JOIN   =13;
+  public static final byte OP_KEEP   =14;
+  public static final byte OP_LOAD   =15;
+  public static final byte OP_NEW    =16; // Allocate a new struct
+  public static final byte OP_PARM   =17;
+  public static final byte OP_PHI    =18;
+  public static final byte OP_PRIM   =19;
+  public static final byte OP_PROJ   =20;
+  public static final byte OP_REGION =21;
+  public static final byte OP_RET    =22;
+  public static final byte OP_ROOT   =23;
+  public static final byte OP_SCOPE  =24;
+  public static final byte OP_SETFLD =25;
+  public static final byte OP_SPLIT  =26;
+  public static final byte OP_STORE  =27;
+  public static final byte OP_STRUCT =28;
+  public static final byte OP_TYPE   =29;
+  public static final byte OP_UNR    =30;
+  public static final byte OP_VAL    =31;
+  public static final byte OP_MAX    =32;
 
   private static final String[] STRS = new String[] { null, "Call", "CallEpi", "Cast", "Con", "ConType", "CProj", "Err", "Field", "Fresh", "Fun", "FunPtr", "If", "Join", "Keep", "Load", "New", "Parm", "Phi", "Prim", "Proj", "Region", "Return", "Root", "Scope","SetFld","Split", "Store", "Struct", "Type", "Unresolved", "Val" };
   static { assert STRS.length==OP_MAX; }
@@ -56,13 +56,33 @@ public abstract class Node implements Cloneable, IntSupplier {
   // Unique dense node-numbering
   public  static int _INIT0_CNT;
   private static int CNT=1; // Do not hand out UID 0
+  public  static long MADE;     // Nodes made, for Metrics
+  // Killed uids are recycled, so uids stay dense in the live graph: bitsets,
+  // uid-indexed arrays and the worklist Budget scale with it.  A killed Node
+  // can still be named by uid, on a worklist or in a TV2 dependents set, so
+  // its uid is only handed out again after the worklists drain.
+  private static final AryInt DEAD = new AryInt(); // Killed, not yet reusable
+  private static final AryInt FREE = new AryInt(); // Reusable uids
   int newuid() {
-    assert CNT < 100000 : "infinite node create loop";
-    if( CNT==AA.UID )
+    MADE++;
+    int uid = FREE._len>0 ? FREE.pop() : CNT++;
+    if( uid==AA.UID )
       System.out.print("");
-    return CNT++;
+    return uid;
   }
   @Override public int getAsInt() { return _uid; }
+  public static int uid_cnt() { return CNT; }
+  // Called with all worklists empty.  Recycled uids are new to Combo.
+  public static void recycle_uids() {
+    for( int i=0; i<DEAD._len; i++ ) {
+      int uid = DEAD.at(i);
+      Env.COMBO._typed.clear(uid);
+      Env.COMBO._changed.clear(uid);
+      WorkNode.forget(uid);
+      FREE.push(uid);
+    }
+    DEAD.clear();
+  }
 
   // Initial state after loading e.g. primitives.
   public static void init0() {
@@ -73,12 +93,15 @@ public abstract class Node implements Cloneable, IntSupplier {
   // "eval" as user state carries on.
   public static void reset_to_init0() {
     CNT = _INIT0_CNT;
+    DEAD.clear();
+    FREE.clear();
   }
 
 
   public int _uid;      // Unique ID, will have gaps, used to give a dense numbering to nodes
-  final byte _op;       // Opcode (besides the object class), used to avoid v-calls in some places
+  public final byte _op;// Opcode (besides the object class), used to avoid v-calls in some places
   public boolean _elock;// Edge-lock: cannot modify edges because messes up hashCode & GVN
+  int _hash;            // Cached hashCode, valid while in VALS
   public Type _val;     // Value; starts at ALL and lifts towards ANY.
   public Type _live;    // Liveness; assumed live in gvn.iter(), assumed dead in gvn.gcp().
   // Hindley-Milner inspired typing, or CNC Thesis based congruence-class
@@ -96,10 +119,11 @@ public abstract class Node implements Cloneable, IntSupplier {
   TV2 new_tvar() { return TV2.make_leaf("new_tvar"); }
 
   // Hash is function+inputs, or opcode+input_uids, and is invariant over edge
-  // order (so we can swap edges without rehashing)
+  // order (so we can swap edges without rehashing).  Sums mixed uids: a XOR
+  // cancels repeated inputs and collides on nearby uids.
   @Override public int hashCode() {
     int sum = _op;
-    for( int i=0; i<_defs._len; i++ ) if( _defs._es[i] != null ) sum ^= _defs._es[i]._uid;
+    for( int i=0; i<_defs._len; i++ ) if( _defs._es[i] != null ) sum += _defs._es[i]._uid*0x9E3779B9;
     return sum;
   }
   // Equals is function+inputs, or opcode+input_uids.  Uses pointer-equality
@@ -121,6 +145,7 @@ public abstract class Node implements Cloneable, IntSupplier {
   // Edge lock check, or anything that changes the hash
   public void unelock() {
     assert check_vals();        // elock & VALs match
+    if( _uid < Env.COMBO._watermark ) Env.COMBO._changed.set(_uid); // Old Node edge change
     if( _elock ) {              // Edge-locked
       _elock=false;             // Unlock
       Node x = VALS.remove(this);
@@ -130,7 +155,7 @@ public abstract class Node implements Cloneable, IntSupplier {
   }
   public Node _elock() {        // No assert version, used for new nodes
     assert check_vals();        // elock & VALs match
-    if( !_elock && VALS.get(this)==null ) { _elock = true; VALS.put(this,this); }
+    if( !_elock && VALS.get(this)==null ) { VALS.put(this); _elock = true; }
     return this;
   }
 
@@ -214,6 +239,7 @@ public abstract class Node implements Cloneable, IntSupplier {
     if( _elock ) { _elock = false; Node x = VALS.remove(this); assert x == this; }
     while( _defs._len > 0 ) unuse(_defs.pop());
     _defs = _uses = null;       // TODO: Poor-man's indication of a dead node, probably needs to recycle these...
+    if( !is_prim() ) DEAD.push(_uid);
     return this;
   }
   public boolean is_dead() { return _uses == null; }
@@ -279,6 +305,8 @@ public abstract class Node implements Cloneable, IntSupplier {
 
   // Short string name
   public String xstr() { return STRS[_op]; } // Self short name
+  public int op() { return _op; }
+  public static String op_str(int op) { return STRS[op]; }
   String  str() { return xstr(); }    // Inline longer name
   @Override public String toString() { return dump(0,new SB(),false,false).toString(); }
   // Dump
@@ -353,7 +381,7 @@ public abstract class Node implements Cloneable, IntSupplier {
   }
   public boolean is_multi_head() { return _op==OP_CALL || _op==OP_CALLEPI || _op==OP_FUN || _op==OP_IF || _op==OP_NEW || _op==OP_REGION || _op==OP_SPLIT || _op==OP_ROOT; }
   private boolean is_multi_tail() { return _op==OP_PARM || _op==OP_PHI || _op==OP_PROJ || _op==OP_CPROJ; }
-  boolean is_CFG() { return _op==OP_CALL || _op==OP_CALLEPI || _op==OP_FUN || _op==OP_RET || _op==OP_IF || _op==OP_REGION || _op==OP_ROOT || _op==OP_CPROJ || _op==OP_SCOPE; }
+  public boolean is_CFG() { return _op==OP_CALL || _op==OP_CALLEPI || _op==OP_FUN || _op==OP_RET || _op==OP_IF || _op==OP_REGION || _op==OP_ROOT || _op==OP_CPROJ || _op==OP_SCOPE; }
 
   public String dumprpo( boolean prims, boolean plive, boolean ptvar ) {
     Ary<Node> nodes = new Ary<>(new Node[1],0);
@@ -380,22 +408,45 @@ public abstract class Node implements Cloneable, IntSupplier {
   private static void _header(FunNode fun, SB sb) {
     sb.p("============ ").p(fun==null?"null":fun.name()).p(" ============").nl();
   }
+  // Off WALK: a Node's entry in WALK_IDX is 0 to visit it, and 1 to emit it
+  // once its children are done.  Children push reversed, so pop in order.
   private void postorder( Ary<Node> nodes, VBitSet bs ) {
-    if( bs.tset(_uid) ) return;
+    int base = WALK._len;
+    WALK.push(this);  WALK_IDX.push(0);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( WALK_IDX.pop()==1 ) {
+        // Slight PO tweak: heads and tails together.
+        if( n.is_multi_head() )
+          for( Node use : n._uses )
+            if( use.is_multi_tail() )
+              nodes.push(use);
+        if( !n.is_multi_tail() ) nodes.push(n);
+        continue;
+      }
+      if( bs.tset(n._uid) ) continue;
+      WALK.push(n);  WALK_IDX.push(1);
+      int kids = WALK._len;
+      n.postorder_kids();
+      for( int i=kids, j=WALK._len-1; i<j; i++, j-- ) { Node t = WALK._es[i]; WALK._es[i] = WALK._es[j]; WALK._es[j] = t; }
+      while( WALK_IDX._len < WALK._len ) WALK_IDX.push(0);
+    }
+  }
+  private void postorder_kids() {
     // If CFG, walk the CFG first.  Do not walk thru Returns (into Calls) as
     // this breaks up the whole- functions-at-once.
     if( is_CFG() && _op!=OP_RET ) {
       // Walk any CProj first.
       for( Node use : _uses )
         if( use._op == OP_CPROJ )
-          use.postorder(nodes,bs);
+          WALK.push(use);
       // Walk the CFG, walking CallEpis last
       for( Node use : _uses )
         if( !(use instanceof CallEpiNode) && use.is_CFG() )
-          use.postorder(nodes,bs);
+          WALK.push(use);
       for( Node use : _uses )
         if(  (use instanceof CallEpiNode) && use.is_CFG() )
-          use.postorder(nodes,bs);
+          WALK.push(use);
     }
 
     // Walk the rest (especially data).  Since visit bits are set on the CFGs
@@ -406,31 +457,27 @@ public abstract class Node implements Cloneable, IntSupplier {
     if( _op != OP_CALL && _op!=OP_RET ) {
       if( _op!=OP_SPLIT || _uses._len!=2 )
         for( Node use : _uses )
-          use.postorder(nodes,bs);
+          WALK.push(use);
       else {                    // For MemSplit, walk the "busy" side first
         Node p0 = _uses.at(0), p1 = _uses.at(1);
         if( ((ProjNode)p0)._idx==1 ) { p0=p1; p1=_uses.at(0); } // Swap
-        p1.postorder(nodes,bs);
-        p0.postorder(nodes,bs);
+        WALK.push(p1);
+        WALK.push(p0);
       }
     }
-
-    // Slight PO tweak: heads and tails together.
-    if( is_multi_head() )
-      for( Node use : _uses )
-        if( use.is_multi_tail() )
-          nodes.push(use);
-    if( !is_multi_tail() ) nodes.push(this);
   }
 
   // Utility during debugging to find a reachable Node by _uid
-  public  Node find( int uid ) { return find(uid,new VBitSet()); }
-  private Node find( int uid, VBitSet bs ) {
-    if( _uid==uid ) return this;
-    if( bs.tset(_uid) || is_dead() ) return null;
-    Node m;
-    for( Node n : _defs ) if( n!=null && (m=n.find(uid,bs)) !=null ) return m;
-    for( Node n : _uses ) if(            (m=n.find(uid,bs)) !=null ) return m;
+  public  Node find( int uid ) {
+    VBitSet bs = new VBitSet();
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( n._uid==uid ) { WALK.set_len(base); return n; }
+      if( bs.tset(n._uid) || n.is_dead() ) continue;
+      n.push_defs_uses();
+    }
     return null;
   }
 
@@ -530,12 +577,13 @@ public abstract class Node implements Cloneable, IntSupplier {
   }
 
   // Do One Step of forwards-dataflow analysis.  Assert monotonic progress.
-  // If progressed, add neighbors on worklist.
-  public void combo_forwards() {
+  // If progressed, add neighbors on worklist and return true.
+  public boolean combo_forwards() {
     Type oval = _val;           // Old local type
     Type nval = value();        // New type
-    if( oval == nval ) return;  // No progress
+    if( oval == nval ) return false; // No progress
     //assert nval==nval.simple_ptr(); // Only simple pointers in node types
+    if( Env.COMBO._incr && !oval.isa(nval) ) { Env.COMBO._restart=true; return false; } // Old type did not bound the new
     assert oval.isa(nval);      // Monotonic
     _val = nval;                // Record progress
 
@@ -552,41 +600,46 @@ public abstract class Node implements Cloneable, IntSupplier {
     //assert may_be_con_live(oval) || !may_be_con_live(nval); // May_be_con_live is monotonic
     //if( may_be_con_live(oval) && !may_be_con_live(nval) )
     //  for( Node def : _defs ) work.add(def); // Now check liveness
+    return true;
   }
 
   // Do One Step of backwards-dataflow analysis.  Assert monotonic progress.
-  // If progressed, add neighbors on worklist.
-  public void combo_backwards() {
+  // If progressed, add neighbors on worklist and return true.
+  public boolean combo_backwards() {
     Type oliv = _live;
     Type nliv = live();
+    // Incremental: uses restarting from ANY briefly look dead, but the prior
+    // liveness still bounds a growing program.
+    if( Env.COMBO._incr ) nliv = oliv.meet(nliv);
     // TODO: If use._value >= constant, force live-use to ANY.
     // Not done for ITER, because replace-with constant happens anyways.
-    if( oliv == nliv ) return;  // No progress
+    if( oliv == nliv ) return false; // No progress
     assert oliv.isa(nliv);      // Monotonic
     _live = nliv;               // Record progress
     add_flow_extra(oliv);
     for( Node def : _defs )     // Classic reverse flow on change
-      if( def!=null ) Env.GVN.add_flow(def).add_flow_def_extra(this);
+      if( def!=null ) Env.GVN.add_live(def).add_flow_def_extra(this);
+    return true;
   }
 
   // Do One Step of Hindley-Milner unification.  Assert monotonic progress.
-  // If progressed, add neighbors on worklist.
-  public void combo_unify() {
-    if( _live== Type.ANY ) return; // No HM progress on dead code
-    if( _val == Type.ANY ) return; // No HM progress on untyped code
+  // If progressed, add neighbors on worklist and return true.
+  public boolean combo_unify() {
+    if( _live== Type.ANY ) return false; // No HM progress on dead code
+    if( _val == Type.ANY ) return false; // No HM progress on untyped code
     TV2 old = _tvar==null ? null : tvar();
-    if( old!=null && old.is_err() ) return;  // No unifications with error
-    if( unify(false) ) {
-      assert old==null || !_tvar.debug_find().unify(old.debug_find(),true);// monotonic: unifying with the result is no-progress
-      add_work_hm();            // Neighbors on worklist
-    }
+    if( old!=null && old.is_err() ) return false;  // No unifications with error
+    if( !unify(false) ) return false;
+    assert old==null || !_tvar.debug_find().unify(old.debug_find(),true);// monotonic: unifying with the result is no-progress
+    add_work_hm();            // Neighbors on worklist
+    return true;
   }
 
   // Return any type error message, or null if no error
   public ErrMsg err( boolean fast ) { return null; }
 
   // Global expressions, to remove redundant Nodes
-  public static final ConcurrentHashMap<Node,Node> VALS = new ConcurrentHashMap<>();
+  public static final GVNTable VALS = new GVNTable();
 
   // Reducing xforms, strictly fewer Nodes or Edges.  n may be either in or out
   // of VALS.  If a replacement is found, replace.  In any case, put in the
@@ -606,7 +659,7 @@ public abstract class Node implements Cloneable, IntSupplier {
       }
       Env.GVN.add_reduce(nnn);  // Rerun the replacement
       // Any new nodes made post-Combo-HM need a TVar
-      if( AA.DO_HMT && Combo.HM_FREEZE && nnn.has_tvar() && nnn._tvar==null ) { 
+      if( AA.DO_HMT && Env.COMBO._hm_freeze && nnn.has_tvar() && nnn._tvar==null ) { 
         nnn.set_tvar();
         assert Env.GVN.on_flow(nnn);
       }
@@ -649,6 +702,9 @@ public abstract class Node implements Cloneable, IntSupplier {
     // This is a reverse flow computation.  Always assumed live if keep.
     Type oliv = _live;
     Type nliv = live();
+    // Incremental: uses restarting from ANY briefly look dead, but the prior
+    // liveness still bounds a growing program.
+    if( Env.COMBO._incr ) nliv = oliv.meet(nliv);
     if( oliv != nliv ) {        // Progress?
       progress = this;          // Progress!
       assert nliv.isa(oliv);    // Monotonically improving
@@ -727,40 +783,151 @@ public abstract class Node implements Cloneable, IntSupplier {
     return Env.GVN.add_flow(con); // Updated live flows
   }
 
+  // The whole-graph walks below run off an explicit stack instead of Java
+  // recursion, so large graphs do not overflow the thread stack.  Edges push
+  // in reverse, and the visit test is on pop, so Nodes visit in the same
+  // preorder as a recursive walk of defs then uses.  Walks may nest; each
+  // drains the stack back to where it started.  Post-order walks keep a
+  // next-edge cursor per WALK entry in WALK_IDX.
+  static final Ary<Node> WALK = new Ary<>(Node.class);
+  static final AryInt WALK_IDX = new AryInt();
+  private void push_defs_uses() {
+    for( int i=_uses._len-1; i>=0; i-- ) WALK.push(_uses._es[i]);
+    for( int i=_defs._len-1; i>=0; i-- )
+      if( _defs._es[i]!=null )
+        WALK.push(_defs._es[i]);
+  }
+
   // Forward reachable walk, setting types to ANY and making all dead.
   public final void walk_initype(  ) {
-    if( Env.GVN.on_flow(this) ) return; // Been there, done that
-    Env.GVN.add_flow(this);             // On worklist and mark visited
-    if( AA.DO_GCP ) {
-      _val = _live = Type.ANY;  // Highest value
-      if( this instanceof CallNode call ) call._not_resolved_by_gcp = false; // Try again
-    } else {                    // Not doing optimistic GCP...
-      assert _val==value() && _live==live();
-    }
-    if( AA.DO_HMT && has_tvar() )
-      set_tvar();
-    // Walk reachable graph
-    for( Node def : _defs ) if( def != null ) def.walk_initype();
-    for( Node use : _uses )                   use.walk_initype();
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( Env.GVN.on_flow(n) ) continue; // Been there, done that
+      Env.GVN.add_flow(n);               // On worklist and mark visited
+      if( AA.DO_GCP ) {
+        n._val = n._live = Type.ANY;  // Highest value
+        if( n instanceof CallNode call ) call._not_resolved_by_gcp = false; // Try again
+      } else {                  // Not doing optimistic GCP...
+        assert n._val==n.value() && n._live==n.live();
+      }
+      if( AA.DO_HMT && n.has_tvar() )
+        n.set_tvar();
+      n.push_defs_uses();       // Walk reachable graph
+    }
   }
   public void set_tvar() { if( _tvar==null ) _tvar = new_tvar(); }
+
+  // Drop all type-vars, so the next Combo unifies from fresh leafs.  Used
+  // when rolling back program text, as old type-vars carry its fields.
+  public final void walk_clr_tvar( VBitSet visit ) {
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( visit.tset(n._uid) ) continue;
+      n._tvar = null;
+      n.push_defs_uses();
+    }
+  }
+
+  // True if this Node awaits its first Combo typing: Combo will run (GCP is
+  // on, or the program was typed before and is growing), is not running now,
+  // and did not type this Node last time.  Values that Combo would start
+  // optimistic must stay pessimistic until then, as calls may yet wire.
+  public final boolean awaiting_combo() {
+    Combo combo = Env.COMBO;
+    return (AA.DO_GCP || combo._watermark>0) && !combo._running && !combo._typed.test(_uid);
+  }
+
+  // Incremental walk_initype.  Nodes not typed by the last Combo, and CHANGED
+  // Nodes, plus all their transitive uses, reset to ANY.  Their defs go on the
+  // worklist to re-check liveness.  Everything else keeps its type and
+  // type-var from the prior fixed point.  The walk stops at Root, whose uses
+  // are every escaping function.
+  public final void walk_initype_incr( VBitSet visit, VBitSet reset ) {
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( visit.tset(n._uid) ) continue;
+      if( !Env.COMBO._typed.test(n._uid) || Env.COMBO._changed.test(n._uid) )
+        n.reset_initype(reset);
+      n.push_defs_uses();
+    }
+  }
+  private void reset_initype( VBitSet reset ) {
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( reset.tset(n._uid) ) continue;
+      Env.GVN.add_flow(n);
+      if( n==Env.ROOT ) continue; // Keeps its type, so its uses can keep theirs
+      n._val = n._live = Type.ANY; // Highest value
+      if( n instanceof CallNode call ) call._not_resolved_by_gcp = false; // Try again
+      if( AA.DO_HMT && n.has_tvar() )
+        n.set_tvar();
+      for( Node def : n._defs ) if( def != null ) Env.GVN.add_flow(def);
+      for( int i=n._uses._len-1; i>=0; i-- ) WALK.push(n._uses._es[i]);
+    }
+  }
   
-  // Reset
+  // Reset.  Post-order, as walk_reset0 pops edges once the reachable graph
+  // is walked.  The WALK_IDX cursor runs up the uses, then down from -1 over
+  // the defs, re-reading lengths as edges pop.
   public final void walk_reset( ) {
-    if( Env.GVN.on_flow(this) ) return; // Been there, done that
+    if( !reset1() ) return;
+    int base = WALK._len;
+    WALK.push(this);  WALK_IDX.push(0);
+    while( WALK._len > base ) {
+      Node n = WALK.last(), x;
+      int i = WALK_IDX.last();
+      if( i >= 0 && i < n._uses._len ) {
+        WALK_IDX.set(WALK_IDX._len-1,i+1);
+        x = n._uses.at(i);
+      } else {
+        int d = i < 0 ? -1-i : 0; // Next def
+        if( d == n._defs._len ) {
+          WALK.pop();  WALK_IDX.pop();
+          n.walk_reset0();      // Per-node special reset
+          continue;
+        }
+        WALK_IDX.set(WALK_IDX._len-1,-2-d);
+        x = n._defs.at(d);
+      }
+      if( x != null && x.reset1() ) { WALK.push(x);  WALK_IDX.push(0); }
+    }
+  }
+  private boolean reset1() {
+    if( Env.GVN.on_flow(this) ) return false; // Been there, done that
     Env.GVN.add_flow(this);             // On worklist and mark visited
     Env.GVN.add_reduce(this);           // Trigger adding to VALS at next ITER
     _val = _live = Type.ALL;            // Lowest value
     _elock = false;                     // Clear elock if reset_to_init0
     _tvar = null;
-    // Walk reachable graph
-    for( Node use : _uses )                   use.walk_reset();
-    for( Node def : _defs ) if( def != null ) def.walk_reset();
-    walk_reset0();              // Per-node special reset
+    return true;
   }
   // Non-recursive specialized version
   void walk_reset0( ) {}
 
+  // Push every Type held, for Type.reclaim after a top_reset: the value and
+  // liveness, plus any Type fields a subclass changes after construction.
+  public final void walk_types( VBitSet visit, Ary<Type> ts ) {
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( visit.tset(n._uid) ) continue;
+      ts.push(n._val);
+      ts.push(n._live);
+      n.walk_types0(ts);
+      n.push_defs_uses();
+    }
+  }
+  void walk_types0( Ary<Type> ts ) {}
+
 
   // At least as alive
   private Node merge(Node x) {
@@ -783,7 +950,17 @@ public abstract class Node implements Cloneable, IntSupplier {
 
   // Assert all ideal, value and liveness calls are done
   public final boolean more_ideal(VBitSet bs) {
-    if( bs.tset(_uid) ) return false; // Been there, done that
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( bs.tset(n._uid) ) continue; // Been there, done that
+      if( n.more_ideal1() ) { WALK.set_len(base); return true; }
+      n.push_defs_uses();
+    }
+    return false;
+  }
+  private boolean more_ideal1() {
     if( !is_keep() ) { // Only non-keeps, which is just top-level scope and prims
       Node x;
       x = do_reduce(); if( x != null )
@@ -794,17 +971,26 @@ public abstract class Node implements Cloneable, IntSupplier {
                          return true; // Found an ideal call
       if( this instanceof FunNode ) ((FunNode)this).ideal_inline(true);
     }
-    for( Node def : _defs ) if( def != null && def.more_ideal(bs) ) return true;
-    for( Node use : _uses ) if( use != null && use.more_ideal(bs) ) return true;
     return false;
   }
 
   // Assert all value and liveness calls only go forwards.  Returns >0 for failures.
   private static final VBitSet FLOW_VISIT = new VBitSet();
-  public  final int more_work( boolean lifting ) { FLOW_VISIT.clear();  return more_work(lifting,0);  }
-  private int more_work( boolean lifting, int errs ) {
-    if( FLOW_VISIT.tset(_uid) ) return errs; // Been there, done that
-    if( Env.GVN.on_dead(this) ) return errs; // Do not check dying nodes
+  public  final int more_work( boolean lifting ) {
+    FLOW_VISIT.clear();
+    int errs=0, base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      if( FLOW_VISIT.tset(n._uid) ) continue; // Been there, done that
+      if( Env.GVN.on_dead(n) ) continue;      // Do not check dying nodes
+      errs += n._more_work(lifting);
+      n.push_defs_uses();
+    }
+    return errs;
+  }
+  private int _more_work( boolean lifting ) {
+    int errs=0;
     // Check for GCP progress
     Type oval= _val, nval = value(); // Forwards flow
     Type oliv=_live, nliv = live (); // Backwards flow
@@ -813,18 +999,17 @@ public abstract class Node implements Cloneable, IntSupplier {
             ? nval.isa(oval) && nliv.isa(oliv)
             : oval.isa(nval) && oliv.isa(nliv)) )
         errs += _report_bug("Monotonicity bug");
-      if( !Env.GVN.on_flow(this) && (lifting || AA.DO_GCP) )
+      if( ((oval!=nval && !Env.GVN.on_flow(this)) || (oliv!=nliv && !Env.GVN.on_live(this))) && (lifting || AA.DO_GCP) )
         errs += _report_bug("Progress bug");
     }
-    // Check for HMT progress
-    if( AA.DO_HMT && oliv!=Type.ANY && oval!=Type.ANY && _tvar!=null ) {
+    // Check for HMT progress.  Not while text parses into a typed program:
+    // old Nodes would unify against new ones without type-vars.
+    if( AA.DO_HMT && !Env.COMBO._parsing && oliv!=Type.ANY && oval!=Type.ANY && _tvar!=null ) {
       if( unify(true) ) {
-        if( Combo.HM_FREEZE ) errs += _report_bug("Progress after freezing");
+        if( Env.COMBO._hm_freeze ) errs += _report_bug("Progress after freezing");
         if( !Env.GVN.on_flow(this) ) errs += _report_bug("Progress bug");
       }
     }
-    for( Node def : _defs ) if( def != null ) errs = def.more_work(lifting,errs);
-    for( Node use : _uses ) if( use != null ) errs = use.more_work(lifting,errs);
     return errs;
   }
   private int _report_bug(String msg) {
@@ -835,26 +1020,36 @@ public abstract class Node implements Cloneable, IntSupplier {
   }
 
 
-  // Gather errors, walking from Scope to START.
+  // Gather errors, walking from Scope to START.  Post-order, so defs report
+  // first; a next-def cursor per WALK entry in WALK_IDX.
   public void walkerr_def( HashSet<ErrMsg> errs, VBitSet bs ) {
     if( bs.tset(_uid) ) return; // Been there, done that
-    for( int i=0; i<_defs._len; i++ ) {
-      Node def = _defs.at(i);   // Walk data defs for more errors
+    int base = WALK._len;
+    WALK.push(this);  WALK_IDX.push(0);
+    while( WALK._len > base ) {
+      Node n = WALK.last();
+      int i = WALK_IDX.last();
+      if( i == n._defs._len ) {
+        WALK.pop();  WALK_IDX.pop();
+        n.adderr(errs);
+        continue;
+      }
+      WALK_IDX.set(WALK_IDX._len-1,i+1);
+      Node def = n._defs.at(i); // Walk data defs for more errors
       if( def == null || def._val == Type.XCTRL ) continue;
       // Walk function bodies that are wired
-      if( def instanceof FunPtrNode && !(this instanceof RootNode) )
+      if( def instanceof FunPtrNode && !(n instanceof RootNode) )
         continue;
-      def.walkerr_def(errs,bs);
+      if( !bs.tset(def._uid) ) { WALK.push(def);  WALK_IDX.push(0); }
     }
+  }
+
+  private void adderr( HashSet<ErrMsg> errs ) {
     if( is_prim() ) return;
     // Skip reporting if any input is 'all', as the input should report instead.
     for( Node def : _defs )
       if( def !=null && def._val ==Type.ALL )
         return;                 // Skip reporting.
-    adderr(errs);
-  }
-
-  private void adderr( HashSet<ErrMsg> errs ) {
     ErrMsg msg = err(false);
     if( msg==null ) return;
     msg._order = errs.size();
@@ -863,13 +1058,17 @@ public abstract class Node implements Cloneable, IntSupplier {
 
   // GCP optimizations on the live subgraph
   public void walk_opt( VBitSet visit ) {
-    assert !is_dead();
-    if( visit.tset(_uid) ) return; // Been there, done that
-    // Walk reachable graph
-    if( is_dead() ) return;
-    Env.GVN.add_work_new(this);
-    for( Node def : _defs )  if( def != null )  def.walk_opt(visit);
-    for( Node use : _uses )                     use.walk_opt(visit);
+    int base = WALK._len;
+    WALK.push(this);
+    while( WALK._len > base ) {
+      Node n = WALK.pop();
+      assert !n.is_dead();
+      if( visit.tset(n._uid) ) continue; // Been there, done that
+      // Walk reachable graph
+      if( n.is_dead() ) continue;
+      Env.GVN.add_work_new(n);
+      n.push_defs_uses();
+    }
   }
 
   // Overridden in subclasses that return TypeTuple value types.  Such nodes
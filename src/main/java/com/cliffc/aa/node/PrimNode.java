@@ -206,6 +206,11 @@ public abstract class PrimNode extends Node {
 
   // Apply uses the same alignment as the arguments, ParmNodes, _formals.
   public abstract Type apply( Type[] args ); // Execute primitive
+  // Execute on raw values, for the interpreter: ints are Longs (nil is 0L),
+  // flts are Doubles.  Same answers as apply(), from the same op().
+  public Object exec( Object x, Object y ) { throw unimpl(); }
+  static long   ii( Object o ) { return (Long  )o; }
+  static double ff( Object o ) { return (Double)o; }
   // Pretty print short primitive signature based on first argument:
   //  + :{int int -> int }  ==>>   + :int
   //  + :{flt flt -> flt }  ==>>   + :flt
@@ -270,12 +275,14 @@ public abstract class PrimNode extends Node {
   public static class ConvertI64F64 extends PrimNode {
     public ConvertI64F64() { super("flt",TypeTuple.INT64,TypeStruct.FLT); }
     @Override public Type apply( Type[] args ) { return make_flt((double)unwrap_ii(args[0])); }
+    @Override public Object exec( Object x, Object y ) { return (double)ii(x); }
   }
 
   // 1Ops have uniform input/output types, so take a shortcut on name printing
   abstract static class Prim1OpF64 extends PrimNode {
     Prim1OpF64( String name ) { super(name,TypeTuple.FLT64,TypeStruct.FLT); }
     public Type apply( Type[] args ) { return make_flt(op(unwrap_ff(args[0]))); }
+    @Override public Object exec( Object x, Object y ) { return op(ff(x)); }
     abstract double op( double d );
   }
 
@@ -285,6 +292,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim1OpI64 extends PrimNode {
     Prim1OpI64( String name ) { super(name,TypeTuple.INT64,TypeStruct.INT); }
     @Override public Type apply( Type[] args ) { return make_int(op(unwrap_ii(args[0]))); }
+    @Override public Object exec( Object x, Object y ) { return op(ii(x)); }
     abstract long op( long d );
   }
 
@@ -306,6 +314,8 @@ public abstract class PrimNode extends Node {
       }
     }
     @Override public Type apply( Type[] args ) { throw AA.unimpl(); }
+    // Only nil (0L) is false; pointers and closures are true
+    @Override public Object exec( Object x, Object y ) { return x instanceof Long l && l==0 ? 1L : 0L; }
   }
 
 
@@ -313,6 +323,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2OpF64 extends PrimNode {
     Prim2OpF64( String name ) { super(name,TypeTuple.FLT64_FLT64,TypeStruct.FLT); }
     @Override public Type apply( Type[] args ) { return make_flt(op(unwrap_ff(args[0]),unwrap_ff(args[1]))); }
+    @Override public Object exec( Object x, Object y ) { return op(ff(x),ff(y)); }
     abstract double op( double x, double y );
   }
 
@@ -325,6 +336,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2RelOpF64 extends PrimNode {
     Prim2RelOpF64( String name ) { super(name,TypeTuple.FLT64_FLT64,TypeStruct.BOOL); }
     @Override public Type apply( Type[] args ) { return op(unwrap_ff(args[0]),unwrap_ff(args[1]))?make_int(1):TypeNil.XNIL; }
+    @Override public Object exec( Object x, Object y ) { return op(ff(x),ff(y)) ? 1L : 0L; }
     abstract boolean op( double x, double y );
   }
 
@@ -339,6 +351,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2RelOpFI64 extends PrimNode {
     Prim2RelOpFI64( String name ) { super(name,TypeTuple.FLT64_INT64,TypeStruct.BOOL); }
     @Override public Type apply( Type[] args ) { return op(unwrap_ff(args[0]),unwrap_ii(args[1]))?make_int(1):TypeNil.XNIL; }
+    @Override public Object exec( Object x, Object y ) { return op(ff(x),ii(y)) ? 1L : 0L; }
     abstract boolean op( double x, long y );
   }
 
@@ -354,6 +367,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2OpI64 extends PrimNode {
     Prim2OpI64( String name ) { super(name,TypeTuple.INT64_INT64,TypeStruct.INT); }
     @Override public Type apply( Type[] args ) { return make_int(op(unwrap_ii(args[0]),unwrap_ii(args[1]))); }
+    @Override public Object exec( Object x, Object y ) { return op(ii(x),ii(y)); }
     abstract long op( long x, long y );
   }
 
@@ -366,6 +380,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2OpIF64 extends PrimNode {
     Prim2OpIF64( String name ) { super(name,TypeTuple.INT64_FLT64,TypeStruct.FLT); }
     @Override public Type apply( Type[] args ) { return make_flt(op(unwrap_ii(args[0]),unwrap_ff(args[1]))); }
+    @Override public Object exec( Object x, Object y ) { return op(ii(x),ff(y)); }
     abstract double op( long x, double y );
   }
   static class AddIF64 extends Prim2OpIF64 { AddIF64() { super("+"); } double op( long l, double r ) { return l+r; } }
@@ -376,6 +391,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2OpFI64 extends PrimNode {
     Prim2OpFI64( String name ) { super(name,TypeTuple.FLT64_INT64,TypeStruct.FLT); }
     @Override public Type apply( Type[] args ) { return make_flt(op(unwrap_ff(args[0]),unwrap_ii(args[1]))); }
+    @Override public Object exec( Object x, Object y ) { return op(ff(x),ii(y)); }
     abstract double op( double x, long y );
   }
   static class AddFI64 extends Prim2OpFI64 { AddFI64() { super("+"); } double op( double l, long r ) { return l+r; } }
@@ -449,6 +465,7 @@ public abstract class PrimNode extends Node {
     @Override public Type apply( Type[] args ) {
       return op(unwrap_ii(args[0]),unwrap_ii(args[1]))?make_int(1):TypeNil.XNIL;
     }
+    @Override public Object exec( Object x, Object y ) { return op(ii(x),ii(y)) ? 1L : 0L; }
     abstract boolean op( long x, long y );
   }
 
@@ -462,6 +479,7 @@ public abstract class PrimNode extends Node {
   abstract static class Prim2RelOpIF64 extends PrimNode {
     Prim2RelOpIF64( String name ) { super(name,TypeTuple.INT64_FLT64,TypeStruct.BOOL); }
     @Override public Type apply( Type[] args ) { return op(unwrap_ii(args[0]),unwrap_ff(args[1]))?make_int(1):TypeNil.XNIL; }
+    @Override public Object exec( Object x, Object y ) { return op(ii(x),ff(y)) ? 1L : 0L; }
     abstract boolean op( long x, double y );
   }
 
@@ -549,6 +567,12 @@ public abstract class PrimNode extends Node {
       return t.oob(TypeStruct.INT);
     }
     @Override public TypeInt apply( Type[] args ) { throw AA.unimpl(); }
+    // A uniform pick from 0 to the bound, inclusive, matching value()
+    private static final java.util.Random RAND = new java.util.Random();
+    // Spread small seeds: Random's first draws from nearby seeds are alike
+    public static void seed( long seed ) { RAND.setSeed(seed*0x9E3779B97F4A7C15L); }
+    @Override public Object exec( Object dsp, Object x ) { return rand(ii(x)); }
+    public static long rand( long n ) { return n<=0 ? 0 : RAND.nextInt((int)Math.min(n,Integer.MAX_VALUE-1)+1); }
     // Rands have hidden internal state; 2 Rands are never equal
     @Override public boolean equals(Object o) { return this==o; }
   }
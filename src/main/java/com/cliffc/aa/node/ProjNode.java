@@ -31,6 +31,11 @@ public class ProjNode extends Node {
   // Only called here if alive.
   @Override public Type live_use(Node def ) { return Type.ALL; }
 
+  // Losing a pointer use can leave an allocation captured
+  @Override public void add_flow_def_extra(Node chg) {
+    if( len()>0 && in(0) instanceof NewNode nnn ) Env.GVN.add_reduce(nnn);
+  }
+
   // Standard data ProjNode has a type variable, Control or Memory projnodes do
   // not (CProj, CEProj, MProj)
   @Override public boolean has_tvar() { return getClass()==ProjNode.class; }
@@ -54,7 +54,7 @@ public final class RetNode extends Node {
   }
   // Formals from the function parms.
   // TODO: needs to come from both Combo and _t
-  Type formal(int idx) { return fun().parm(idx)._t; }
+  public Type formal(int idx) { return fun().parm(idx)._t; }
   // Called by testing
   public TypeStruct formals() {
     ParmNode[] parms = fun().parms();
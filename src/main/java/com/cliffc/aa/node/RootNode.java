@@ -3,6 +3,7 @@ package com.cliffc.aa.node;
 import com.cliffc.aa.Env;
 import com.cliffc.aa.tvar.TV2;
 import com.cliffc.aa.type.*;
+import com.cliffc.aa.util.Ary;
 import com.cliffc.aa.util.VBitSet;
 
 import java.util.function.Predicate;
@@ -19,10 +20,18 @@ public class RootNode extends Node {
   private TypeMem _def_mem;
   private Type _cache_key;
   private TypeTuple _cache_val;
+  // Functions bound in an open file scope, e.g. by prior REPL lines.  Later
+  // program text can call them, so they escape as if returned.
+  private final VBitSet _pinned = new VBitSet();
 
   // Output value is:
   // [Ctrl,All_Mem_Minus_Dead,TypeRPC.ALL_CALL,escaped_fidxs, escaped_aliases,]
   @Override public TypeTuple value() {
+    TypeTuple tt = _value();
+    // Incremental re-typing: escapes accumulate, so the prior type is a bound
+    return Env.COMBO._incr ? (TypeTuple)_val.meet(tt) : tt;
+  }
+  private TypeTuple _value() {
     Node rez = in(REZ_IDX);
     if( in(MEM_IDX) == null || rez == null )
       // No top-level return yet, so return most conservative answer
@@ -35,10 +44,16 @@ public class RootNode extends Node {
     ESCF.clear();
     EXT_ALIASES = BitsAlias.EMPTY;
     EXT_FIDXS = BitsFun.EMPTY;
+    ESC_PENDING = false;
     // Walk
+    for( int fidx = _pinned.nextSetBit(0); fidx>=0; fidx = _pinned.nextSetBit(fidx+1) ) {
+      RetNode ret = RetNode.FUNS.atX(fidx);
+      if( ret!=null && !ret.is_dead() ) _escape_fidx(fidx); // Rolled back text has dead functions
+    }
     _escapes(rez._val);
-    // Fill cache after walking
-    _cache_key = rez._val;
+    // Fill cache after walking, unless an escaping function still has to
+    // come back around once it unifies.
+    _cache_key = ESC_PENDING ? null : rez._val;
     return (_cache_val = TypeTuple.make(Type.CTRL,
                                         _def_mem,
                                         TypeRPC.ALL_CALL,
@@ -46,6 +61,12 @@ public class RootNode extends Node {
                                         TypeMemPtr.make(false,EXT_ALIASES,TypeStruct.ISUSED)));
   }
 
+  public void pin( int fidx ) {
+    if( _pinned.tset(fidx) ) return;
+    _cache_key = null;
+    Env.GVN.add_flow(this);
+  }
+
   public void kill_alias( int alias ) {
     _def_mem = _def_mem.make_from_unused(alias,TypeStruct.UNUSED);
     Env.GVN.add_flow(this);
@@ -57,6 +78,7 @@ public class RootNode extends Node {
   private static final VBitSet ESCF = new VBitSet();
   private static BitsAlias EXT_ALIASES;
   private static BitsFun EXT_FIDXS;
+  private static boolean ESC_PENDING; // Some escaping function is not yet an HM function
 
   private static void _escapes(Type t) {
     if( t == Type.ALL ) {
@@ -82,16 +104,7 @@ public class RootNode extends Node {
       // Apply might) with the most conservative flow arguments possible.
       for( int fidx : tfp.fidxs() ) {
         if( fidx==0 ) continue;
-        RetNode ret = RetNode.FUNS.at(fidx);
-        if( ret!=null && !EXT_FIDXS.test(fidx) ) {
-          FunPtrNode fptr = ret.funptr();
-          if( fptr !=null && fptr._tvar!=null ) {
-            TV2 tfun = ret.funptr().tvar();
-            //  tfun.add_deps_work(work);
-            tfun.arg(" ret").clr_cp();
-          }
-        }
-        EXT_FIDXS = EXT_FIDXS.set(fidx);
+        _escape_fidx(fidx);
         //for( int i=0; i<fun.nargs(); i++ ) {
         //  // One-time make compatible external func/struct for this argument
         //  Type cflow;
@@ -117,6 +130,20 @@ public class RootNode extends Node {
   }
 
 
+  private static void _escape_fidx( int fidx ) {
+    RetNode ret = RetNode.FUNS.at(fidx);
+    if( ret!=null && !EXT_FIDXS.test(fidx) ) {
+      FunPtrNode fptr = ret.funptr();
+      if( fptr !=null && fptr._tvar!=null ) {
+        TV2 tfun = ret.funptr().tvar();
+        //  tfun.add_deps_work(work);
+        if( tfun.is_fun() ) tfun.arg(" ret").clr_cp();
+        else { tfun.push_dep(Env.ROOT); ESC_PENDING = true; } // Come back around when this becomes a function
+      }
+    }
+    EXT_FIDXS = EXT_FIDXS.set(fidx);
+  }
+
   @Override public Type live() { return Type.ALL; }
   @Override public int hashCode() { return 123456789+1; }
   @Override public boolean equals(Object o) { return this==o; }
@@ -144,5 +171,7 @@ public class RootNode extends Node {
     while( len() > REZ_IDX+1 )
       pop();
     _def_mem = TypeMem.ALLMEM;
+    _pinned.clear();
   }
+  @Override void walk_types0( Ary<Type> ts ) { ts.push(_def_mem); ts.push(_cache_key); ts.push(_cache_val); }
 }
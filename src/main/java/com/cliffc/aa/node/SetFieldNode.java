@@ -17,7 +17,7 @@ import static com.cliffc.aa.AA.unimpl;
 // which takes and produces a new memory state; it also takes in a TypeStruct.
 public class SetFieldNode extends Node {
   final Access _fin;
-  final String _fld;
+  public final String _fld;
   final Parse _badf;            // Bad field
 
   public SetFieldNode(String fld, Access fin, Node struct, Node val, Parse badf) {
@@ -65,7 +65,7 @@ public class SetFieldNode extends Node {
     boolean progress = false;
     if( self.is_obj() )
       if( rec.is_obj() ) {
-        for( String fld : self._args.keySet() )
+        for( String fld : self._args.keys() )
           if( !Util.eq(fld,_fld) ) { // All fields except the replaced one
             TV2 rfld = rec.arg(fld);
             progress |= rfld!=null && self.arg(fld).unify(rfld,test);
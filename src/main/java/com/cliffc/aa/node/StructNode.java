@@ -45,6 +45,9 @@ public class StructNode extends Node {
   // True if forward-ref.  Again, helps with the Parser
   private boolean _forward_ref;
 
+  // Fields as of the last reopen, e.g. bound by prior REPL lines
+  private TypeStruct _ts0;
+
   // Parser helper for error reports on arg tuples, start of tuple/struct is in
   // slot 0, and the args are +1 from there.
   // Example: "  ( x,y)\n"
@@ -114,7 +117,14 @@ public class StructNode extends Node {
 
   // One-time transition when closing a Struct to new fields.
   public StructNode close() { assert !_closed; _closed=true; return this; }
+  // Reopen a file scope for more program text, e.g. the next REPL line
+  public StructNode reopen() { assert _closed && !_forward_ref; _closed=false; _ts0=_ts; return this; }
   public boolean is_closed() { return _closed; }
+  // A final field bound before the last reopen
+  public boolean is_prior_final( String name ) {
+    TypeFld fld = _ts0==null ? null : _ts0.get(name);
+    return fld!=null && fld._access==Access.Final;
+  }
 
   // One-time transition when defining a forward ref
   public void define() { assert _forward_ref && _closed; _forward_ref=false; }
@@ -164,6 +174,16 @@ public class StructNode extends Node {
     _fld_starts.remove(idx+1);
   }
 
+  // Roll back to an earlier set of fields, e.g. dropping a REPL line with
+  // errors.  The caller keeps the old field values alive.
+  public void rollback( TypeStruct ts, Node[] flds, Parse[] fld_starts ) {
+    while( _defs._len > 0 ) pop();
+    set_ts(ts);
+    for( Node n : flds ) add_def(n);
+    _fld_starts.clear();
+    _fld_starts.addAll(fld_starts);
+  }
+
   // Set a replacement field in a Struct.  Fails if trying to replace a final
   // field.
   public boolean set_fld(String id, Access access, Node val, boolean force ) {
@@ -204,6 +224,8 @@ public class StructNode extends Node {
     }
   }
 
+  @Override void walk_types0( Ary<Type> ts ) { ts.push(_ts); if( _ts0!=null ) ts.push(_ts0); }
+
   // Gather inputs into a TypeStruct.
   @Override public Type value() {
     assert _defs._len==_ts.len();
@@ -233,7 +255,8 @@ public class StructNode extends Node {
     TV2 rec = tvar();
     if( !rec.is_obj() ) {
       if( test ) return true;
-      progress = rec.unify(rec=TV2.make_struct(this,"init_struct"),test);
+      progress = rec.unify(TV2.make_struct(this,"init_struct"),test);
+      rec = rec.find();
     }
 
     assert check_fields(rec);
@@ -252,7 +275,7 @@ public class StructNode extends Node {
   // error to load from a non-existing field
   private boolean check_fields(TV2 rec) {
     if( rec._args != null )
-      for( String id : rec._args.keySet() )
+      for( String id : rec._args.keys() )
         if( !Util.eq(id," def") && _ts.find(id)==-1 && !rec.arg(id).is_err() )
           return false;
     return true;
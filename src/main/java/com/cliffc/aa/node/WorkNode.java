@@ -6,12 +6,54 @@ import com.cliffc.aa.tvar.UQNodes;
 
 public class WorkNode extends Work<Node> {
   public final String _name;
-  public WorkNode(String name) { super(AA.RSEED); _name=name; }
+  private final Order _fixed;   // Fixed order, or null to follow AA
+  public WorkNode(String name) { this(name,null); }
+  public WorkNode(String name, Order fixed) { super(AA.RSEED); _name=name; _fixed=fixed; }
   public void add(Ary<Node> ns) { for( Node n : ns )  add(n); }
   public void add(UQNodes uq) {  if( uq!=null ) for( Node n : uq.values() )  add(n); }
   @Override public String toString() { return _name+super.toString(); }
 
-  // Pull from worklist (order depends on AA.RSEED), until finding something not-dead.
+  @Override public Order order() { return _fixed!=null ? _fixed : AA.GVN_ORDER; }
+
+  // Priority is a reverse-postorder number: a def-first DFS from Root,
+  // numbered in post-order, so defs come before uses (except around loops).
+  // Nodes made since the last numbering sort after all numbered Nodes, in
+  // creation order.  Parse-time Nodes are mostly made defs-before-uses, so
+  // this is a fair approximation there too.
+  private static final AryInt RPO = new AryInt();
+  private static int RPO_CNT;
+  @Override public int priority(Node n) {
+    int rpo = RPO.atX(n._uid);
+    return rpo==0 ? RPO_CNT+n._uid : rpo;
+  }
+  public static void rpo_number( Node root ) {
+    reset_rpo();
+    // Explicit-stack DFS, with a next-def cursor per Node on the stack
+    Ary<Node> walk = Node.WALK;
+    AryInt idx = Node.WALK_IDX;
+    int base = walk._len;
+    VBitSet visit = new VBitSet();
+    visit.set(root._uid);
+    walk.push(root);  idx.push(0);
+    while( walk._len > base ) {
+      Node n = walk.last();
+      int i = idx.last();
+      if( i < n._defs._len ) {
+        idx.set(idx._len-1,i+1);
+        Node def = n._defs.at(i);
+        if( def != null && !visit.tset(def._uid) ) { walk.push(def);  idx.push(0); }
+      } else {
+        walk.pop();  idx.pop();
+        RPO.setX(n._uid,++RPO_CNT);
+      }
+    }
+  }
+  public static void reset_rpo() { RPO.clear(); RPO_CNT=0; }
+  // A recycled uid sorts as a new Node
+  static void forget( int uid ) { if( uid < RPO._len ) RPO.set(uid,0); }
+
+  // Pull from worklist (order depends on AA orders and AA.RSEED), until
+  // finding something not-dead.
   @Override public Node pop() {
     while( true ) {
       Node n = super.pop();
@@ -6,10 +6,9 @@ import com.cliffc.aa.type.*;
 import com.cliffc.aa.util.*;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.TreeMap;
 
 import static com.cliffc.aa.AA.DSP_IDX;
 import static com.cliffc.aa.AA.unimpl;
@@ -66,9 +65,9 @@ import static com.cliffc.aa.AA.unimpl;
  */
 
 
-// This implementation of TV2 uses NBHM for the set of arguments, both field
-// names and values; it is conveniently mutable and actually fairly expensive
-// compared to e.g. a raw array.
+// This implementation of TV2 uses TVArgs for the set of arguments, both field
+// names and values: small parallel arrays, hashed only when large.  The U-F
+// forwarding pointer is a separate field.
 //
 
 
@@ -84,12 +83,24 @@ public class TV2 {
   // Structural parts to unify with, or null.
   // If Leaf   , then null and _flow is null.
   // If Base   , then null and _flow is set.
-  // If unified, contains the single key ">>" and all other fields are null.
+  // If unified, then null and _fwd is set.
   // If Nil    , contains the single key "?"  and all other fields are null.
   // If Lambda , contains keys "x","y","z" for args or "ret" for return.
   // If Struct , contains keys for the field labels.  No display & not-null.
   // If Error  , _eflow may contain a 2nd flow type; also blends keys from all takers
-  public NonBlockingHashMap<String,TV2> _args;
+  public TVArgs _args;
+
+  // U-F forwarding pointer, or null if not unified.  If set, all other fields
+  // are null.
+  private TV2 _fwd;
+  // U-F rank; union keeps the higher ranked root
+  private byte _rank;
+
+  // Scratch slots for the recursive walks: fresh-copy, unify-partner and
+  // equals-partner.  A slot is valid only while its epoch matches the walk's
+  // global epoch, so a new walk clears every slot by bumping the epoch.
+  private int _vepoch, _uepoch, _cepoch;
+  private TV2 _vcopy, _udup, _cdup;
 
   // A dataflow type or null.  A 2nd dataflow type for errors.
   // If Leaf or unified or Nil or Apply, then null.
@@ -126,9 +137,26 @@ public class TV2 {
   // Track allocation statistics
   static private class ACnts { int _malloc, _unified, _free; }
   static private final HashMap<String,ACnts> ALLOCS = new HashMap<>(); // Counts at alloc sites
+  // Zero the counts, e.g. per compile for Metrics.  Sites stay, as live TV2s
+  // still count frees and unifies against them.
+  public static void reset_allocs() { for( ACnts a : ALLOCS.values() ) a._malloc = a._unified = a._free = 0; }
+  // Total allocations since the last reset
+  public static long mallocs() { long sum=0; for( ACnts a : ALLOCS.values() ) sum += a._malloc; return sum; }
+  // Counts as a JSON object, by alloc site
+  public static SB allocs_json( SB sb ) {
+    sb.p('{');
+    String sep="";
+    for( String site : ALLOCS.keySet() ) {
+      ACnts a = ALLOCS.get(site);
+      if( a._malloc+a._unified+a._free == 0 ) continue;
+      sb.p(sep).p('"').p(site).p("\": {\"malloc\": ").p(a._malloc).p(", \"unified\": ").p(a._unified).p(", \"free\": ").p(a._free).p('}');
+      sep=", ";
+    }
+    return sb.p('}');
+  }
 
   // Common constructor
-  private TV2(NonBlockingHashMap<String,TV2> args, @NotNull String alloc_site) {
+  private TV2(TVArgs args, @NotNull String alloc_site) {
     _uid=UID++;
     _args = args;
     ALLOCS.computeIfAbsent(_alloc_site=alloc_site,e -> new ACnts())._malloc++;
@@ -136,7 +164,7 @@ public class TV2 {
 
   TV2 copy(String alloc_site) {
     // Shallow clone of args
-    TV2 t = new TV2(_args==null ? null : (NonBlockingHashMap<String,TV2>)_args.clone(),alloc_site);
+    TV2 t = new TV2(_args==null ? null : _args.copy(),alloc_site);
     t._tflow = _tflow;
     t._eflow = _eflow;
     t._may_nil = _may_nil;
@@ -150,8 +178,8 @@ public class TV2 {
   }
 
   // Accessors
-  public boolean is_leaf() { return _args==null && _tflow ==null && _clz==null && !_is_fun; }
-  public boolean is_unified(){return _get(">>")!=null; }
+  public boolean is_leaf() { return _args==null && _tflow ==null && _clz==null && !_is_fun && _fwd==null; }
+  public boolean is_unified(){return _fwd!=null; }
   public boolean is_nil () { return _get("?" )!=null; }
   public boolean is_base() { return _tflow != null; }
   public boolean is_ptr () { return _get("*")!=null; }
@@ -177,7 +205,7 @@ public class TV2 {
   public static TV2 make_leaf(@NotNull String alloc_site) {  return new TV2(null,alloc_site); }
   // Make a nilable
   public static TV2 make_nil(TV2 notnil, @NotNull String alloc_site) {
-    TV2 t2 = new TV2(new NonBlockingHashMap<>(){{put("?",notnil);}},alloc_site);
+    TV2 t2 = new TV2(new TVArgs("?",notnil),alloc_site);
     t2._may_nil = true;
     return t2;
   }
@@ -191,7 +219,7 @@ public class TV2 {
   }
   
   public static TV2 make_fun(@NotNull String alloc_site, boolean open, TV2... t2s) {
-    NonBlockingHashMap<String,TV2> args = new NonBlockingHashMap<>();
+    TVArgs args = new TVArgs();
     for( int i=DSP_IDX; i<t2s.length-1; i++ )
       if( t2s[i]!=null ) args.put(argname(i), t2s[i]);
     args.put(" ret",t2s[t2s.length-1]);
@@ -202,7 +230,7 @@ public class TV2 {
     return t2;
   }
   public static TV2 make_fun(@NotNull String alloc_site, TypeFunPtr tfp) {
-    NonBlockingHashMap<String,TV2> args = new NonBlockingHashMap<>();
+    TVArgs args = new TVArgs();
     for( int i=DSP_IDX; i<tfp.nargs(); i++ )
       args.put(argname(i), make_leaf(alloc_site));
     args.put(" ret",make_leaf(alloc_site));
@@ -215,7 +243,7 @@ public class TV2 {
   // clz.  Clz objects themselves are instances of the empty clz.  The _def
   // field is included.
   public static TV2 make_struct( StructNode rec, String alloc_site ) {
-    NonBlockingHashMap<String,TV2> args = new NonBlockingHashMap<>();
+    TVArgs args = new TVArgs();
     TypeStruct ts = rec.ts();
     if( !ts._clz.isEmpty() )
       args.put(" def",make_base(ts._def,alloc_site));
@@ -225,7 +253,7 @@ public class TV2 {
     return make_struct(args,ts.clz(),alloc_site);
   }
   private static TV2 make_struct( TypeStruct ts, String alloc_site ) {
-    NonBlockingHashMap<String,TV2> args = new NonBlockingHashMap<>();
+    TVArgs args = new TVArgs();
     if( !ts._clz.isEmpty() )
       args.put(" def",make_base(ts._def,alloc_site));
     for( TypeFld fld : ts )
@@ -233,7 +261,7 @@ public class TV2 {
       throw unimpl();
     return make_struct(args,ts.clz(),alloc_site);
   }
-  private static TV2 make_struct( NonBlockingHashMap<String,TV2> args, String clz, String alloc_site ) {
+  private static TV2 make_struct( TVArgs args, String clz, String alloc_site ) {
     TV2 t2 = new TV2(args,alloc_site);
     t2._clz = clz;
     t2._may_nil = false;
@@ -244,11 +272,11 @@ public class TV2 {
     assert !is_obj();           // If error, might also be is_fun or is_base
     _clz = "";                  // No particular clazz
     _open = true;
-    if( _args==null ) _args = new NonBlockingHashMap<>();
+    if( _args==null ) _args = new TVArgs();
     assert is_obj();
   }
   public static TV2 make_ptr( TypeMemPtr flow, String alloc_site ) {
-    NonBlockingHashMap<String,TV2> args = new NonBlockingHashMap<>(){{put("*",make_leaf(alloc_site));}};
+    TVArgs args = new TVArgs("*",make_leaf(alloc_site));
     TV2 t2 = new TV2(args,alloc_site);
     t2._tflow =flow;
     assert t2.is_ptr();
@@ -295,6 +323,8 @@ public class TV2 {
   public void free() {
     if( !is_unified() ) ALLOCS.get(_alloc_site)._free++;
     _args = null;
+    _fwd  = null;
+    _vcopy = _udup = _cdup = null;
     _tflow = _eflow = null;
     _open = false;
     _deps = null;
@@ -328,13 +358,12 @@ public class TV2 {
   // Tarjan U-F find, without the roll-up.  Used for debug printing and asserts
   public TV2 debug_find() {
     if( !is_unified() ) return this;
-    if( _args==null ) return this;
-    TV2 u = _args.get(">>");
+    TV2 u = _fwd;
     if( !u.is_unified() ) return u;  // Shortcut
 
     // U-F search, no fixup
     int cnt=0;
-    while( u.is_unified() && cnt++<100 ) u = u._args.get(">>");
+    while( u.is_unified() && cnt++<100 ) u = u._fwd;
     assert cnt<100;             // Infinite roll-up loop
     return u;
   }
@@ -346,14 +375,23 @@ public class TV2 {
   }
 
   private TV2 _find0() {
-    TV2 top = debug_find();
-    if( top == this ) return top;
-    if( top==_args.get(">>") ) return top;
+    FINDS++;
+    if( _fwd==null ) return this;
+    TV2 top = _fwd;             // Walk to the root, counting the chain
+    int len=1;
+    while( top._fwd!=null ) { top = top._fwd; len++; }
+    FIND_STEPS += len;
+    if( len > FIND_MAX ) FIND_MAX = len;
     TV2 v = this, next;           // Rerun, rolling up to top
-    while( (next=v._args.get(">>"))!=top ) { v._args.put(">>",top); v = next; }
+    while( (next=v._fwd)!=top ) { v._fwd = top; v = next; }
     return top;
   }
 
+  // Find calls, total and max chain lengths walked; reset per compile
+  public static long FINDS, FIND_STEPS;
+  public static int FIND_MAX;
+  public static void reset_finds() { FINDS = FIND_STEPS = FIND_MAX = 0; }
+
   // Nilable fixup.  nil-of-leaf is OK.  nil-of-anything-else folds into a
   // nilable version of the anything-else.
   private TV2 _find_nil() {
@@ -375,13 +413,13 @@ public class TV2 {
       if( !n._is_copy ) clr_cp();
     }
     if( n.is_ptr() ) {
-      if( _args==null ) _args = new NonBlockingHashMap<>();
+      if( _args==null ) _args = new TVArgs();
       _args.put("*",n.arg("*"));
     }
     if( n.is_fun() ) throw unimpl();
     if( n.is_obj() ) {
       // Recursively add-nil the fields
-      for( String key : n._args.keySet() ) {
+      for( String key : n._args.keys() ) {
         TV2 arg = n.arg(key);
         _args.put(key,arg.copy("add_nil")._add_nil(arg));
       }
@@ -422,7 +460,7 @@ public class TV2 {
     // If not yet a clazz, make it one
     if( !clz.is_obj() ) {
       clz._clz = "";            // Clazzes do not have a clazz.
-      if( clz._args==null ) clz._args = new NonBlockingHashMap<>();
+      if( clz._args==null ) clz._args = new TVArgs();
     }
     // Find the field, making if needed.
     TV2 fld = clz.arg(key);
@@ -431,7 +469,7 @@ public class TV2 {
       clz._args.put(key,fld = make_leaf("clz_arg"));
     // At least the leaf is a function, taking a display and allowing more arguments
     if( !fld.is_fun() ) {
-      if( fld._args==null ) fld._args = new NonBlockingHashMap<String,TV2>();
+      if( fld._args==null ) fld._args = new TVArgs();
       fld._args.put(argname(DSP_IDX),make_leaf("clz_arg dsp"));
       fld._args.put(" ret",make_leaf("clz_arg ret"));
       fld._is_fun=true;
@@ -471,7 +509,7 @@ public class TV2 {
     if( _may_nil) hash = (hash+19)*23;
     if( _clz!=null ) hash ^= _clz.hashCode();
     if( _args!=null )
-      for( String key : _args.keySet() )
+      for( String key : _args.keys() )
         hash ^= key.hashCode();
     return hash==0 ? 0xdeadbeef : hash;
   }
@@ -519,11 +557,11 @@ public class TV2 {
         //Type.RECURSIVE_MEET++;
         //tstr = TypeStruct.malloc("",is_open() ? Type.ANY : Type.ALL).add_fld(TypeFld.NO_DISP);
         //if( _args!=null )
-        //  for( String id : _args.keySet() )
+        //  for( String id : _args.keys() )
         //    tstr.add_fld(TypeFld.malloc(id));
         //ADUPS.put(_uid,tstr); // Stop cycles
         //if( _args!=null )
-        //  for( String id : _args.keySet() )
+        //  for( String id : _args.keys() )
         //    tstr.get(id).setX(arg(id)._as_flow()); // Recursive
         //if( --Type.RECURSIVE_MEET == 0 )
         //  // Shrink / remove cycle dups.  Might make new (smaller)
@@ -622,20 +660,37 @@ public class TV2 {
 
   // Union this into that; this can already be unified (if rolling up).
   // Crush all the extra fields in this, to avoid accidental usage.
+  // Union-by-rank: if this is the higher ranked root, the merged parts in
+  // that move back into this, and that is forwarded instead.
   private boolean _union(TV2 that) {
     assert !is_unified() && !that.is_unified(); // Cannot union twice
-    ALLOCS.get(_alloc_site)._unified++;
     merge_deps(that);           // Merge update lists, for future unions
-    if( _args!=null ) _args.clear();
-    else _args = new NonBlockingHashMap<>();
-    _args.put(">>", that);
+    if( _rank > that._rank ) that._move(this);
+    else {
+      if( _rank==that._rank ) that._rank++;
+      _crush(that);
+    }
+    return true;
+  }
+  // Move all parts of this into that, and forward this to that
+  private void _move(TV2 that) {
+    that._args = _args;   that._tflow = _tflow;  that._eflow = _eflow;
+    that._may_nil = _may_nil;  that._is_fun = _is_fun;  that._open = _open;
+    that._is_copy = _is_copy;  that._deps = _deps;
+    that._err = _err;  that._clz = _clz;
+    _crush(that);
+  }
+  // Forward this to that, dropping all parts
+  private void _crush(TV2 that) {
+    ALLOCS.get(_alloc_site)._unified++;
+    _args = null;
+    _fwd = that;
     _tflow = _eflow = null;
     _is_fun = _may_nil = _open = false;
     _is_copy = true;
     _deps = null;
     _err = _clz = null;
     assert is_unified();
-    return true;
   }
 
   // U-F union; this is nilable and becomes that.
@@ -667,12 +722,10 @@ public class TV2 {
 
   // --------------------------------------------
   // Cyclic (structural) equals
-  static private final HashMap<TV2,TV2> CDUPS = new HashMap<>();
+  private static int CEPOCH;
   public final boolean eq( TV2 that ) {
-    assert CDUPS.isEmpty();
-    boolean eq = _eq(that);
-    CDUPS.clear();
-    return eq;
+    CEPOCH++;
+    return _eq(that);
   }
   private boolean _eq( TV2 that) {
     assert !is_unified() && !that.is_unified();
@@ -689,12 +742,11 @@ public class TV2 {
     if( size() != that.size() ) return false; // Mismatched sizes
 
     // Cycles stall the equal/unequal decision until we see a difference.
-    TV2 tc = CDUPS.get(this);
-    if( tc!=null )  return tc==that; // Cycle check; true if both cycling the same
-    CDUPS.put(this,that);
+    if( _cepoch==CEPOCH ) return _cdup==that; // Cycle check; true if both cycling the same
+    _cepoch = CEPOCH;  _cdup = that;
 
     // Structural recursion
-    for( String key : _args.keySet() ) {
+    for( String key : _args.keys() ) {
       TV2 arg = that.arg(key);
       if( arg==null || !arg(key)._eq(arg) )
         return false;
@@ -704,17 +756,29 @@ public class TV2 {
 
   // --------------------------------------------
   // Used in the recursive unification process.  During unify detects cycles,
-  // to allow cyclic unification.
+  // to allow cyclic unification.  The first partner of a TV2 goes in its
+  // _udup slot; the rare other partners go in DUPS, by pair of uids.
+  private static int UEPOCH;
   private static final NonBlockingHashMapLong<TV2> DUPS = new NonBlockingHashMapLong<>();
   // Structural unification.  Both 'this' and that' are the same afterwards.
   // Returns True if progressed.
   public boolean unify(TV2 that, boolean test) {
     if( this==that ) return false;
     assert DUPS.isEmpty();
+    UEPOCH++;
     boolean progress = _unify(that,test);
-    DUPS.clear();
+    if( !DUPS.isEmpty() ) DUPS.clear();
     return progress;
   }
+  // True if this and that are already paired in this unify, else pairs them
+  private boolean dups( TV2 that ) {
+    if( _uepoch!=UEPOCH ) { _uepoch = UEPOCH;  _udup = that;  return false; }
+    if( _udup==that ) return true;
+    long luid = dbl_uid(that);  // long-unique-id formed from this and that
+    if( DUPS.get(luid)!=null ) return true;
+    DUPS.put(luid,that);
+    return false;
+  }
 
   // Structural unification, 'this' into 'that'.  No change if just testing
   // (work is null) and returns a progress flag.  If updating, both 'this'
@@ -743,11 +807,7 @@ public class TV2 {
     if( that.is_nil() && !this.is_nil() ) return this.unify_nil(that,test);
 
     // Cycle check.
-    long luid = dbl_uid(that);  // long-unique-id formed from this and that
-    TV2 rez = DUPS.get(luid);
-    assert rez==null || rez==that;
-    if( rez!=null ) return false; // Been there, done that
-    DUPS.put(luid,that);          // Close cycles
+    if( dups(that) ) return false; // Been there, done that; else close cycles
 
     if( test ) return true; // Here we definitely make progress; bail out early if just testing
 
@@ -764,7 +824,7 @@ public class TV2 {
   // at the top-level directly.
   static void unify_flds(TV2 thsi, TV2 that) {
     if( thsi._args==that._args ) return;  // Already equal (and probably both nil)
-    for( String key : thsi._args.keySet() ) {
+    for( String key : thsi._args.keys() ) {
       TV2 fthis = thsi.    arg(key); // Field of this
       TV2 fthat = that.clz_arg(key); // Field of that, maybe in a clazz
       if( fthat==null ) {        // Missing field in that
@@ -777,7 +837,7 @@ public class TV2 {
     }
     // Fields on the RHS are aligned with the LHS also
     if( that._args!=null )
-      for( String key : that._args.keySet() )
+      for( String key : that._args.keys() )
         if( thsi.arg(key)==null ) { // Missing field in this
           if( thsi.is_open() )  thsi.add_fld(key,that.arg(key)); // Add to LHS
           else                  that.del_fld(key);  // Drop from RHS
@@ -788,7 +848,7 @@ public class TV2 {
 
   // Insert a new field
   public boolean add_fld( String id, TV2 fld) {
-    if( _args==null ) _args = new NonBlockingHashMap<>();
+    if( _args==null ) _args = new TVArgs();
     fld.push_deps(_deps);
     _args.put(id,fld);
     add_deps_flow();
@@ -807,8 +867,8 @@ public class TV2 {
 
   // -----------------
   // Used in the recursive unification process.  During fresh_unify tracks the
-  // mapping from LHS TV2s to RHS TVs.
-  private static final HashMap<TV2,TV2> VARS = new HashMap<>();
+  // mapping from LHS TV2s to RHS TVs, in the _vcopy slots.
+  private static int VEPOCH;
   private static int FCNT;
 
   // Make a (lazy) fresh copy of 'this' and unify it with 'that'.  This is
@@ -819,19 +879,20 @@ public class TV2 {
   // If test, we are testing only and make no changes.
   public boolean fresh_unify(TV2 that, TV2[] nongen, boolean test) {
     FCNT=0;
-    assert VARS.isEmpty() && DUPS.isEmpty();
+    assert DUPS.isEmpty();
+    VEPOCH++;  UEPOCH++;
     boolean progress = _fresh_unify(that,nongen,test);
-    VARS.clear();  DUPS.clear();
+    if( !DUPS.isEmpty() ) DUPS.clear();
     return progress;
   }
 
-  // Apply 'this' structure on 'that'; no modifications to 'this'.  VARS maps
+  // Apply 'this' structure on 'that'; no modifications to 'this'.  _vcopy maps
   // from the cloned LHS to the RHS replacement.
   private boolean _fresh_unify(TV2 that, TV2[] nongen, boolean test ) {
     assert !is_unified() && !that.is_unified();
 
     // Check for cycles
-    TV2 prior = VARS.get(this);
+    TV2 prior = vget();
     if( prior!=null )                        // Been there, done that
       return prior.find()._unify(that,test); // Also 'prior' needs unification with 'that'
     // Check for equals (internally checks this==that)
@@ -841,7 +902,7 @@ public class TV2 {
     // not a fresh-unify.
     if( nongen_in( nongen ) ) return vput(that,_unify(that,test));
 
-    // LHS leaf, RHS is unchanged but goes in the VARS
+    // LHS leaf, RHS is unchanged but goes in the _vcopy
     if( this.is_leaf() ) return vput(that,false);
     if( that.is_leaf() )  // RHS is a tvar; union with a deep copy of LHS
       return test || vput(that,that.union(_fresh(nongen),test));
@@ -902,7 +963,7 @@ public class TV2 {
     assert FCNT < 100; // Infinite _fresh_unify cycles
     boolean missing = size()!= that.size(); // Quick check to avoid walking the RHS
     if( _args != null )
-      for( String key : _args.keySet() ) {
+      for( String key : _args.keys() ) {
         TV2 lhs =          arg(key);  assert lhs!=null;
         TV2 rhs = that.clz_arg(key);
         if( rhs==null ) {       // No RHS to unify against
@@ -927,7 +988,7 @@ public class TV2 {
     // just skip the copy).  If the LHS is closed, then the extra RHS fields
     // are removed.
     if( missing && is_obj() && !is_open() && that._args!=null )
-      for( String id : that._args.keySet() ) // For all fields in RHS
+      for( String id : that._args.keys() ) // For all fields in RHS
         if( clz_arg(id)==null && !that.arg(id).is_err() ) { // Missing in LHS
     //      if( test ) return true;         // Will definitely make progress
     //      { that._args.remove(id); progress=true; } // Extra fields on both sides are dropped
@@ -939,8 +1000,9 @@ public class TV2 {
     return progress;
   }
 
-  private boolean vput(TV2 that, boolean progress) { VARS.put(this,that); return progress; }
-  private TV2 vput(TV2 that) { VARS.put(this,that); return that; }
+  private TV2 vget() { return _vepoch==VEPOCH ? _vcopy : null; }
+  private boolean vput(TV2 that, boolean progress) { vput(that); return progress; }
+  private TV2 vput(TV2 that) { _vepoch = VEPOCH;  _vcopy = that;  return that; }
 
   private boolean unify_nil_this( boolean test ) {
     if( test ) return unify_nil_this_test();
@@ -958,22 +1020,21 @@ public class TV2 {
     return false;
   }
   private static Type meet_nil(Type t) { return t==null ? null : t.meet(TypeNil.XNIL); }
-  private TV2 cp_args(NonBlockingHashMap<String,TV2> args ) {
+  private TV2 cp_args(TVArgs args ) {
     if( _args==null )
-      _args = (NonBlockingHashMap<String,TV2>)args.clone(); // Error case; bring over the args
+      _args = args.copy(); // Error case; bring over the args
     return this;
   }
   
 
   public TV2 fresh(TV2[] nongen) {
-    assert VARS.isEmpty();
+    VEPOCH++;
     TV2 tv2 = _fresh(nongen);
-    VARS.clear();
     return tv2;
   }
   private TV2 _fresh(TV2[] nongen) {
     assert !is_unified();       // Already chased these down
-    TV2 rez = VARS.get(this);
+    TV2 rez = vget();
     if( rez!=null ) return rez.find(); // Been there, done that
     // Unlike the original algorithm, to handle cycles here we stop making a
     // copy if it appears at this level in the nongen set.  Otherwise we'd
@@ -983,9 +1044,9 @@ public class TV2 {
 
     TV2 t = copy("_fresh_copy");
     if( is_leaf() ) t._deps=null;
-    VARS.put(this,t);       // Stop cyclic structure looping
+    vput(t);                // Stop cyclic structure looping
     if( _args!=null )
-      for( String key : _args.keySet() )
+      for( String key : _args.keys() )
         t._args.put(key,arg(key)._fresh(nongen));
     assert !t.is_unified();
     return t;
@@ -999,7 +1060,7 @@ public class TV2 {
     if( x==this ) return true;
     if( ODUPS.tset(x._uid) ) return false; // Been there, done that
     if( x._args!=null )
-      for( String key : x._args.keySet() )
+      for( String key : x._args.keys() )
         if( _occurs_in_type(x.arg(key)) )
           return true;
     return false;
@@ -1072,7 +1133,7 @@ public class TV2 {
     //  if( !(tptr._obj instanceof TypeStruct) ) return tptr;
     //  TypeStruct ts = (TypeStruct)tptr._obj; // Always a TypeStruct here
     //  if( _args!=null )
-    //    for( String id : _args.keySet() ) {
+    //    for( String id : _args.keys() ) {
     //      TypeFld fld = ts.get(id);
     //      get(id).walk_types_in(tmem,fld==null ? Type.XSCALAR : fld._t);
     //    }
@@ -1180,8 +1241,9 @@ public class TV2 {
           throw unimpl();
     }
     if( _args != null )
-      for( TV2 t2 : _args.values() )
+      for( TV2 t2 : _args.vals() )
         t2._clr_cp();
+    if( _fwd != null ) _fwd._clr_cp();
   }
 
   // --------------------------------------------
@@ -1206,7 +1268,7 @@ public class TV2 {
       _deps = UQNodes.make(dep);
     }
     if( _args!=null )
-      for( TV2 arg : _args.values() ) // Structural recursion on a complex TV2
+      for( TV2 arg : _args.vals() ) // Structural recursion on a complex TV2
         arg.find()._push_dep(dep);
   }
 
@@ -1217,8 +1279,9 @@ public class TV2 {
     // TODO: Lambda "applys" from HM
     if( DEPS_VISIT.tset(_uid) ) return;
     if( _args != null )
-      for( TV2 tv2 : _args.values() )
+      for( TV2 tv2 : _args.vals() )
         tv2.add_deps_flow_impl();
+    if( _fwd != null ) _fwd.add_deps_flow_impl();
   }
 
   // Merge Dependent Node lists, 'this' into 'that'.  Required to trigger
@@ -1236,9 +1299,10 @@ public class TV2 {
       dups.set(debug_find()._uid);
     } else {
       if( _args!=null )
-        for( String key : _args.keySet() )
+        for( String key : _args.keys() )
           if( !key.equals("??") )
             _args.get(key)._get_dups(visit,dups);
+      if( _fwd!=null ) _fwd._get_dups(visit,dups);
     }
     return dups;
   }
@@ -1260,7 +1324,7 @@ public class TV2 {
 
     if( is_unified() || (is_leaf() && _err==null) ) {
       vname(sb,debug);
-      return is_unified() ? _args.get(">>").str(sb.p(">>"), visit, dups, debug) : sb;
+      return is_unified() ? _fwd.str(sb.p(">>"), visit, dups, debug) : sb;
     }
 
     // Dup printing for all but bases (which are short, just repeat them)
@@ -1293,7 +1357,7 @@ public class TV2 {
     // Generic structural TV2
     sb.p("( ");
     if( _args!=null )
-      for( String s : _args.keySet() )
+      for( String s : _args.keys() )
         str0(sb.p(s).p(':'),visit,_args.get(s),dups,debug).p(" ");
     return sb.unchar().p(")");
   }
@@ -1352,5 +1416,5 @@ public class TV2 {
   }
   private boolean is_tup() {  return _args==null || _args.isEmpty() || _args.containsKey("0"); }
   boolean is_math() { return is_obj() && _args!=null && _args.containsKey("pi"); }
-  private Collection<String> sorted_flds() { return new TreeMap<>(_args).keySet(); }
+  private String[] sorted_flds() { String[] flds = _args.keys(); Arrays.sort(flds); return flds; }
 }
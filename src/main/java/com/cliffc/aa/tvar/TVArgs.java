@@ -0,0 +1,99 @@
+package com.cliffc.aa.tvar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Compact TV2 argument map: field names to TV2s, in small parallel arrays.
+//
+// Most TV2s have a handful of fields (a lambda has its args and " ret", a
+// nilable has just "?"), so a linear scan of the key array beats hashing.
+// Keys are interned on insert, so most lookups hit on the pointer compare.
+// Above MAX fields a HashMap index from key to array slot is kept alongside.
+//
+// Iteration is in insertion order, over a snapshot: callers routinely add
+// and delete fields while walking them.
+public class TVArgs {
+  // Sizes above this also keep a hashed index; set 0 to always hash
+  public static int MAX = Integer.getInteger("tv2_args_max",8);
+
+  private String[] _keys;
+  private TV2[] _vals;
+  private int _len;
+  private HashMap<String,Integer> _idx; // Key to slot, only above MAX
+
+  public TVArgs() { _keys = new String[2]; _vals = new TV2[2]; }
+  public TVArgs(String key, TV2 val) { this(); put(key,val); }
+  private TVArgs(TVArgs args) {
+    _keys = Arrays.copyOf(args._keys,Math.max(args._len,2));
+    _vals = Arrays.copyOf(args._vals,_keys.length);
+    _len  = args._len;
+    if( args._idx!=null ) _idx = new HashMap<>(args._idx);
+  }
+  // Shallow copy
+  public TVArgs copy() { return new TVArgs(this); }
+
+  public int size() { return _len; }
+  public boolean isEmpty() { return _len==0; }
+
+  // Slot for key, or -1
+  private int find( String key ) {
+    if( _idx!=null ) {
+      Integer i = _idx.get(key);
+      return i==null ? -1 : i;
+    }
+    for( int i=0; i<_len; i++ ) if( _keys[i]==key ) return i;
+    for( int i=0; i<_len; i++ ) if( _keys[i].equals(key) ) return i;
+    return -1;
+  }
+
+  public TV2 get( String key ) { int i = find(key); return i==-1 ? null : _vals[i]; }
+  public boolean containsKey( String key ) { return find(key)!=-1; }
+
+  // Returns the prior value, or null
+  public TV2 put( String key, TV2 val ) {
+    int i = find(key);
+    if( i!=-1 ) { TV2 old = _vals[i]; _vals[i] = val; return old; }
+    if( _len==_keys.length ) {
+      _keys = Arrays.copyOf(_keys,_len<<1);
+      _vals = Arrays.copyOf(_vals,_len<<1);
+    }
+    _keys[_len] = key = key.intern();
+    _vals[_len] = val;
+    if( _idx!=null ) _idx.put(key,_len);
+    else if( _len+1 > MAX ) reindex(_len+1);
+    _len++;
+    return null;
+  }
+  public void putAll( TVArgs args ) {
+    for( int i=0; i<args._len; i++ ) put(args._keys[i],args._vals[i]);
+  }
+
+  // Returns the prior value, or null.  Keeps insertion order.
+  public TV2 remove( String key ) {
+    int i = find(key);
+    if( i==-1 ) return null;
+    TV2 old = _vals[i];
+    System.arraycopy(_keys,i+1,_keys,i,_len-i-1);
+    System.arraycopy(_vals,i+1,_vals,i,_len-i-1);
+    _keys[--_len] = null;
+    _vals[  _len] = null;
+    _idx = null;
+    if( _len > MAX ) reindex(_len);
+    return old;
+  }
+  public void clear() {
+    Arrays.fill(_keys,0,_len,null);
+    Arrays.fill(_vals,0,_len,null);
+    _len=0;
+    _idx=null;
+  }
+
+  private void reindex( int len ) {
+    _idx = new HashMap<>();
+    for( int i=0; i<len; i++ ) _idx.put(_keys[i],i);
+  }
+
+  // Snapshots, in insertion order
+  public String[] keys() { return Arrays.copyOf(_keys,_len); }
+  public TV2[] vals() { return Arrays.copyOf(_vals,_len); }
+}
@@ -37,7 +37,7 @@ public class UQNodes extends NonBlockingHashMapLong<Node> {
     assert KEY.isEmpty();
     if( tn==null ) return this;
     assert !tn.is_dead();
-    if( get(tn._uid)!=null ) return this; // Already in there
+    if( get(tn._uid)==tn ) return this; // Already in there; a dead Node may hold a recycled uid
     // Fold them together
     for( Node n : values() ) if( !n.is_dead() ) KEY.put(n._uid,n);
     KEY.put(tn._uid,tn);
@@ -82,6 +82,25 @@ public abstract class AryI<T> {
   final void _free(T[] ts) { tary(ts.length)._free.push(ts); }
   final T[] _hash_cons(T[] ts) { return tary(ts.length).check().hash_cons_(ts); }
   final boolean _interned(T[] ts) { return tary(ts.length).interned_ (ts); }
+  // Drop interned arrays holding any Type not live; they go to the GC.
+  // Rebuilds, as removed keys linger in the table.
+  final void _reclaim(VBitSet live) {
+    for( AryI<T> tary : ARYS ) {
+      if( tary==null ) continue;
+      Ary<Key> keep = new Ary<>(Key.class);
+      for( Object o : tary._intern.keySet() )
+        if( all_live((Key)o,live) )
+          keep.push((Key)o);
+      tary._intern.clear();
+      for( Key k : keep ) tary._intern.put(k);
+    }
+  }
+  private static boolean all_live(Key k, VBitSet live) {
+    for( Object t : k._ts )
+      if( t!=null && !live.test(((Type)t)._uid) )
+        return false;
+    return true;
+  }
   // Why is this API not auto-interning?  Because it is used to make cyclic
   // types in TStructs, which means the fields will change over
   // time... until the intern point.
@@ -1,9 +1,10 @@
 package com.cliffc.aa.type;
 
+import com.cliffc.aa.Metrics;
 import com.cliffc.aa.util.*;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.IntSupplier;
 
 import static com.cliffc.aa.AA.unimpl;
@@ -23,17 +24,23 @@ public interface Cyclic {
   static <T extends Type> T install( T head ) { return install(head,null); }
 
   static <T extends Type> T install( T head, Map<String,Type> map ) {
-    long t0 = System.currentTimeMillis();
+    long t0 = System.currentTimeMillis(), n0 = Metrics.ON ? System.nanoTime() : 0;
     TypeStruct.MEETS0.clear();
     _reachable(head,true);      // Compute 1st-cut reachable
     // P.gather(); // Turn off detail profiling
-    head = _dfa_min(head, map);
-    _reachable(head,false);     // Recompute reachable; skip interned; probably shrinks
 
-    // Set cyclic bits, to allow computing cyclic hashes and faster compares
-    CVISIT.clear();             // Reset globals
-    assert CSTACK.isEmpty();    // Reset globals
-    _set_cyclic(head);
+    // Fast path: no cycle amongst the new Types.  A DAG minimizes by the
+    // plain bottom-up hashcons in dag_install, no partitioning required.
+    CVISIT.clear();  CDONE.clear();
+    if( _cycle(head)==1 ) {
+      head = _dfa_min(head, map);
+      _reachable(head,false);   // Recompute reachable; skip interned; probably shrinks
+
+      // Set cyclic bits, to allow computing cyclic hashes and faster compares
+      CVISIT.clear();           // Reset globals
+      assert CSTACK.isEmpty();  // Reset globals
+      _set_cyclic(head);
+    } else P.acyclic++;
 
     // Install non-cyclics recursively with a DAG visit; install cyclics as a whole cycle
     CVISIT.clear();             // Reset globals
@@ -52,6 +59,7 @@ public interface Cyclic {
     // Profile; return new interned cycle
     long t1 = System.currentTimeMillis();
     P.time += (t1-t0);  P.cnt++;
+    if( Metrics.ON ) { Metrics.CYCLICS++; Metrics.CYCLIC_NS += System.nanoTime()-n0; }
     return head2;
   }
 
@@ -69,7 +77,7 @@ public interface Cyclic {
   private static <T extends Type> T dag_install(T t, final int scc_depth, Type scc_leader) {
     if( t.interned() ) return t; // No change to interned already
     // Visited already?
-    if( CVISIT.tset(t._uid) ) {
+    if( CVISIT.tset(ridx(t)) ) {
       // If hash==0, then this is a backedge of a cycle, just return.
       // If dual!=null, then this is an old interned type, just return.
       if( t._hash==0 || t._dual!=null ) return t;
@@ -145,6 +153,21 @@ public interface Cyclic {
     return t;
   }
 
+  // -----------------------------------------------------------------
+  // 1 if a cycle through the not-interned Types from t.  CVISIT is the DFS
+  // stack, CDONE the finished Types, both by REACHABLE index.  The lwalk
+  // reductions start from a seed, so only exactly 1 means a cycle.
+  VBitSet CDONE = new VBitSet();
+  private static long _cycle(Type t) {
+    if( t.interned() ) return 0;
+    int i = ridx(t);
+    if( CDONE.test(i) ) return 0;
+    if( CVISIT.tset(i) ) return 1; // Back on the DFS stack
+    long cyc = t.lwalk((fld,ignore) -> _cycle(fld), (a,b) -> a==1 || b==1 ? 1 : 0);
+    CDONE.set(i);
+    return cyc;
+  }
+
   // -----------------------------------------------------------------
   // Set the cyclic bit on structs in cycles.  Can be handed an arbitrary
   // graph, including a DAG of unrelated Strongly Connected Components.
@@ -157,7 +180,7 @@ public interface Cyclic {
   VBitSet CVISIT = new VBitSet();
   private static void _set_cyclic(Type t ) {
     if( t.dual()!=null ) return; // Already interned
-    if( CVISIT.tset(t._uid) ) { // If visiting again... have found a cycle t->....->t
+    if( CVISIT.tset(ridx(t)) ) { // If visiting again... have found a cycle t->....->t
       // All on the stack are flagged as being part of a cycle
       Type leader = t.cyclic();
       int i=CSTACK._len-1;
@@ -178,25 +201,33 @@ public interface Cyclic {
   // -----------------------------------------------------------------
   // Reachable collection of not-interned Types, plus if also_interned
   // an "edge" of interned Types to help the partition splitter.
+  //
+  // The REACHABLE index is a dense local renumbering, used for all the
+  // per-Type side structures instead of hashing the global _uid.  Types
+  // remember their index in _ridx, which is only valid if it indexes back to
+  // the same Type.
   Ary<Type> REACHABLE = new Ary<>(new Type[1],0);
-  BitSetSparse ON_REACH = new BitSetSparse();
   private static void _reachable(Type head, final boolean also_interned) {
     // Efficient 1-pass linear-time algo: the REACHABLE set keeps growing, and
     // idx points to the next not-scanned-but-reached Type.
     REACHABLE.clear();
-    ON_REACH.clear();
-    REACHABLE.push(head);
-    ON_REACH.tset(head._uid);
+    push_reach(head);
     for( int idx=0; idx < REACHABLE._len; idx++ ) {
       Type t = REACHABLE.at(idx);
       assert t.interned() || t instanceof Cyclic;
       if( !t.interned() && t instanceof Cyclic )
         t.walk((tc,ignore) -> {
-            if( !ON_REACH.tset(tc._uid) && (!tc.interned() || also_interned) )
-              REACHABLE.push(tc);
+            if( ridx(tc)==-1 && (!tc.interned() || also_interned) )
+              push_reach(tc);
           } );
     }
   }
+  private static void push_reach(Type t) { t._ridx = REACHABLE._len; REACHABLE.push(t); }
+  // Index in REACHABLE, or -1
+  static int ridx(Type t) {
+    int i = t._ridx;
+    return i < REACHABLE._len && REACHABLE._es[i]==t ? i : -1;
+  }
 
   // --------------------------------------------------------------------------
   // This is a Type minimization algorithm done "top down" or optimistically.
@@ -207,8 +238,11 @@ public interface Cyclic {
   // Type Partitions based on Click thesis: groups of equivalent Types, that
   // have equal static properties, and equivalent Type edges.
   class Partition implements IntSupplier {
-    // Static NBMHL from Type.uid to Partitions
-    static final NonBlockingHashMapLong<Partition> TYPE2PART = new NonBlockingHashMapLong<>();
+    // Partitions, by REACHABLE index
+    static Partition[] TYPE2PART = new Partition[1];
+    // Touched Types, by REACHABLE index
+    static final VBitSet TOUCHED_TS = new VBitSet();
+    static Partition part(Type t) { int i = ridx(t); return i==-1 ? null : TYPE2PART[i]; }
     // All initial Partitions, in an iterable
     static final Ary<Partition> PARTS = new Ary<>(Partition.class);
 
@@ -220,7 +254,7 @@ public interface Cyclic {
 
     // Reset for another round of minimization
     static void clear() {
-      TYPE2PART.clear(true);
+      Arrays.fill(TYPE2PART,0,Math.min(REACHABLE._len,TYPE2PART.length),null);
       for( Partition P : PARTS )  P.clear0();
       PARTS.clear();            // Does not delete any Parts
     }
@@ -231,8 +265,8 @@ public interface Cyclic {
     @Override public int getAsInt() { return _uid; }
     // All the Types in this partition
     private final Ary<Type> _ts = new Ary<>(new Type[1],0);
-    // All the Type uids, touched in this pass
-    private final BitSetSparse _touched = new BitSetSparse();
+    // Count of Types touched in this pass; the Types are in TOUCHED_TS
+    private int _ntouched;
     // Number of new (not interned) types.
     private int _numnew;
 
@@ -241,7 +275,7 @@ public interface Cyclic {
     private void clear0() {
       _ts.clear();
       _numnew=0;
-      assert _touched.cardinality()==0;
+      assert _ntouched==0;
       _edges.clear(true);
     }
 
@@ -251,7 +285,7 @@ public interface Cyclic {
     void add( Type t) {
       if( t._hash==0 ) _numnew++;
       _ts.add(t);
-      TYPE2PART.put(t._uid,this);
+      TYPE2PART[ridx(t)] = this;
       var edges = DefUse.edges(t);
       if( edges != null )
         for( String s : edges )
@@ -262,7 +296,7 @@ public interface Cyclic {
     Type del(int idx) {
       Type t = _ts.at(idx);
       if( t._hash==0 ) _numnew--;
-      TYPE2PART.remove(t._uid);
+      TYPE2PART[ridx(t)] = null;
       return _ts.del(idx);
     }
     // Get head/slot-0 Type
@@ -275,7 +309,7 @@ public interface Cyclic {
 
     // Get the partition head value for type t, if it exists, or just t
     static Type head(Type t) {
-      Partition P = TYPE2PART.get(t._uid);
+      Partition P = part(t);
       return P==null ? t : P.head();
     }
 
@@ -305,9 +339,10 @@ public interface Cyclic {
           if( tuses!=null ) {
             edge_alive=true;
             for( Type tuse : tuses ) {
-              Partition Puse = TYPE2PART.get(tuse._uid);
-              if( Puse !=null && Puse.len() > 1 ) // Length-1 partitions cannot be split
-                TOUCHED.add(Puse)._touched.tset(tuse._uid);
+              Partition Puse = part(tuse);
+              if( Puse !=null && Puse.len() > 1 && // Length-1 partitions cannot be split
+                  !TOUCHED_TS.tset(ridx(tuse)) )
+                TOUCHED.add(Puse)._ntouched++;
             }
           }
         }
@@ -317,13 +352,15 @@ public interface Cyclic {
 
       Partition Pz;
       while( (Pz=TOUCHED.pop())!=null ) { // For all touched partitions
-        if( Pz._touched.cardinality() < Pz.len() ) { // Touched all members?
+        if( Pz._ntouched < Pz.len() ) { // Touched all members?
           Partition P2 = Pz.split();
           WORK.add(WORK.on(Pz) || Pz.len() > P2.len() ? P2 : Pz);
           if( Pz.len()>1 && Pz._numnew == 0 ) WORK.add(Pz);
           if( P2.len()>1 && P2._numnew == 0 ) WORK.add(P2);
-        }
-        Pz._touched.clear();
+        } else                  // Untouch all
+          for( Type t : Pz._ts )
+            TOUCHED_TS.clear(ridx(t));
+        Pz._ntouched=0;
       }
 
       // See if partition has only interned Types, and has more than one.
@@ -338,13 +375,17 @@ public interface Cyclic {
       }
     }
 
-    // Split a partition in two based on the _touched set.
+    // Split a partition in two based on the touched set.
     Partition split() {
-      assert 1 <= _touched.cardinality() && _touched.cardinality() < _ts._len;
+      assert 1 <= _ntouched && _ntouched < _ts._len;
       Partition P2 = malloc();
-      for( int i=0; i<_ts._len; i++ )
-        if( _touched.tset(_ts.at(i)._uid) ) // Touched; move element
-          P2.add(del(i--));                 // Delete from this, add to P2
+      for( int i=0; i<_ts._len; i++ ) {
+        int ri = ridx(_ts.at(i));
+        if( TOUCHED_TS.test(ri) ) { // Touched; move element
+          TOUCHED_TS.clear(ri);     // and untouch
+          P2.add(del(i--));         // Delete from this, add to P2
+        }
+      }
       assert len() >= 1 && P2.len() >= 1;
       return P2;
     }
@@ -445,55 +486,71 @@ public interface Cyclic {
   // the normal types; requires a side-structure build in a pre-pass.
   // Will be iterating over all (use,edge) pairs from a def.
   class DefUse {
-    static private final NonBlockingHashMapLong<NonBlockingHashMap<String,Ary<Type>>> EDGES = new NonBlockingHashMapLong<>();
-    @SuppressWarnings("unchecked")
-    static private final Ary<NonBlockingHashMap<String,Ary<Type>>> FREES = new Ary(new NonBlockingHashMap[1],0);
-    @SuppressWarnings("unchecked")
-    static private final Ary<Ary<Type>> FREES0 = new Ary(new Ary[1],0);
+    // Per def, by REACHABLE index: the in-edge labels, and the uses per label.
+    // Kept between installs, and reset per use.
+    static private Edges[] EDGES = new Edges[1];
+    static private final class Edges {
+      final Ary<String> _labs = new Ary<>(String.class);
+      @SuppressWarnings("unchecked")
+      Ary<Type>[] _uses = new Ary[1]; // Parallel to _labs; extras are free
+      int find( String e ) {
+        for( int i=0; i<_labs._len; i++ )
+          if( _labs.at(i)==e || _labs.at(i).equals(e) )
+            return i;
+        return -1;
+      }
+      void clear() {
+        for( int i=0; i<_labs._len; i++ ) _uses[i].clear();
+        _labs.clear();
+      }
+    }
+
+    // Size and reset for the REACHABLE Types
+    static void init() {
+      int len = REACHABLE._len;
+      if( EDGES.length < len ) EDGES = Arrays.copyOf(EDGES,Math.max(len,EDGES.length<<1));
+      for( int i=0; i<len; i++ )
+        if( EDGES[i]==null ) EDGES[i] = new Edges();
+        else EDGES[i].clear();
+    }
 
-    // use[edge]-->>def;
+    // use[edge]-->>def; defs past the interned edge are never partitioned
     static void add_def_use(Type use, String edge, Type def ) {
-      var edges = EDGES.get(def._uid);
-      if( edges==null )
-        EDGES.put(def._uid,edges = malloc());
-      var uses = edges.get(edge);
-      if( uses==null ) edges.put(edge,uses = malloc0());
-      uses.push(use);
+      int ri = ridx(def);
+      if( ri==-1 ) return;
+      Edges edges = EDGES[ri];
+      int i = edges.find(edge);
+      if( i==-1 ) {
+        i = edges._labs._len;
+        edges._labs.push(edge);
+        if( i==edges._uses.length ) edges._uses = Arrays.copyOf(edges._uses,i<<1);
+        if( edges._uses[i]==null ) edges._uses[i] = new Ary<>(Type.class);
+      }
+      edges._uses[i].push(use);
     }
 
     // Get an iterator for all the uses of a def with edge e
     static Ary<Type> uses( String e, Type def ) {
-      var edges = EDGES.get(def._uid);
-      return edges==null ? null : edges.get(e);
+      Edges edges = EDGES[ridx(def)];
+      int i = edges.find(e);
+      return i==-1 ? null : edges._uses[i];
     }
 
     // Get the set of edge labels leading to a def
-    static Set<String> edges( Type def ) {
-      var edges = EDGES.get(def._uid);
-      return edges==null ? null : edges.keySet();
-    }
-
-    static private NonBlockingHashMap<String,Ary<Type>> malloc() {
-      return FREES.isEmpty() ? new NonBlockingHashMap<>() : FREES.pop();
-    }
-    static private Ary<Type> malloc0() {
-      return FREES0.isEmpty() ? new Ary<>(Type.class) : FREES0.pop();
-    }
-
-    // Free all use/def edge sets
-    static void clear() {
-      for( var edges : EDGES.values() ) {
-        for( var uses : edges.values() )
-          FREES0.push(uses).clear();
-        FREES.push(edges).clear();
-      }
-      EDGES.clear();
+    static Ary<String> edges( Type def ) {
+      Edges edges = EDGES[ridx(def)];
+      return edges._labs._len==0 ? null : edges._labs;
     }
   }
 
 
   @SuppressWarnings("unchecked")
   private static <T extends Type> T _dfa_min(T nt, Map<String,Type> map) {
+    // Size the dense side structures
+    DefUse.init();
+    if( Partition.TYPE2PART.length < REACHABLE._len )
+      Partition.TYPE2PART = new Partition[Math.max(REACHABLE._len,Partition.TYPE2PART.length<<1)];
+
     // Walk the reachable set and all forward edges, building a reverse-edge set.
     for( Type t : REACHABLE )  {
       assert (t._hash==0) == (t.dual()==null);  // Invariant: not-interned has no hash
@@ -522,7 +579,7 @@ public interface Cyclic {
     // Update an unrelated mapping of types to their partition heads
     if( map!=null )
       map.replaceAll((k,v) -> {
-          Partition P = Partition.TYPE2PART.get(v._uid);
+          Partition P = Partition.part(v);
           return P==null ? v : P.head();
         });
 
@@ -534,10 +591,9 @@ public interface Cyclic {
 
     // Return the input types Partition head
     // Reset statics for the next call.
-    T rez = (T)Partition.TYPE2PART.get(nt._uid).head();
+    T rez = (T)Partition.part(nt).head();
     Partition.clear();
     SType.clear();
-    DefUse.clear();
     assert WORK.isEmpty();
     return rez;
   }
@@ -547,10 +603,10 @@ public interface Cyclic {
     int err=0;
     for( int i=0; i<REACHABLE._len; i++ ) {
       Type t1 = REACHABLE.at(i);
-      Partition p1 = Partition.TYPE2PART.get(t1._uid);
+      Partition p1 = Partition.part(t1);
       for( int j=i+1; j<REACHABLE._len; j++ ) {
         Type t2 = REACHABLE.at(j);
-        Partition p2 = Partition.TYPE2PART.get(t2._uid);
+        Partition p2 = Partition.part(t2);
         if( p1!=p2 && t1.cycle_equals(t2) )
           System.err.println("Err "+(err++)+" T"+t1._uid+p1+" != T"+t2._uid+p2);
       }
@@ -613,6 +669,7 @@ public interface Cyclic {
   class Prof {
     long cnt=0, time=0;
     int hit;                    // Hit on prior cycle type
+    int acyclic;                // Took the acyclic fast path
     int clarge_sum=0, clarge_cnt=0; int [] chisto = new int[ 32];
     int ilarge_sum=0, ilarge_cnt=0; int [] ihisto = new int[ 32];
     int rlarge_sum=0, rlarge_cnt=0; int [] rhisto = new int[128];
@@ -635,6 +692,7 @@ public interface Cyclic {
       SB sb = new SB();
       sb.p("Prof DFA; ");
       sb.p("Avg time ").p((double)time/cnt).p("msec").nl();
+      sb.p("Acyclic fast path ").p(acyclic).p(" of ").p(cnt).nl();
       sb.p("Cyclic, #large:").p(clarge_cnt).p(" ");
       for( int i=0; i<chisto.length; i++ )
         if( chisto[i]!=0 )
@@ -0,0 +1,239 @@
+package com.cliffc.aa.type;
+
+import com.cliffc.aa.util.*;
+
+import java.util.function.UnaryOperator;
+
+// Persistent radix trie from alias# to TypeStruct; the backing store for
+// TypeMem.  Nodes are W wide and hash-consed, so equal sub-tries are the same
+// object and trie equals is pointer equality on the root.  An all-null
+// sub-trie is always null.  A trie holding 'len' slots has the least depth
+// covering 'len'; all slots at or past 'len' are null.
+//
+// Updates path-copy: writing k sorted slots copies only the nodes on their
+// paths, O(k*log(len)), and shares everything else.  Nodes are made
+// un-interned, and intern with their TypeMem; so temporary memories, and
+// the partial tries made along the way, leave nothing in the table.
+final class MemTrie {
+  static final int LOG=5, W=1<<LOG, MSK=W-1;
+
+  final Object[] _es;           // TypeStruct at the leaves, MemTrie above
+  final int _hash;
+  private boolean _interned;    // In INTERN, and so are all its kids
+  private MemTrie(Object[] es, int hash) { _es=es; _hash=hash; }
+
+  @Override public int hashCode() { return _hash; }
+  // Pointer-equality per element, like AryI
+  @Override public boolean equals(Object o) {
+    if( this==o ) return true;
+    if( !(o instanceof MemTrie t) ) return false;
+    if( _hash!=t._hash ) return false;
+    for( int i=0; i<W; i++ )
+      if( _es[i]!=t._es[i] )
+        return false;
+    return true;
+  }
+
+  private static final IHashMap INTERN = new IHashMap();
+
+  // A new, un-interned node; null if all null.  'es' is not used again by
+  // the caller.
+  private static MemTrie make(Object[] es) {
+    int hash=0;
+    boolean any=false;
+    for( Object e : es ) {
+      int h = 0;
+      if( e!=null ) { any=true; h = e instanceof Type t ? Long.hashCode(t._hash) : ((MemTrie)e)._hash; }
+      hash = hash*31+h;
+    }
+    return any ? new MemTrie(es,hash) : null;
+  }
+  // Same elements as 't'
+  private static boolean same(MemTrie t, Object[] es) {
+    if( t==null ) return false;
+    for( int i=0; i<W; i++ )
+      if( t._es[i]!=es[i] )
+        return false;
+    return true;
+  }
+
+  // Intern bottom-up.  Kids are swapped in place for their interned equals:
+  // same elements and hash, so any other holder of the node sees no change.
+  static MemTrie intern(MemTrie t) {
+    if( t==null || t._interned ) return t;
+    for( int i=0; i<W; i++ )
+      if( t._es[i] instanceof MemTrie k )
+        t._es[i] = intern(k);
+    MemTrie t2 = INTERN.get(t);
+    if( t2!=null ) return t2;
+    t._interned = true;
+    return INTERN.put(t);
+  }
+
+  // Levels needed to hold 'len' slots, at least 1
+  static int depth(int len) {
+    int d=1;
+    for( long cap=W; cap<len; cap<<=LOG ) d++;
+    return d;
+  }
+
+  // Build from a dense array
+  static MemTrie make(TypeStruct[] ts) { return _make(ts,depth(ts.length),0); }
+  private static MemTrie _make(TypeStruct[] ts, int depth, int base) {
+    if( base>=ts.length ) return null;
+    Object[] es = new Object[W];
+    if( depth==1 ) System.arraycopy(ts,base,es,0,Math.min(W,ts.length-base));
+    else {
+      int shift = (depth-1)*LOG;
+      for( int i=0; i<W; i++ )
+        es[i] = _make(ts,depth-1,base+(i<<shift));
+    }
+    return make(es);
+  }
+
+  // Slot i, or null
+  static TypeStruct get(MemTrie root, int len, int i) {
+    if( i>=len ) return null;
+    MemTrie t = root;
+    for( int shift=(depth(len)-1)*LOG; shift>0; shift-=LOG ) {
+      t = (MemTrie)t._es[(i>>shift)&MSK];
+      if( t==null ) return null;
+    }
+    return (TypeStruct)t._es[i&MSK];
+  }
+
+  // Dense copy
+  static TypeStruct[] flatten(MemTrie root, int len) {
+    TypeStruct[] ts = new TypeStruct[len];
+    _flatten(root,depth(len),0,ts);
+    return ts;
+  }
+  private static void _flatten(MemTrie t, int depth, int base, TypeStruct[] ts) {
+    if( t==null || base>=ts.length ) return;
+    if( depth==1 ) { System.arraycopy(t._es,0,ts,base,Math.min(W,ts.length-base)); return; }
+    int shift = (depth-1)*LOG;
+    for( int i=0; i<W; i++ )
+      _flatten((MemTrie)t._es[i],depth-1,base+(i<<shift),ts);
+  }
+
+  // Write the sorted, unique slots idxs[0..n) with vals, growing the length
+  // from len0 to len1.  All idxs are below len1.
+  static MemTrie set(MemTrie root, int len0, int len1, int[] idxs, TypeStruct[] vals, int n) {
+    assert len0<=len1 && (n==0 || idxs[n-1]<len1);
+    int d1 = depth(len1);
+    return _set(deepen(root,depth(len0),d1),d1,0,idxs,vals,0,n);
+  }
+  // Grow from depth d0 to d1: the old root becomes the first kid
+  private static MemTrie deepen(MemTrie root, int d0, int d1) {
+    for( ; d0<d1; d0++ ) {
+      Object[] es = new Object[W];
+      es[0] = root;
+      root = make(es);
+    }
+    return root;
+  }
+  // Shrink the length from len0 to len1; all slots at or past len1 are null
+  static MemTrie trim(MemTrie root, int len0, int len1) {
+    for( int d0=depth(len0), d1=depth(len1); d0>d1; d0-- )
+      root = (MemTrie)root._es[0]; // The first kid becomes the root
+    return root;
+  }
+  private static MemTrie _set(MemTrie t, int depth, int base, int[] idxs, TypeStruct[] vals, int lo, int hi) {
+    Object[] es = t==null ? new Object[W] : t._es.clone();
+    if( depth==1 ) {
+      for( int i=lo; i<hi; i++ ) es[idxs[i]-base] = vals[i];
+    } else {
+      int shift = (depth-1)*LOG;
+      for( int i=lo; i<hi; ) {
+        int x = (idxs[i]-base)>>shift, j=i;
+        while( j<hi && ((idxs[j]-base)>>shift)==x ) j++;
+        es[x] = _set((MemTrie)es[x],depth-1,base+(x<<shift),idxs,vals,i,j);
+        i=j;
+      }
+    }
+    return make(es);
+  }
+
+  // Apply 'f' to every slot at or past 'lo', pushing on 'changed' (if not
+  // null) the slots it changes.  Null slots stay null; sub-tries with no
+  // change are shared.
+  static MemTrie map(MemTrie root, int len, int lo, UnaryOperator<TypeStruct> f, AryInt changed) {
+    return _map(root,depth(len),0,lo,f,changed);
+  }
+  private static MemTrie _map(MemTrie t, int depth, int base, int lo, UnaryOperator<TypeStruct> f, AryInt changed) {
+    if( t==null ) return null;
+    int shift = (depth-1)*LOG;
+    if( base+(1L<<(shift+LOG)) <= lo ) return t;
+    Object[] es = t._es.clone();
+    for( int i=0; i<W; i++ ) {
+      if( es[i]==null ) continue;
+      if( depth>1 ) es[i] = _map((MemTrie)es[i],depth-1,base+(i<<shift),lo,f,changed);
+      else if( base+i >= lo && (es[i] = f.apply((TypeStruct)es[i]))!=t._es[i] && changed!=null )
+        changed.push(base+i);
+    }
+    return same(t,es) ? t : make(es);
+  }
+
+  // Slot 'i' of a combine, see zip
+  interface SlotFn { TypeStruct at(int i); }
+  // Combine 'a' and 'b', of alen and blen slots, into max(alen,blen) slots.
+  // Below both lengths, a slot null in both stays null, and a slot equal in
+  // both keeps its value - so 'f' must be idempotent, like meet - and whole
+  // sub-tries shared by both are kept.  Every other slot is f(i).  Pushes on
+  // 'changed' the slots differing from 'a'.
+  static MemTrie zip(MemTrie a, int alen, MemTrie b, int blen, SlotFn f, AryInt changed) {
+    int len = Math.max(alen,blen), d = depth(len);
+    return _zip(deepen(a,depth(alen),d),deepen(b,depth(blen),d),d,0,len,Math.min(alen,blen),f,changed);
+  }
+  private static MemTrie _zip(MemTrie a, MemTrie b, int depth, int base, int len, int mlen, SlotFn f, AryInt changed) {
+    if( base>=len ) return null;
+    int shift = (depth-1)*LOG;
+    if( a==b && base+(1L<<(shift+LOG)) <= mlen ) return a; // Shared, or both null
+    Object[] es = new Object[W];
+    for( int i=0; i<W; i++ ) {
+      Object ea = a==null ? null : a._es[i], eb = b==null ? null : b._es[i];
+      if( depth>1 ) { es[i] = _zip((MemTrie)ea,(MemTrie)eb,depth-1,base+(i<<shift),len,mlen,f,changed); continue; }
+      int x = base+i;
+      if( x>=len ) break;
+      es[i] = x<mlen && ea==eb ? ea : f.at(x);
+      if( es[i]!=ea ) changed.push(x);
+    }
+    return same(a,es) ? a : make(es);
+  }
+
+  // Highest non-null slot, or -1.  Skips null sub-tries.
+  static int last(MemTrie root, int len) { return _last(root,depth(len),0); }
+  private static int _last(MemTrie t, int depth, int base) {
+    if( t==null ) return -1;
+    int shift = (depth-1)*LOG;
+    for( int i=MSK; i>=0; i-- )
+      if( t._es[i]!=null )
+        return depth==1 ? base+i : _last((MemTrie)t._es[i],depth-1,base+(i<<shift));
+    return -1;
+  }
+
+  // Push all leaf TypeStructs
+  void _reachable( Ary<Type> work ) {
+    for( Object e : _es )
+      if( e instanceof MemTrie t ) t._reachable(work);
+      else if( e!=null ) work.push((Type)e);
+  }
+
+  // Drop interned nodes holding any Type not live.  Rebuilds, as removed keys
+  // linger in the table.
+  static void reclaim(VBitSet live) {
+    Ary<MemTrie> keep = new Ary<>(MemTrie.class);
+    for( Object o : INTERN.keySet() )
+      if( ((MemTrie)o).all_live(live) )
+        keep.push((MemTrie)o);
+    for( Object o : INTERN.keySet() ) ((MemTrie)o)._interned = false;
+    INTERN.clear();
+    for( MemTrie t : keep ) { t._interned = true; INTERN.put(t); }
+  }
+  private boolean all_live(VBitSet live) {
+    for( Object e : _es )
+      if( e instanceof MemTrie t ? !t.all_live(live) : e!=null && !live.test(((Type)e)._uid) )
+        return false;
+    return true;
+  }
+}
@@ -100,6 +100,7 @@ public class Type<T extends Type<T>> implements Cloneable, IntSupplier {
   public byte _type;            // Simple types use a simple enum
   private Type _cyclic;  // Type is cyclic, and this is the canonical cycle leader.
   T _dual; // All types support a dual notion, eagerly computed and cached here
+  int _ridx; // Scratch for Cyclic.install: index in Cyclic.REACHABLE, if there
 
   private static int _uid() { return CNT++; }
   @Override public int getAsInt() { return _uid; }
@@ -355,6 +356,52 @@ public class Type<T extends Type<T>> implements Cloneable, IntSupplier {
     return null;
   }
 
+  // ----------------------------------------------------------
+  // Reclaimable interning, on with -Dreclaim_types.  Otherwise INTERN keeps
+  // every Type ever made.  intern_init0 records the Types interned by the
+  // primitives; between compiles, reclaim drops from INTERN every other Type
+  // not reachable from the roots, and returns them to their Pool.  Nothing is
+  // reclaimed mid-compile so pointer-equality holds there, but Types kept from
+  // a prior compile are invalid after a reclaim.
+  public static final boolean RECLAIM = Boolean.getBoolean("reclaim_types");
+  private static final VBitSet INIT0 = new VBitSet();
+  public static void intern_init0() {
+    // Initialize every Type class, so their statics intern before the
+    // snapshot.  A class literal alone does not run the static initializer.
+    for( Class<?> clz : new Class<?>[]{TypeNil.class,TypeAry.class,TypeInt.class,TypeFlt.class,TypeMemPtr.class,TypeFunPtr.class,
+                                       TypeRPC.class,TypeMem.class,TypeStruct.class,TypeTuple.class,TypeUnion.class} )
+      try { Class.forName(clz.getName(),true,clz.getClassLoader()); }
+      catch( ClassNotFoundException e ) { throw new IllegalStateException(e); }
+    for( Type t : INTERN.keySet() ) INIT0.set(t._uid);
+  }
+  // Reclaim interned Types not reachable from the primitives or the roots.
+  // Returns the count reclaimed.
+  public static int reclaim( Ary<Type> roots ) {
+    Key.clear();                // Meet cache holds Types by identity
+    TypeMem.sharp_cache_clear();
+    VBitSet live = (VBitSet)INIT0.clone();
+    while( !roots.isEmpty() ) {
+      Type t = roots.pop();
+      if( t==null || live.tset(t._uid) ) continue;
+      roots.push(t._dual);
+      t._reachable(roots);
+    }
+    Types   .reclaim(live);
+    TypeFlds.reclaim(live);
+    TypeMem .reclaim(live);
+    // Rebuild rather than remove: removed keys linger in the table, and
+    // would alias the same objects recycled as new Types.
+    Ary<Type> keep = new Ary<>(Type.class), dead = new Ary<>(Type.class);
+    for( Type t : INTERN.keySet() )
+      (live.test(t._uid) ? keep : dead).push(t);
+    INTERN.clear();
+    for( Type t : keep ) INTERN.put(t,t);
+    for( Type t : dead ) POOLS[t._type].reclaim(t);
+    return dead._len;
+  }
+  // Push all child Types
+  void _reachable( Ary<Type> work ) {/*No outgoing fields*/}
+
   // ----------------------------------------------------------
   // Simple types are implemented fully here.  "Simple" means: the code and
   // type hierarchy are simple, not that the Type is conceptually simple.
@@ -432,6 +479,13 @@ public class Type<T extends Type<T>> implements Cloneable, IntSupplier {
       assert _frees._len<1000; // Basically asserting we get Types from Pool.malloc and not by normal allocation
       return t2;
     }
+    // Reclaimed from INTERN; keep a few for reuse, the rest go to the GC
+    void reclaim(Type t) {
+      t._dual = null;
+      t._hash = t._cyc_hash = 0;
+      t._cyclic = null;
+      if( _frees._len < 500 ) _frees.push(t);
+    }
   }
 
   // All the simple type pools
@@ -476,30 +530,45 @@ public class Type<T extends Type<T>> implements Cloneable, IntSupplier {
   void rdual() { assert _dual!=null; }
 
   // ----------------------------------------------------------
-  // Memoize meet results
-  private static class Key {
-    static Key K = new Key(null,null);
-    static NonBlockingHashMap<Key,Type> INTERN_MEET = new NonBlockingHashMap<>();
-    Key(Type a, Type b) { _a=a; _b=b; }
-    Type _a, _b;
-    @Override public int hashCode() {
-      long hash = (Util.rot(_a._hash,15)^_b._hash);
-      return (int)((hash>>32)^hash);
+  // Memoize meet results.  A bounded 2-way set-associative cache on the
+  // identity of the (interned) pair; each set replaces its least-recently hit
+  // way.  Meet is a pure function, so an evicted pair is just recomputed.
+  // Size is 2^meet_cache_log sets, from -Dmeet_cache_log.
+  public static long MEET_HITS, MEET_MISSES, MEET_EVICTS;
+  private static abstract class Key {
+    static final int LOG = Integer.getInteger("meet_cache_log",13);
+    static final int MASK = (1<<LOG)-1;
+    static final Type[] AS  = new Type[2<<LOG]; // Way 0 at even index, way 1 at odd
+    static final Type[] BS  = new Type[2<<LOG];
+    static final Type[] MTS = new Type[2<<LOG];
+    static final byte[] LRU = new byte[1<<LOG]; // Way to replace next, per set
+    static int set(Type a, Type b) {
+      long hash = (Util.rot(a._hash,15)^b._hash);
+      int h = (int)((hash>>32)^hash);
+      return (h^(h>>>LOG)^(h>>>(LOG<<1)))&MASK;
     }
-    @Override public boolean equals(Object o) { return _a==((Key)o)._a && _b==((Key)o)._b; }
-    @Override public String toString() { return "("+_a+","+_b+")"; }
     static Type get(Type a, Type b) {
-      K._a=a;
-      K._b=b;
-      //Util.reprobe_quality_check_per(INTERN_MEET,"INTERN_MEET");
-      return INTERN_MEET.get(K);
+      int s = set(a,b), i = s<<1;
+      if( AS[i  ]==a && BS[i  ]==b ) { LRU[s]=1; MEET_HITS++; return MTS[i  ]; }
+      if( AS[i+1]==a && BS[i+1]==b ) { LRU[s]=0; MEET_HITS++; return MTS[i+1]; }
+      MEET_MISSES++;
+      return null;
     }
     static void put(Type a, Type b, Type mt) {
-      INTERN_MEET.put(new Key(a,b),mt);
-      // Uncomment to check hash quality.
-      //Util.hash_quality_check_per(INTERN_MEET,"INTERN_MEET");
+      int s = set(a,b), w = LRU[s], i = (s<<1)+w;
+      if( AS[i]!=null ) MEET_EVICTS++;
+      AS[i]=a;  BS[i]=b;  MTS[i]=mt;
+      LRU[s] = (byte)(w^1);
+    }
+    static void clear() {
+      java.util.Arrays.fill(AS ,null);
+      java.util.Arrays.fill(BS ,null);
+      java.util.Arrays.fill(MTS,null);
+      java.util.Arrays.fill(LRU,(byte)0);
     }
   }
+  // Drop all memoized meets, e.g. between compilations
+  public static void meet_cache_clear() { Key.clear(); }
 
   // Compute the meet
   public final Type meet( Type t ) {
@@ -27,6 +27,7 @@ public class TypeAry extends Type<TypeAry> implements Cyclic {
   @Override public long lwalk( LongStringFunc map, LongOp reduce ) { return map.run(_elem,"elem"); }
   @Override public void walk( TypeStrRun map ) { map.run(_elem,"elem"); }
   @Override public void walk_update( TypeMap map ) { throw unimpl(); }
+  @Override void _reachable( Ary<Type> work ) { work.push(_len); work.push(_elem); work.push(_stor); }
   @Override public Cyclic.Link _path_diff0(Type t, NonBlockingHashMapLong<Link> links) { throw unimpl(); }
 
   @Override long static_hash() { return Util.mix_hash(super.static_hash(),_len._hash,_elem._type,_stor._type); }
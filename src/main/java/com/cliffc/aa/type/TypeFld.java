@@ -1,5 +1,6 @@
 package com.cliffc.aa.type;
 
+import com.cliffc.aa.util.Ary;
 import com.cliffc.aa.util.NonBlockingHashMapLong;
 import com.cliffc.aa.util.SB;
 import com.cliffc.aa.util.Util;
@@ -32,6 +33,7 @@ public class TypeFld extends Type<TypeFld> implements Cyclic {
   @Override public long lwalk( LongStringFunc map, LongOp reduce ) { return map.run(_t,"t"); }
   @Override public void walk( TypeStrRun map ) { map.run(_t,"t"); }
   @Override public void walk_update( TypeMap map ) { _t = map.map(_t); }
+  @Override void _reachable( Ary<Type> work ) { work.push(_t); }
   @Override public Cyclic.Link _path_diff0(Type t, NonBlockingHashMapLong<Link> links) {
     return Cyclic._path_diff(_t,((TypeFld)t)._t,links);
   }
@@ -19,6 +19,7 @@ public class TypeFlds extends AryI<TypeFld> {
   public static TypeFld[] get(int len) { return TYPEFLDS._get(len); }
   public static boolean   interned (TypeFld[] ts) { return TYPEFLDS._interned (ts); }
   public static void free(TypeFld[] ts) { TYPEFLDS._free(ts); }
+  static void reclaim(VBitSet live) { TYPEFLDS._reclaim(live); }
   public static TypeFld[] make(TypeFld t0) { return hash_cons(TYPEFLDS._ts(t0)); }
   public static TypeFld[] make(TypeFld t0, TypeFld t1) { return hash_cons(TYPEFLDS._ts(t0,t1)); }
   public static TypeFld[] clone(TypeFld[] ts) { return TYPEFLDS._clone(ts); }
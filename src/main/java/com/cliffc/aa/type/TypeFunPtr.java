@@ -66,6 +66,7 @@ public final class TypeFunPtr extends TypeNil<TypeFunPtr> implements Cyclic {
   @Override public long lwalk( LongStringFunc map, LongOp reduce ) { return reduce.run(map.run(_dsp,"dsp"), map.run(_ret,"ret")); }
   @Override public void walk( TypeStrRun map ) { map.run(_dsp,"dsp"); map.run(_ret,"ret"); }
   @Override public void walk_update( TypeMap map ) { _dsp = map.map(_dsp); _ret = map.map(_ret); }
+  @Override void _reachable( Ary<Type> work ) { work.push(_dsp); work.push(_ret); }
   @Override public Cyclic.Link _path_diff0(Type t, NonBlockingHashMapLong<Link> links) {
     TypeFunPtr tfp = (TypeFunPtr)t;
     Cyclic.Link dsplk = Cyclic._path_diff(_dsp,tfp._dsp,links);
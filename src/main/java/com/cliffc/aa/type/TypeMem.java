@@ -5,6 +5,7 @@ import com.cliffc.aa.util.*;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.function.UnaryOperator;
 
 import static com.cliffc.aa.AA.unimpl;
 import static com.cliffc.aa.type.TypeFld.Access;
@@ -55,8 +56,11 @@ public class TypeMem extends Type<TypeMem> {
   // Mapping from alias#s to the current known alias state.  Slot#0 is reserved
   // for memory liveness; TypeMem is never a nil.  Slot#1 is the Parent-Of-All
   // aliases and is the default value.  Default values are replaced with null
-  // during canonicalization.
-  private TypeStruct[] _pubs;
+  // during canonicalization.  Kept as a hash-consed persistent trie of _len
+  // slots (see MemTrie); equal memories share the same root, and single alias
+  // updates copy just the path to that alias.
+  private MemTrie _root;
+  private int _len;
 
   // A cache of sharpened pointers.  Pointers get sharpened by looking up their
   // aliases in this memory (perhaps merging several aliases).  The process is
@@ -68,7 +72,15 @@ public class TypeMem extends Type<TypeMem> {
   private TypeMem init(TypeStruct[] pubs) {
     super.init();
     assert check(pubs);    // Caller has canonicalized arrays already
-    _pubs = pubs;
+    _root = MemTrie.make(pubs);
+    _len = pubs.length;
+    return this;
+  }
+  private TypeMem init(MemTrie root, int len) {
+    super.init();
+    _root = root;
+    _len = len;
+    assert check(pubs());       // Caller has canonicalized already
     return this;
   }
   // False if not 'tight' (no trailing null pairs) or any matching pairs (should
@@ -96,27 +108,30 @@ public class TypeMem extends Type<TypeMem> {
 
   // ----------
   @Override long compute_hash() {
-    Util.add_hash(super.static_hash() ^ ((long) _pubs.length <<2));
-    for( TypeStruct ts : _pubs )
-      if( ts!=null )
-        Util.add_hash(ts._hash);
+    Util.add_hash(super.static_hash() ^ ((long) _len <<2));
+    Util.add_hash(_root._hash);
     return Util.get_hash();
   }
+  @Override void _reachable( Ary<Type> work ) { _root._reachable(work); }
+  // The trie interns along with this memory, so equals can compare roots
+  @Override TypeMem hashcons() {
+    _root = MemTrie.intern(_root);
+    return super.hashcons();
+  }
+  // Drop trie nodes holding dead Types; see Type.reclaim
+  static void reclaim(VBitSet live) { MemTrie.reclaim(live); }
 
   @Override public boolean equals( Object o ) {
     if( this==o ) return true;
     if( !(o instanceof TypeMem tf) ) return false;
-    if( _pubs .length != tf._pubs .length ) return false;
-    for( int i = 0; i< _pubs.length; i++ )
-      if( _pubs[i] != tf._pubs[i] ) // note '==' and NOT '.equals()'
-        return false;
-    return true;
+    // Tries are hash-consed, so equal slots (by '==') share the root
+    return _len==tf._len && _root==tf._root;
   }
   // Never part of a cycle, so the normal check works
   @Override public boolean cycle_equals( Type o ) { return equals(o); }
 
   @Override void _str_dups( VBitSet visit, NonBlockingHashMapLong<String> dups, UCnt ucnt ) {
-    for( TypeStruct ts : _pubs )
+    for( TypeStruct ts : pubs() )
       if( ts!=null )
         ts._str_dups(visit,dups,ucnt);
   }
@@ -125,18 +140,19 @@ public class TypeMem extends Type<TypeMem> {
     if( this==ALLMEM  ) return sb.p("[[_all_]]");
     if( this==ANYMEM  ) return sb.p("[[_any_]]");
 
-    if( _pubs.length==1 )
-      return _pubs[0]._str(visit,dups, sb.p("[["), debug, indent).p("]]");
+    TypeStruct[] pubs = pubs();
+    if( pubs.length==1 )
+      return pubs[0]._str(visit,dups, sb.p("[["), debug, indent).p("]]");
 
-    if( _pubs[0]==TypeStruct.UNUSED ) sb.p('!');
-    else _pubs[0]._str(visit,dups,sb,debug, indent);
+    if( pubs[0]==TypeStruct.UNUSED ) sb.p('!');
+    else pubs[0]._str(visit,dups,sb,debug, indent);
 
     sb.p("[[");
     if( indent ) sb.ii(1).nl(); // Indent memory
-    for( int i = 1; i< _pubs.length; i++ )
-      if( _pubs[i] != null ) {
+    for( int i = 1; i< pubs.length; i++ )
+      if( pubs[i] != null ) {
         if( indent ) sb.i();
-        _pubs[i]._str(visit,dups, sb.p(i).p(':'), debug, indent).p(",");
+        pubs[i]._str(visit,dups, sb.p(i).p(':'), debug, indent).p(",");
         if( indent ) sb.nl();
       }
     if( indent ) sb.di(1).i();
@@ -152,7 +168,16 @@ public class TypeMem extends Type<TypeMem> {
   }
   
   // Alias-at.  Out of bounds or null uses the parent value.
-  public TypeStruct at(int alias) { return at(_pubs ,alias); }
+  public TypeStruct at(int alias) {
+    if( _len==1 ) return slot(0).oob(TypeStruct.ISUSED);
+    if( alias==0 ) return slot(1);
+    TypeStruct ts;
+    while( (ts=slot(alias))==null ) {
+      alias = BitsAlias.TREE.parent(alias);
+      assert alias!=0;
+    }
+    return ts;
+  }
   static TypeStruct at(TypeStruct[] tos, int alias) { return tos.length==1 ? tos[0].oob(TypeStruct.ISUSED): tos[at_idx(tos,alias)]; }
   // Alias-at index
   static int at_idx(TypeStruct[]tos, int alias) {
@@ -164,9 +189,11 @@ public class TypeMem extends Type<TypeMem> {
       assert alias!=0;
     }
   }
-  //
-  public TypeStruct[] alias2objs() { return _pubs; }
-  public int len() { return _pubs.length; }
+  // The raw slot; null if missing (so the parent's value) or out of bounds
+  public TypeStruct slot(int alias) { return MemTrie.get(_root,_len,alias); }
+  // Dense copy of all slots
+  private TypeStruct[] pubs() { return MemTrie.flatten(_root,_len); }
+  public int len() { return _len; }
 
   static { new Pool(TMEM,new TypeMem()); }
   private static TypeMem make(TypeStruct[] pubs) {
@@ -226,7 +253,7 @@ public class TypeMem extends Type<TypeMem> {
   }
   // Set 'alias' to 'oop', and all parent aliases to unused in this memory.
   public TypeMem make_from_unused(int alias, TypeStruct oop) {
-    TypeStruct[] as = Arrays.copyOf(_pubs,Math.max(_pubs.length,alias+1));
+    TypeStruct[] as = Arrays.copyOf(pubs(),Math.max(_len,alias+1));
     as[0] = null;
     as[alias] = oop;
     for( int par = BitsAlias.TREE.parent(alias); par!=1; par = BitsAlias.TREE.parent(par) )
@@ -246,20 +273,27 @@ public class TypeMem extends Type<TypeMem> {
   }
   static final TypeMem[] TYPES = new TypeMem[]{ALLMEM};
 
-  // All mapped memories remain, but each memory flips internally.
+  // All mapped memories remain, but each memory flips internally.  Slot for
+  // slot, so the trie keeps its shape.  Interned here, as hashcons puts the
+  // dual in the table directly.
   @Override protected TypeMem xdual() {
-    TypeStruct[] pubs = new TypeStruct[_pubs.length];
-    for( int i = 0; i< _pubs.length; i++ )
-      if( _pubs[i] != null )
-        pubs[i] = _pubs[i].dual();
-    return POOLS[TMEM].<TypeMem>malloc().init(pubs);
+    MemTrie root = MemTrie.map(_root,_len,0,TypeStruct::dual,null);
+    return POOLS[TMEM].<TypeMem>malloc().init(MemTrie.intern(root),_len);
   }
   @Override protected Type xmeet( Type t ) {
     TypeMem tf = (TypeMem)t;
-    // Meet of default values, meet of element-by-element.
-    TypeStruct[] as = _meet(_pubs,tf._pubs,false);
-    TypeStruct[] tos = _make1(as);
-    return tos==null ? ALLMEM : make(tos); // All things are dead, so dead
+    if( _len==1 || tf._len==1 ) { // Short memories
+      // Meet of default values, meet of element-by-element.
+      TypeStruct[] as = _meet(pubs(),tf.pubs(),false);
+      TypeStruct[] tos = _make1(as);
+      return tos==null ? ALLMEM : make(tos); // All things are dead, so dead
+    }
+    // Element-by-element on the tries; sub-tries shared by both meet to
+    // themselves.  Then re-canonicalize around the slots that changed.
+    TypeStruct mt_live = (TypeStruct)slot(0).meet(tf.slot(0));
+    AryInt changed = new AryInt();
+    MemTrie root = MemTrie.zip(_root,_len,tf._root,tf._len, i -> i==0 ? mt_live : _meet(at(i),tf.at(i),false), changed);
+    return canon(root,Math.max(_len,tf._len),changed);
   }
 
   private static TypeStruct[] _meet(TypeStruct[] as, TypeStruct[] bs, boolean is_loop) {
@@ -300,16 +334,16 @@ public class TypeMem extends Type<TypeMem> {
       return ptr._obj.oob(TypeStruct.ISUSED);
     if( this==ALLMEM ) return TypeStruct.ISUSED;
     if( this==ANYMEM ) return TypeStruct.UNUSED;
-    return ld(_pubs,ptr._aliases);
+    return ld(ptr._aliases);
   }
-  private static TypeStruct ld( TypeStruct[] tos, BitsAlias aliases ) {
+  private TypeStruct ld( BitsAlias aliases ) {
     boolean any = aliases.above_center();
     // Any alias, plus all of its children, are meet/joined.  This does a
     // tree-based scan on the inner loop.
     TypeStruct obj1 = any ? TypeStruct.ISUSED : TypeStruct.UNUSED;
     for( int alias : aliases )
       for( int kid=alias; kid!=0; kid=BitsAlias.next_kid(alias,kid) ) {
-        TypeStruct x = at(tos,kid);
+        TypeStruct x = at(kid);
         obj1 = (TypeStruct)(any ? obj1.join(x) : obj1.meet(x));
       }
     return obj1;
@@ -355,7 +389,7 @@ public class TypeMem extends Type<TypeMem> {
   // Slice memory by aliases; unnamed aliases are replaced with ~use.
   public TypeMem slice_reaching_aliases(BitsAlias aliases) {
     if( aliases==BitsAlias.NALL ) return this;
-    TypeStruct[] tos = new TypeStruct[Math.max(_pubs.length,aliases.max()+1)];
+    TypeStruct[] tos = new TypeStruct[Math.max(_len,aliases.max()+1)];
     tos[1] = at(1);
     for( int i=2; i<tos.length; i++ )
       tos[i] = aliases.test_recur(i) ? at(i) : TypeStruct.UNUSED;
@@ -371,6 +405,10 @@ public class TypeMem extends Type<TypeMem> {
       TypeMemPtr sharp = _sharp_cache.get(dull._aliases);
       if( sharp != null ) return sharp;
     }
+    // Then the global cache, for this slice of memory
+    int set = Sharp.slice(this,dull);
+    TypeMemPtr gsharp = Sharp.get(set,dull);
+    if( gsharp != null ) return sharput(dull._aliases,gsharp);
 
     // Build a (recursively) sharpened pointer from memory.  Alias sets can be
     // looked-up directly in a map from BitsAlias to TypeObjs.  This is useful
@@ -389,11 +427,11 @@ public class TypeMem extends Type<TypeMem> {
     assert sharp.interned() == dull_cache.isEmpty();
     // See if we need to cycle-install any cyclic types
     if( dull_cache.isEmpty() )
-      return sharp;
+      return Sharp.put(set,dull,sharp);
     // On exit, cyclic-intern all cyclic things; remove from dull cache.
     TypeStruct mt = Cyclic.install(sharp._obj);
     sharp = dull.make_from(mt);
-    return sharput(dull._aliases,sharp);
+    return Sharp.put(set,dull,sharput(dull._aliases,sharp));
   }
   TypeMemPtr sharp_get( BitsAlias aliases ) { return _sharp_cache==null ? null : _sharp_cache.get(aliases); }
   TypeMemPtr sharput( BitsAlias aliases, TypeMemPtr sharp ) {
@@ -402,6 +440,94 @@ public class TypeMem extends Type<TypeMem> {
     _sharp_cache.put(aliases,sharp);
     return sharp;               // return new not old
   }
+
+  // Global sharpen cache, shared by all memories.  Sharpening only reads the
+  // aliases reachable from the dull pointer, so memories that agree on those
+  // share results: a Store to an unrelated alias does not start cold.  Keyed
+  // by the dull pointer and the slice of memory it reaches, as the reached
+  // alias#s and their objects.  2-way set associative, like the Type.meet
+  // cache; an evicted slice is just re-sharpened.  Size is 2^sharp_cache_log
+  // sets, from -Dsharp_cache_log.
+  public static long SHARP_HITS, SHARP_MISSES, SHARP_EVICTS;
+  private static abstract class Sharp {
+    static final int LOG = Integer.getInteger("sharp_cache_log",10);
+    static final int MASK = (1<<LOG)-1;
+    static final TypeMemPtr[] DULLS = new TypeMemPtr[2<<LOG]; // Way 0 at even index, way 1 at odd
+    static final int[][] ALIASES = new int[2<<LOG][];
+    static final TypeStruct[][] OBJS = new TypeStruct[2<<LOG][];
+    static final TypeMemPtr[] SHARPS = new TypeMemPtr[2<<LOG];
+    static final byte[] LRU = new byte[1<<LOG]; // Way to replace next, per set
+    // The slice from the last call to slice()
+    static final AryInt RALIASES = new AryInt();
+    static final Ary<TypeStruct> ROBJS = new Ary<>(TypeStruct.class);
+    static final VBitSet VISIT = new VBitSet(), REACHED = new VBitSet();
+
+    // Gather the slice of 'mem' reached from 'dull', and return its set
+    static int slice(TypeMem mem, TypeMemPtr dull) {
+      VISIT.clear();  REACHED.clear();
+      mem.reach(dull);
+      RALIASES.clear();  ROBJS.clear();
+      long hash = dull._hash;
+      for( int alias = REACHED.nextSetBit(0); alias >= 0; alias = REACHED.nextSetBit(alias+1) ) {
+        TypeStruct ts = mem.at(alias);
+        RALIASES.push(alias);
+        ROBJS.push(ts);
+        hash = Util.rot(hash,7) ^ (ts._hash+alias);
+      }
+      int h = (int)((hash>>32)^hash);
+      return (h^(h>>>LOG)^(h>>>(LOG<<1)))&MASK;
+    }
+    static boolean hit(int i, TypeMemPtr dull) {
+      if( DULLS[i]!=dull ) return false;
+      int[] as = ALIASES[i];
+      TypeStruct[] os = OBJS[i];
+      if( as.length!=RALIASES._len ) return false;
+      for( int j=0; j<as.length; j++ )
+        if( as[j]!=RALIASES.at(j) || os[j]!=ROBJS.at(j) )
+          return false;
+      return true;
+    }
+    static TypeMemPtr get(int s, TypeMemPtr dull) {
+      int i = s<<1;
+      if( hit(i  ,dull) ) { LRU[s]=1; SHARP_HITS++; return SHARPS[i  ]; }
+      if( hit(i+1,dull) ) { LRU[s]=0; SHARP_HITS++; return SHARPS[i+1]; }
+      SHARP_MISSES++;
+      return null;
+    }
+    static TypeMemPtr put(int s, TypeMemPtr dull, TypeMemPtr sharp) {
+      int w = LRU[s], i = (s<<1)+w;
+      if( DULLS[i]!=null ) SHARP_EVICTS++;
+      DULLS[i]=dull;  SHARPS[i]=sharp;
+      ALIASES[i] = Arrays.copyOf(RALIASES._es,RALIASES._len);
+      OBJS   [i] = ROBJS.asAry();
+      LRU[s] = (byte)(w^1);
+      return sharp;
+    }
+    static void clear() {
+      Arrays.fill(DULLS  ,null);
+      Arrays.fill(ALIASES,null);
+      Arrays.fill(OBJS   ,null);
+      Arrays.fill(SHARPS ,null);
+      Arrays.fill(LRU,(byte)0);
+    }
+  }
+  // Drop all cached sharpens, e.g. between compilations
+  public static void sharp_cache_clear() { Sharp.clear(); }
+
+  // Collect in Sharp.REACHED every alias sharpening 't' can read: each alias
+  // of a reached pointer and all its kids, and transitively the pointers in
+  // their objects.
+  private void reach( Type t ) {
+    if( !(t instanceof Cyclic) || Sharp.VISIT.tset(t._uid) ) return;
+    if( t instanceof TypeMemPtr tmp ) {
+      for( int alias : tmp._aliases )
+        for( int kid=alias; kid!=0; kid=BitsAlias.next_kid(alias,kid) )
+          if( !Sharp.REACHED.tset(kid) )
+            reach(at(kid));
+    } else
+      t.walk((fld,ignore) -> reach(fld));
+  }
+
   // Sharpen if a maybe-pointer
   @Override public Type sharptr( Type ptr ) {
     return ptr instanceof TypeMemPtr tmp ? sharpen(tmp) :
@@ -484,11 +610,87 @@ public class TypeMem extends Type<TypeMem> {
   // Whole object Set at an alias.
   public TypeMem set( int alias, TypeStruct obj ) {
     if( at(alias)==obj ) return this; // Shortcut
-    int max = Math.max(_pubs.length,alias+1);
-    TypeStruct[] tos = Arrays.copyOf(_pubs,max);
-    tos[0] = null;
-    tos[alias] = obj;
-    return make0(tos);
+    if( _len==1 || alias<=1 ) {
+      int max = Math.max(_len,alias+1);
+      TypeStruct[] tos = Arrays.copyOf(pubs(),max);
+      tos[0] = null;
+      tos[alias] = obj;
+      return make0(tos);
+    }
+    // Path-copy the alias and its sub-tree; the default memory liveness is
+    // reset, as make0 does.
+    AryInt idxs = new AryInt();
+    TypeStruct live = slot(1).oob(TypeStruct.ISUSED);
+    if( live != slot(0) ) idxs.push(0);
+    for( int kid=alias; kid!=0; kid=BitsAlias.next_kid(alias,kid) )
+      idxs.push(kid);
+    Arrays.sort(idxs._es,0,idxs._len);
+    TypeStruct[] vals = new TypeStruct[idxs._len];
+    for( int i=0; i<idxs._len; i++ ) {
+      int kid = idxs.at(i);
+      vals[i] = kid==0 ? live : (kid==alias ? obj : slot(kid));
+    }
+    return edit(_root,_len,idxs,vals);
+  }
+
+  // Replace the slots at the sorted 'idxs' with 'vals', in the canonical
+  // 'root' of 'len0' slots.  Other than slot#0, 'idxs' is a union of whole
+  // alias sub-trees; only these slots can change when re-canonicalizing, so
+  // the rest of the trie is shared.
+  private static TypeMem edit( MemTrie root, int len0, AryInt idxs, TypeStruct[] vals ) {
+    int n = idxs._len;
+    int[] is = idxs._es;
+    // No dups of a parent.  Parents are below kids, so are done first.
+    for( int i=0; i<n; i++ )
+      if( is[i] > 1 && vals[i] != null )
+        for( int par = BitsAlias.TREE.parent(is[i]); par!=0; par = BitsAlias.TREE.parent(par) ) {
+          int x = Arrays.binarySearch(is,0,n,par);
+          TypeStruct pt = x>=0 ? vals[x] : MemTrie.get(root,len0,par);
+          if( pt != null ) {
+            if( pt == vals[i] ) vals[i] = null;
+            break;
+          }
+        }
+    // Write, then make "tight"
+    int len = n==0 ? len0 : Math.max(len0,is[n-1]+1);
+    if( n>0 ) root = MemTrie.set(root,len0,len,is,vals,n);
+    int tight = MemTrie.last(root,len)+1;
+    root = MemTrie.trim(root,len,tight);
+    return POOLS[TMEM].<TypeMem>malloc().init(root,tight).hashcons_free();
+  }
+
+  // Canonicalize 'root' of 'len' slots, which differs from a canonical memory
+  // only at the 'changed' slots.  Only those and their alias sub-trees can now
+  // dup a parent, so only they are re-checked.
+  private static TypeMem canon( MemTrie root, int len, AryInt changed ) {
+    AryInt idxs = new AryInt();
+    VBitSet visit = new VBitSet();
+    for( int i=0; i<changed._len; i++ ) {
+      int alias = changed.at(i);
+      if( alias != 0 )
+        for( int kid=alias; kid!=0; kid=BitsAlias.next_kid(alias,kid) )
+          if( kid < len && !visit.tset(kid) )
+            idxs.push(kid);
+    }
+    Arrays.sort(idxs._es,0,idxs._len);
+    TypeStruct[] vals = new TypeStruct[idxs._len];
+    for( int i=0; i<idxs._len; i++ )
+      vals[i] = MemTrie.get(root,len,idxs.at(i));
+    return edit(root,len,idxs,vals);
+  }
+
+  // Apply 'f' to every alias, then reset the default memory liveness, as
+  // make0 does.  Unchanged sub-tries are shared.
+  private TypeMem map( UnaryOperator<TypeStruct> f ) {
+    AryInt changed = new AryInt();
+    MemTrie root = MemTrie.map(_root,_len,1,f,changed);
+    if( changed._len==0 ) return this;
+    TypeStruct live = MemTrie.get(root,_len,1).oob(TypeStruct.ISUSED);
+    if( live != slot(0) ) {
+      root = MemTrie.set(root,_len,_len,new int[]{0},new TypeStruct[]{live},1);
+      changed.push(0);
+    }
+    return canon(root,_len,changed);
   }
 
 
@@ -499,7 +701,22 @@ public class TypeMem extends Type<TypeMem> {
     // If precise, just replace whole struct
     if( precise ) return set(aliases.getbit(),tvs);
     // Must do struct-by-struct updates
-    Ary<TypeStruct> ss = new Ary<>(_pubs.clone());
+    if( _len>1 && !aliases.test(1) ) {
+      AryInt idxs = new AryInt();
+      VBitSet visit = new VBitSet();
+      for( int alias : aliases )
+        if( alias != 0 )
+          for( int kid=alias; kid != 0; kid=BitsAlias.next_kid(alias,kid) )
+            if( !visit.tset(kid) )
+              idxs.push(kid);
+      if( idxs._len==0 ) return this;
+      Arrays.sort(idxs._es,0,idxs._len);
+      TypeStruct[] vals = new TypeStruct[idxs._len];
+      for( int i=0; i<idxs._len; i++ )
+        vals[i] = at(idxs.at(i)).update(tvs,precise);
+      return edit(_root,_len,idxs,vals);
+    }
+    Ary<TypeStruct> ss = new Ary<>(pubs());
     for( int alias : aliases )
       if( alias != 0 )
         for( int kid=alias; kid != 0; kid=BitsAlias.next_kid(alias,kid) )
@@ -510,7 +727,7 @@ public class TypeMem extends Type<TypeMem> {
 
   // Array store into a conservative set of aliases.
   public TypeMem update( BitsAlias aliases, TypeInt idx, Type val ) {
-    Ary<TypeStruct> pubs  = new Ary<>(_pubs .clone());
+    Ary<TypeStruct> pubs  = new Ary<>(pubs());
     for( int alias : aliases )
       if( alias != 0 )
         for( int kid=alias; kid != 0; kid=BitsAlias.next_kid(alias,kid) )
@@ -523,11 +740,27 @@ public class TypeMem extends Type<TypeMem> {
   public TypeMem remove(BitsAlias escs) {
     if( escs==BitsAlias.EMPTY ) return this;
     if( escs==BitsAlias.NALL  ) throw com.cliffc.aa.AA.unimpl(); // Shortcut
-    TypeStruct[] tos = _pubs.clone();
-    for( int i = 1; i< _pubs.length; i++ )
+    if( _len==1 || escs.test(1) ) {
+      TypeStruct[] tos = pubs();
+      if( tos.length>1 ) tos[0] = null;
+      for( int i = 1; i< tos.length; i++ )
+        if( escs.test(i) )
+          tos[i] = TypeStruct.UNUSED;
+      return make0(tos);
+    }
+    // Path-copy the escaping slots, and reset the default memory liveness as
+    // make0 does; then re-canonicalize around them.
+    AryInt idxs = new AryInt();
+    TypeStruct live = slot(1).oob(TypeStruct.ISUSED);
+    if( live != slot(0) ) idxs.push(0);
+    for( int i=2; i<_len; i++ )
       if( escs.test(i) )
-        tos[i] = TypeStruct.UNUSED;
-    return make0(tos);
+        idxs.push(i);
+    if( idxs._len==0 ) return this;
+    TypeStruct[] vals = new TypeStruct[idxs._len];
+    Arrays.fill(vals,TypeStruct.UNUSED);
+    if( idxs.at(0)==0 ) vals[0] = live;
+    return canon(MemTrie.set(_root,_len,_len,idxs._es,vals,idxs._len),_len,idxs);
   }
 
   // False if field is modifiable across any alias
@@ -543,27 +776,12 @@ public class TypeMem extends Type<TypeMem> {
   }
 
   // For default Parm inputs, widen all non-final fields to final ALL.
-  public TypeMem widen_mut_fields() {
-    TypeStruct to, tof=null;
-    int i; for( i=1; i< _pubs.length; i++ ) {
-      if( (to = _pubs[i]) != null && (tof = to.widen_mut_fields())!=to )
-        break;
-    }
-    if( i== _pubs.length ) return this;
-
-    TypeStruct[] tos = _pubs.clone();
-    tos[0] = null;
-    tos[i++] = tof;
-    for( ; i< _pubs.length; i++ )
-      if( tos[i] != null )
-        tos[i] = tos[i].widen_mut_fields();
-    return make0(tos);
-  }
+  public TypeMem widen_mut_fields() { return map(TypeStruct::widen_mut_fields); }
   
   // Everything NOT in the 'escs' is flattened to UNUSED.
   // Everything YES in the 'escs' is flattened for live.
   public TypeMem remove_no_escapes( BitsAlias escs ) {
-    TypeStruct[] tos = new TypeStruct[Math.max(_pubs.length,escs.max()+1)];
+    TypeStruct[] tos = new TypeStruct[Math.max(_len,escs.max()+1)];
     for( int i=1; i<tos.length; i++ )
       tos[i] = escs.test_recur(i) ? at(i).flatten_live_fields() : TypeStruct.UNUSED;
     return make0(tos);
@@ -572,23 +790,8 @@ public class TypeMem extends Type<TypeMem> {
 
   // For live-ness purposes, flatten all field contents.
   // Only need per-field ANY/ALL.
-  public TypeMem flatten_live_fields() {
-    TypeStruct to, tof=null;
-    int i; for( i=1; i< _pubs.length; i++ ) {
-      if( (to = _pubs[i]) != null && (tof = to.flatten_live_fields())!=to )
-        break;
-    }
-    if( i== _pubs.length ) return this;
-
-    TypeStruct[] tos = _pubs.clone();
-    tos[0] = null;
-    tos[i++] = tof;
-    for( ; i< _pubs.length; i++ )
-      if( tos[i] != null )
-        tos[i] = tos[i].flatten_live_fields();
-    return make0(tos);
-  }
+  public TypeMem flatten_live_fields() { return map(TypeStruct::flatten_live_fields); }
 
-  @Override public boolean above_center() { return _pubs[0].above_center(); }
+  @Override public boolean above_center() { return slot(0).above_center(); }
   @Override public boolean is_con()       { return false;}
 }
@@ -46,6 +46,7 @@ public final class TypeMemPtr extends TypeNil<TypeMemPtr> implements Cyclic {
   @Override public long lwalk( LongStringFunc map, LongOp reduce ) { return map.run(_obj,"obj"); }
   @Override public void walk( TypeStrRun map ) { map.run(_obj,"obj"); }
   @Override public void walk_update( TypeMap map ) { _obj = (TypeStruct)map.map(_obj); }
+  @Override void _reachable( Ary<Type> work ) { work.push(_obj); }
   @Override public Cyclic.Link _path_diff0(Type t, NonBlockingHashMapLong<Link> links) {
     return Cyclic._path_diff(_obj,((TypeMemPtr)t)._obj,links);
   }
@@ -271,10 +272,9 @@ public final class TypeMemPtr extends TypeNil<TypeMemPtr> implements Cyclic {
   // Make a Type, replacing all dull pointers from the matching types in mem.
   @Override public Type make_from(Type head, TypeMem mem, VBitSet visit) {
     if( this!=head ) {
-      TypeStruct[] pubs = mem.alias2objs();
       boolean mapped=true;
       for( int alias : _aliases )
-        if( pubs[alias]==null )
+        if( mem.slot(alias)==null )
           { mapped=false; break; }
       if( mapped ) {
         TypeStruct obj = mem.ld(this);
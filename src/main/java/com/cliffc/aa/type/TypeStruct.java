@@ -601,6 +601,10 @@ public class TypeStruct extends Type<TypeStruct> implements Cyclic, Iterable<Typ
     for( int i=0; i<len(); i++ )
       _flds[i] = (TypeFld)map.map(_flds[i]);
   }
+  @Override void _reachable( Ary<Type> work ) {
+    work.push(_def);
+    for( TypeFld fld : _flds ) work.push(fld);
+  }
   static boolean isDigit(char c) { return '0' <= c && c <= '9'; }
   public boolean is_tup() {
     if( len()==0 || (len()==1 && get("^")!=null) ) return true;
@@ -27,6 +27,8 @@ public class TypeTuple extends Type<TypeTuple> {
     return Util.get_hash();
   }
 
+  @Override void _reachable( Ary<Type> work ) { for( Type t : _ts ) work.push(t); }
+
   @Override public boolean equals( Object o ) {
     if( this==o ) return true;
     if( !(o instanceof TypeTuple t) ) return false;
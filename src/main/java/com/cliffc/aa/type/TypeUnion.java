@@ -40,6 +40,7 @@ public class TypeUnion extends Type<TypeUnion> implements Cyclic {
   @Override public long lwalk( LongStringFunc map, LongOp reduce ) { return reduce.run(map.run(_tmp,"tmp"), map.run(_tfp,"tfp")); }
   @Override public void walk( TypeStrRun map ) { map.run(_tmp,"tmp"); map.run(_tfp,"tfp"); }
   @Override public void walk_update( TypeMap map ) { _tmp = (TypeMemPtr)map.map(_tmp); _tfp = (TypeFunPtr)map.map(_tfp); }
+  @Override void _reachable( Ary<Type> work ) { work.push(_tmp); work.push(_tfp); }
   @Override public Cyclic.Link _path_diff0(Type t, NonBlockingHashMapLong<Link> links) {
     TypeUnion tu = (TypeUnion)t;
     Cyclic.Link mlk = Cyclic._path_diff(_tmp,tu._tmp,links);
@@ -27,4 +27,5 @@ public class Types extends AryI<Type> {
   public static Type[] clone(Type[] ts) { return TYPES._clone(ts); }
   public static Type[] copyOf(Type[] ts, int len) { return TYPES._copyOf(ts,len); }
   public static void free(Type[] ts) { TYPES._free(ts); }
+  static void reclaim(VBitSet live) { TYPES._reclaim(live); }
 }
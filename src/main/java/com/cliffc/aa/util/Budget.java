@@ -0,0 +1,32 @@
+package com.cliffc.aa.util;
+
+// Convergence check for one worklist pass, by progress rather than a pop cap.
+//
+// A pass makes progress when its worklist drains to a new low.  Pops that
+// change nothing shrink the worklist, so a pass can only go without a new low
+// while its changes keep refilling the worklist; in a finite lattice that
+// ends in proportion to the graph size.  A pass that pops RATE times its
+// current size, plus SLACK, with no new low is stuck, e.g. a few Nodes
+// endlessly re-queuing each other while types grow without bound.  A pass
+// whose size grows past GROW times its starting size is also stuck, e.g. an
+// endless Node-making loop.  Call sites assert, so it costs nothing without
+// -ea.
+public class Budget {
+  public static int RATE = Integer.getInteger("budget_rate",32);
+  public static int GROW = Integer.getInteger("budget_grow",64);
+  public static final int SLACK = 10000;
+
+  private final long _size0;    // Size at pass start
+  private long _low = Long.MAX_VALUE; // Lowest worklist length so far
+  private long _stall;          // Pops since the last new low
+
+  public Budget( long size0 ) { _size0 = size0; }
+
+  // One pop, with the pass now at 'size' and 'work' items left on its
+  // worklists.  True if still making progress.
+  public boolean ok( long size, long work ) {
+    if( work < _low ) { _low = work; _stall = 0; }
+    else _stall++;
+    return _stall < RATE*size+SLACK && size < GROW*(_size0+SLACK);
+  }
+}
@@ -1,49 +1,158 @@
 package com.cliffc.aa.util;
 
+import java.util.Arrays;
 import java.util.function.IntSupplier;
 
 // Simple worklist.  Filters dups on a add.
 // Constant-time remove until empty.
-// Supports psuedo random pop.
+// Supports psuedo random pop, and a few deterministic orders.
+//
+// Elements are keyed by their dense int getAsInt(), so membership is a plain
+// growable long[] bitset.  The elements live in a power-of-2 ring buffer; no
+// allocation once both have grown to the working size.
 @SuppressWarnings("unchecked")
-public class Work<E extends IntSupplier> extends BitSetSparse {
-  private final Ary<Object> _work = new Ary<>(new Object[1],0);
+public class Work<E extends IntSupplier> {
+  // Pop order.  RANDOM is the default, and is good for shaking out ordering
+  // bugs.  The others converge faster: RPO pops the lowest priority() first,
+  // PO the highest.  For Nodes priority is a reverse-postorder number, so RPO
+  // suits forwards flow and PO suits backwards liveness.
+  public enum Order { RANDOM, FIFO, LIFO, RPO, PO }
+
+  private long[] _bits = new long[1]; // Membership, by getAsInt()
+  private Object[] _es = new Object[4]; // Ring buffer of elements
+  private int _head;            // Ring start
+  private int _len;             // Ring count
   private final int _rseed;     // Psuedo-random draw
   private int _idx;             // Next item to get
+  private Order _order;         // Order in use; only changes when empty
   public Work() { this(123); }  // Default seed
   public Work(int rseed) { _rseed = rseed; }
-  public int len() { return _work._len; }
-  public boolean isEmpty() { return _work.isEmpty(); }
+  public int len() { return _len; }
+  public boolean isEmpty() { return _len==0; }
+
+  // Requested pop order; read when the worklist is empty.
+  public Order order() { return Order.RANDOM; }
+  // Priority for RPO and PO orders; lower pops first in RPO
+  public int priority(E e) { return e.getAsInt(); }
+
+  // Ring buffer index of the idx'th element
+  private int x(int idx) { return (_head+idx)&(_es.length-1); }
+
+  // Membership bits
+  private boolean tset(int b) {
+    int w = b>>6;
+    if( w >= _bits.length ) _bits = Arrays.copyOf(_bits,Math.max(w+1,_bits.length<<1));
+    long m = 1L<<b, old = _bits[w];
+    _bits[w] = old|m;
+    return (old&m)!=0;
+  }
+  private void clr(int b) { _bits[b>>6] &= ~(1L<<b); }
+  private boolean test(int b) { int w = b>>6; return w < _bits.length && (_bits[w]&(1L<<b))!=0; }
+
   public E add(E e) {           // Add, filtering dups
-    if( e!=null && !tset(e.getAsInt()) )
-      _work.push(e);
+    if( e!=null && !tset(e.getAsInt()) ) {
+      if( _len==0 ) { _head=0; _order = order(); }
+      if( _len==_es.length ) grow();
+      _es[x(_len++)] = e;
+      if( _order==Order.RPO || _order==Order.PO ) sift_up(_len-1);
+    }
     return e;
   }
-  @Override public Work clear() {
-    super.clear();
-    _work.clear();
+  // Unroll the ring into a doubled array
+  private void grow() {
+    Object[] es = new Object[_es.length<<1];
+    int n = _es.length-_head;
+    System.arraycopy(_es,_head,es,0,n);
+    System.arraycopy(_es,0,es,n,_head);
+    _es = es;
+    _head = 0;
+  }
+  public Work<E> clear() {
+    for( int i=0; i<_len; i++ ) { clr(((E)_es[x(i)]).getAsInt()); _es[x(i)] = null; }
+    _head = _len = 0;
     return this;
   }
   // Bulk adders
   public void add(E[] es) { if(es!=null) for( E e : es ) add(e); }
   public void addAll(Ary<? extends E> es) { if( es!=null ) for( E e : es ) add(e); }
-  public void addAll(Work<E> work) { for( Object o : work._work ) add((E)o); }
+  public void addAll(Work<E> work) { for( int i=0; i<work.len(); i++ ) add(work.at(i)); }
   public boolean on(E e) { return test(e.getAsInt()); }
-  // Pull a psuedo-random element.  Order depends on rseed.
+  // Pull an element.  Order depends on the Order, and for RANDOM on the rseed.
   public E pop() {
-    if( _work._len==0 ) return null;
-    _idx = (_idx+_rseed)&((1<<30)-1);
-    E e = (E)_work.del( _idx % _work._len );
+    if( _len==0 ) return null;
+    E e = switch( _order ) {
+    case RANDOM -> {
+      _idx = (_idx+_rseed)&((1<<30)-1);
+      yield del_swap(_idx % _len);
+    }
+    case FIFO -> { E f = (E)_es[_head]; _es[_head] = null; _head = x(1); _len--; yield f; }
+    case LIFO -> del_last();
+    case RPO, PO -> del_heap(0);
+    };
     clr(e.getAsInt());
     return e;
   }
   public E pop_last() {
-    if( _work._len==0 ) return null;
-    E e = (E)_work.pop();
+    if( _len==0 ) return null;
+    E e = _order==Order.RPO || _order==Order.PO ? del_heap(_len-1) : del_last();
     clr(e.getAsInt());
     return e;
   }
   // Get/delete "idx"th elements; error if OOB.
-  public E at(int idx) { return (E)_work.at(idx); }
-  public void del(int idx) { clr(((E)_work.del(idx)).getAsInt()); }
+  public E at(int idx) { range_check(idx); return (E)_es[x(idx)]; }
+  public void del(int idx) {
+    range_check(idx);
+    E e = _order==Order.RPO || _order==Order.PO ? del_heap(idx) : del_swap(idx);
+    clr(e.getAsInt());
+  }
+  private void range_check(int idx) {
+    if( idx<0 || idx>=_len ) throw new ArrayIndexOutOfBoundsException(""+idx+" >= "+_len);
+  }
+  // Delete by swapping the last element into the hole.  Vacated slots are
+  // nulled, so the ring does not keep dead elements alive.
+  private E del_swap(int idx) {
+    int i = x(idx), j = x(--_len);
+    E e = (E)_es[i];
+    _es[i] = _es[j];
+    _es[j] = null;
+    return e;
+  }
+  private E del_last() {
+    int j = x(--_len);
+    E e = (E)_es[j];
+    _es[j] = null;
+    return e;
+  }
+
+  // Binary heap on the ring, ordered by priority
+  private boolean less(int i, int j) {
+    int pi = priority((E)_es[x(i)]), pj = priority((E)_es[x(j)]);
+    return _order==Order.RPO ? pi < pj : pi > pj;
+  }
+  private void swap(int i, int j) { i=x(i); j=x(j); Object t = _es[i]; _es[i] = _es[j]; _es[j] = t; }
+  private void sift_up(int i) {
+    while( i>0 && less(i,(i-1)>>1) ) { swap(i,(i-1)>>1); i = (i-1)>>1; }
+  }
+  private void sift_down(int i) {
+    while( true ) {
+      int c = (i<<1)+1;
+      if( c >= _len ) return;
+      if( c+1 < _len && less(c+1,c) ) c++;
+      if( !less(c,i) ) return;
+      swap(i,c);
+      i = c;
+    }
+  }
+  private E del_heap(int i) {
+    E e = del_swap(i);
+    if( i < _len ) { sift_down(i); sift_up(i); }
+    return e;
+  }
+
+  @Override public String toString() {
+    if( _len==0 ) return "[]";
+    SB sb = new SB().p('[');
+    for( int i=0; i<_len; i++ ) sb.p(((E)_es[x(i)]).getAsInt()).p(',');
+    return sb.unchar().p(']').toString();
+  }
 }
@@ -0,0 +1,54 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.NewNode;
+import com.cliffc.aa.node.Node;
+import com.cliffc.aa.util.Ary;
+import com.cliffc.aa.util.VBitSet;
+import org.junit.Test;
+
+import static com.cliffc.aa.AA.*;
+import static org.junit.Assert.*;
+
+// Escape analysis: allocations nobody can point at are gone before Combo
+public class TestEscape {
+
+  // Parse and close the file scope, as Exec.go does, but stop before Combo.
+  // Count the non-primitive allocations left.
+  private static int allocs( String prog ) {
+    Env e = Env.FILE = new Env(Env.TOP,null,false,Env.TOP._scope.ctrl(),Env.TOP._scope.mem(),Env.TOP._scope.ptr(),null);
+    assertNull(new Parse("test",false,e,prog).prog());
+    Env.ROOT.set_def(CTL_IDX,e._scope.ctrl());
+    Env.ROOT.set_def(MEM_IDX,e._scope.mem ());
+    Env.ROOT.set_def(REZ_IDX,e._scope.rez ());
+    e.close();
+    int cnt=0;
+    VBitSet visit = new VBitSet();
+    Ary<Node> work = new Ary<>(Node.class);
+    work.push(Env.ROOT);
+    while( !work.isEmpty() ) {
+      Node n = work.pop();
+      if( n==null || visit.tset(n._uid) ) continue;
+      if( n instanceof NewNode && !n.is_prim() ) cnt++;
+      for( Node def : n._defs ) work.push(def);
+      for( Node use : n._uses ) work.push(use);
+    }
+    Env.FILE = null;
+    Env.top_reset();
+    return cnt;
+  }
+
+  @Test public void testCaptured() {
+    // The file display only holds functions, and only Loads and Stores use it
+    assertEquals(0,allocs("sq={x -> x*x}; sq(math.rand(1)+2)"));
+    assertEquals(0,allocs("x=3; mul2={x -> x*2}; mul2(2.1)"));
+    assertEquals(0,allocs("mul3={x -> y=3; x*y}; mul3(2)"));
+    // Recursion reads the display from inside the function: it escapes
+    assertTrue(allocs("fib = { x -> x <= 1 ? 1 : fib(x-1)+fib(x-2) }; fib(4)") > 0);
+  }
+
+  // Same answers after scalar replacement
+  @Test public void testAnswers() {
+    assertEquals("flt:($4.2)",Exec.file("test","x=3; mul2={x -> x*2}; mul2(2.1)",0,true,true)._t.toString());
+    assertEquals("int:($6)"  ,Exec.file("test","mul3={x -> y=3; x*y}; mul3(2)"  ,0,true,true)._t.toString());
+  }
+}
@@ -0,0 +1,39 @@
+package com.cliffc.aa;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+// Cached compiles answer the same as fresh ones, and only the same inputs hit
+public class TestExecCache {
+  private static final String[] PROGS = { "1+2*3", "1.2+3.4", "math.rand(1) ? 2 : 3", "y*y" };
+
+  @Test public void testCache() throws Exception {
+    assumeVersion();
+    String dir0 = ExecCache.DIR;
+    ExecCache.DIR = Files.createTempDirectory("aa_cache").toString();
+    try {
+      for( String prog : PROGS ) {
+        long hits = ExecCache.HITS, misses = ExecCache.MISSES;
+        String[] rs0 = Exec.file_strs("test",prog,0,true,true);
+        assertEquals(misses+1,ExecCache.MISSES);
+        String[] rs1 = Exec.file_strs("test",prog,0,true,true);
+        assertEquals(hits+1,ExecCache.HITS);
+        assertArrayEquals(rs0,rs1);
+        // Different settings or source name are different entries
+        Exec.file_strs("test",prog,0,true,false);
+        Exec.file_strs("test2",prog,0,true,true);
+        assertEquals(misses+3,ExecCache.MISSES);
+      }
+    } finally {
+      ExecCache.DIR = dir0;
+    }
+  }
+
+  // Bare class builds have no version stamp, and no cache
+  private static void assumeVersion() {
+    org.junit.Assume.assumeNotNull(AA.version());
+  }
+}
@@ -0,0 +1,33 @@
+package com.cliffc.aa;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+// Concurrent compiles in one JVM get the same answers as serial compiles
+public class TestExecPool {
+  private static final String[] PROGS = {
+    "1+2*3", "(1+2)*(3+4)*5", "1.2+3.4", "math.pi", "x=2; y=x+1; x*y",
+    "1+(x=2*3)+x*x", "x:=1;x++ + x--", "0 && 1 || 2 && 3", "(x=1) && x+2",
+    "id={x->x};id(1)", "x=3; mul2={x -> x*2}; mul2(2.1)", "y*y",
+  };
+
+  @Test public void testPool() throws Exception {
+    ArrayList<Future<ExecPool.Result>> fs = new ArrayList<>();
+    try( ExecPool pool = new ExecPool(4) ) {
+      for( int i=0; i<3; i++ )
+        for( String prog : PROGS )
+          fs.add(pool.file("test",prog,0,true,true));
+      for( int i=0; i<fs.size(); i++ ) {
+        String[] rs = Exec.file_strs("test",PROGS[i%PROGS.length],0,true,true);
+        ExecPool.Result r = fs.get(i).get();
+        assertEquals(rs[0],r.type());
+        assertEquals(rs[1],r.hmt ());
+        assertEquals(rs[2],r.err ());
+      }
+    }
+  }
+}
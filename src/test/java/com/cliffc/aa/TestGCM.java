@@ -0,0 +1,87 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.*;
+import com.cliffc.aa.type.Type;
+import org.junit.Test;
+
+import static com.cliffc.aa.AA.CTL_IDX;
+import static com.cliffc.aa.AA.REZ_IDX;
+import static org.junit.Assert.*;
+
+// Global Code Motion: blocks, dominators, loops and placement
+public class TestGCM {
+
+  @Test public void testFib() {
+    Exec.go(Env.TOP,"test","fib = { x -> x <= 1 ? 1 : fib(x-1)+fib(x-2) }; fib(math.rand(4))",0,true,true);
+    GCM gcm = GCM.schedule();
+    GCM.Func fib = null;
+    for( GCM.Func f : gcm._funcs )
+      if( f.name().startsWith("fib[") ) fib = f;
+    assertNotNull(fib);
+    // Entry ends in the If; two arms merge at the Region
+    assertEquals(4,fib._blocks._len);
+    GCM.Block entry = fib.entry(), merge = fib._blocks.last();
+    assertTrue(entry.tail() instanceof IfNode);
+    assertTrue(merge.head() instanceof RegionNode);
+    assertSame(entry,merge._idom);
+    assertEquals(2,merge._preds._len);
+    for( GCM.Block b : fib._blocks ) assertEquals(0,b._loop_depth);
+    // Phis follow the Region, and the Return is last
+    assertTrue(merge._nodes.at(1) instanceof PhiNode);
+    assertTrue(merge._nodes.last() instanceof RetNode);
+    // Every scheduled Node maps back to its Block
+    for( GCM.Block b : fib._blocks )
+      for( Node n : b._nodes )
+        assertSame(b,gcm.block(n));
+    Env.top_reset();
+  }
+
+  // A hand-built loop: an invariant hoists out, and work only needed after
+  // the loop sinks below it.
+  //
+  //   start -> loop: phi = Phi(arg,inv); if( phi.c ) goto loop; else exit
+  //   inv = arg.x            // Loop invariant, used on the backedge
+  //   out = phi.s            // Used only after the loop
+  @Test public void testLoop() {
+    RootNode root = new RootNode();
+    Node start = new CProjNode(root,0);
+    Node arg   = new ProjNode(root,3); // Program input; not in any block
+    RegionNode loop = new RegionNode(null,start,null);
+    Node inv = new FieldNode(arg,"x",null);
+    Node phi = new PhiNode(Type.ALL,null,loop,arg,inv);
+    Node chk = new FieldNode(phi,"c",null);
+    Node iff = new IfNode(loop,chk);
+    Node back = new CProjNode(iff,1);
+    Node exit = new CProjNode(iff,0);
+    loop.set_def(2,back);
+    Node out = new FieldNode(phi,"s",null);
+    root.set_def(CTL_IDX,exit);
+    root.set_def(REZ_IDX,out);
+
+    GCM gcm = new GCM(root,start);
+    assertEquals(1,gcm._funcs._len);
+    GCM.Func f = gcm._funcs.at(0);
+    assertEquals(4,f._blocks._len);
+    GCM.Block b0 = gcm.block(start), bl = gcm.block(loop), bb = gcm.block(back), bx = gcm.block(exit);
+    assertSame(b0,f.entry());
+    assertSame(b0,bl._idom);
+    assertSame(bl,bb._idom);
+    assertSame(bl,bx._idom);
+    assertEquals(0,b0._loop_depth);
+    assertEquals(1,bl._loop_depth);
+    assertEquals(1,bb._loop_depth);
+    assertEquals(0,bx._loop_depth);
+
+    assertSame(bl,gcm.block(iff)); // Loop test ends the loop header
+    assertSame(bl,gcm.block(chk)); // Varies per iteration; stays in the loop
+    assertSame(b0,gcm.block(inv)); // Hoisted out of the loop
+    assertSame(bx,gcm.block(out)); // Sunk after the loop
+    assertNull(gcm.block(arg));
+    assertTrue(gcm._globals.find(arg)!=-1);
+    // Header order: Region, Phi, test, If
+    assertSame(loop,bl._nodes.at(0));
+    assertSame(phi ,bl._nodes.at(1));
+    assertSame(chk ,bl._nodes.at(2));
+    assertSame(iff ,bl._nodes.at(3));
+  }
+}
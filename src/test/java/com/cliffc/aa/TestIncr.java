@@ -0,0 +1,65 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.type.Type;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Incremental re-typing: more program text into an open file scope re-types
+// from the prior fixed point, and gets the same answers as a full re-type.
+public class TestIncr {
+
+  @Test public void testIncr() {
+    String[] lines = {"x=2", "y=x*3", "y+1", "z=y*y+x", "math.pi*z", "w:=1", "w:=w+z", "(w,z)"};
+    Type[] fulls = run(lines,true );
+    Type[] incrs = run(lines,false);
+    assertEquals("int:($7)" ,fulls[2].toString());
+    assertEquals("int:($39)",fulls[6].toString());
+    assertArrayEquals(fulls,incrs);
+  }
+
+  @Test public void testIncrPops() {
+    AA.RSEED=0; AA.DO_GCP=true; AA.DO_HMT=true;
+    Env e = new Env(Env.TOP,null,false,Env.TOP._scope.ctrl(),Env.TOP._scope.mem(),Env.TOP._scope.ptr(), null);
+    Exec.more(e,"test","x=2");
+    int full = Exec.COMBO_POPS;
+    Exec.more(e,"test","y=x*3");
+    assertFalse(Env.COMBO._restart);
+    assertTrue(Exec.COMBO_POPS*4 < full); // Prims are not re-typed
+    done(e);
+  }
+
+  // Text with errors rolls back, and later text is again incremental
+  @Test public void testRollback() {
+    AA.RSEED=0; AA.DO_GCP=true; AA.DO_HMT=true;
+    Env e = new Env(Env.TOP,null,false,Env.TOP._scope.ctrl(),Env.TOP._scope.mem(),Env.TOP._scope.ptr(), null);
+    assertNull(Exec.more(e,"test","x=2")._errs);
+    assertNotNull(Exec.more(e,"test","y*y")._errs);
+    assertNull(Exec.more(e,"test","y=x*3")._errs);
+    TypeEnv te = Exec.more(e,"test","y+1");
+    assertNull(te._errs);
+    assertEquals("int:($7)",te._t.toString());
+    assertFalse(Env.COMBO._restart);
+    done(e);
+  }
+
+  // Run all lines in one open file scope; optionally re-type from scratch each line
+  private static Type[] run( String[] lines, boolean full ) {
+    AA.RSEED=0; AA.DO_GCP=true; AA.DO_HMT=true;
+    Env e = new Env(Env.TOP,null,false,Env.TOP._scope.ctrl(),Env.TOP._scope.mem(),Env.TOP._scope.ptr(), null);
+    Type[] ts = new Type[lines.length];
+    for( int i=0; i<lines.length; i++ ) {
+      if( full ) Env.COMBO._watermark=0; // Forces a full re-type
+      TypeEnv te = Exec.more(e,"test",lines[i]);
+      assertNull(te._errs);
+      ts[i] = te._t;
+    }
+    done(e);
+    return ts;
+  }
+
+  private static void done( Env e ) {
+    e.close();
+    Env.top_reset();
+  }
+}
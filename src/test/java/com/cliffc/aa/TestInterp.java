@@ -0,0 +1,133 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.*;
+import com.cliffc.aa.type.Type;
+import com.cliffc.aa.type.TypeStruct;
+import org.junit.Test;
+
+import static com.cliffc.aa.AA.CTL_IDX;
+import static com.cliffc.aa.AA.REZ_IDX;
+import static org.junit.Assert.*;
+
+// Running the final graph: answers agree with the types, and with Java
+public class TestInterp {
+
+  // Compile and lower; the lowered program outlives the compile
+  private static Interp interp( String prog ) {
+    Exec.go(Env.TOP,"test",prog,0,true,true);
+    Interp interp = new Interp(GCM.schedule(),Env.ROOT);
+    Env.top_reset();
+    return interp;
+  }
+  private static Object run( Interp interp, int seed ) {
+    PrimNode.RandI64.seed(seed);
+    return interp.run();
+  }
+  private static long   i( Object s, String fld ) { return (Long  )((Interp.Struct)s).get(fld); }
+  private static double f( Object s, String fld ) { return (Double)((Interp.Struct)s).get(fld); }
+
+  @Test public void testConstant() {
+    assertEquals(7L ,interp("1+2*3").run());
+    assertEquals(4.6,interp("1.2+3.4").run());
+  }
+
+  @Test public void testCall() {
+    Interp sq = interp("sq={x -> x*x}; sq(math.rand(1)+2)");
+    boolean four=false, nine=false;
+    for( int seed=0; seed<16; seed++ ) {
+      long r = (Long)run(sq,seed);
+      assertTrue(r==4 || r==9);
+      four |= r==4;  nine |= r==9;
+    }
+    assertTrue(four && nine);
+    Interp f = interp("f={a b -> a*b+a-b}; f(math.rand(3),5)");
+    for( int seed=0; seed<8; seed++ ) {
+      long r = (Long)run(f,seed);   // a*6-5, a in 0..3
+      assertTrue(-5<=r && r<=13 && (r+5)%6==0);
+    }
+  }
+
+  @Test public void testArith() {
+    Interp in = interp("x=math.rand(10); y=x*3+7; z=y*y-x; (x, z/2+z%5, -x + !x)");
+    for( int seed=0; seed<8; seed++ ) {
+      Object s = run(in,seed);
+      long x = i(s,"0"), y = x*3+7, z = y*y-x;
+      assertEquals(z/2+z%5,i(s,"1"));
+      assertEquals(-x + (x==0 ? 1 : 0),i(s,"2"));
+    }
+    Interp fl = interp("x=math.rand(10)+0.5; y=x*3.0+7; (x, y*y-x)");
+    for( int seed=0; seed<8; seed++ ) {
+      Object s = run(fl,seed);
+      double x = f(s,"0"), y = x*3.0+7;
+      assertEquals(y*y-x,f(s,"1"),0);
+    }
+  }
+
+  // A hand-built loop, since the parser does not make loops (yet): Phis move
+  // on the edges, and the If picks the exit.
+  @Test public void testLoop() {
+    Node[] ns = loop(1000);
+    assertEquals(499500L,new Interp(new GCM(ns[0],ns[1]),ns[0]).run());
+    unhook(ns);
+  }
+
+  //   i=0; sum=0; loop: if( i<n ) { sum=sum+i; i=i+1; goto loop; } return sum
+  // Root and start first; types as Combo would have them.
+  static Node[] loop( long cnt ) {
+    RootNode root = new RootNode();
+    Node start = new CProjNode(root,0);
+    Node zero = new ConNode<>(PrimNode.make_int(0));
+    Node one  = new ConNode<>(PrimNode.make_int(1));
+    Node n    = new ConNode<>(PrimNode.make_int(cnt));
+    RegionNode loop = new RegionNode(null,start,null);
+    Node i   = new PhiNode(Type.ALL,null,loop,zero,null);
+    Node sum = new PhiNode(Type.ALL,null,loop,zero,null);
+    Node lt  = prim("LT_I64").add_def(i).add_def(n);
+    Node iff = new IfNode(loop,lt);
+    Node back = new CProjNode(iff,1);
+    Node exit = new CProjNode(iff,0);
+    Node inc = prim("AddI64").add_def(i  ).add_def(one);
+    Node add = prim("AddI64").add_def(sum).add_def(i  );
+    loop.set_def(2,back);
+    i  .set_def(2,inc);
+    sum.set_def(2,add);
+    root.set_def(CTL_IDX,exit);
+    root.set_def(REZ_IDX,sum);
+    Node[] ns = {root,start,zero,one,n,loop,i,sum,lt,iff,back,exit,inc,add};
+    for( Node x : ns ) x._val = x.value();
+    i._val = sum._val = TypeStruct.INT;
+    for( Node x : new Node[]{lt,inc,add} ) x._val = x.value();
+    return ns;
+  }
+  // Unhook it all; the constants hang off the real Root
+  static void unhook( Node[] ns ) {
+    for( Node x : ns ) while( x.len()>0 ) x.pop();
+    for( Node x : ns ) x.kill();
+    Env.top_reset();
+  }
+  private static Node prim( String clz ) {
+    for( PrimNode prim : PrimNode.PRIMS() )
+      if( prim.getClass().getSimpleName().equals(clz) )
+        return prim.copy(false);
+    throw new IllegalArgumentException(clz);
+  }
+
+  // Mutable variables live in the display, via New, Store and Load
+  @Test public void testMutable() {
+    Interp in = interp("a:=math.rand(5); b:=a+1; c:=a*b; a:=c-b; b:=a*a; (a,b,c)");
+    for( int seed=0; seed<8; seed++ ) {
+      Object s = run(in,seed);
+      long c = i(s,"2"), a = i(s,"0");
+      assertEquals(a*a,i(s,"1"));
+      boolean ok = false;       // Some a0 in 0..5 made c and a
+      for( long a0=0; a0<=5; a0++ )
+        ok |= c==a0*(a0+1) && a==c-(a0+1);
+      assertTrue(ok);
+    }
+    Interp xy = interp("x:=math.rand(3); y:=x*2; x++; y++; (x,y)");
+    for( int seed=0; seed<8; seed++ ) {
+      Object s = run(xy,seed);
+      assertEquals((i(s,"0")-1)*2+1,i(s,"1"));
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.node.Node;
+import com.cliffc.aa.node.PrimNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// The bytecode backend answers as the interpreter does, unboxed
+public class TestJit {
+  private static final String[] PROGS = {
+    "1+2*3",
+    "1.2+3.4",
+    "x=math.rand(10); y=x*3+7; z=y*y-x; z/2+z%5",
+    "x=math.rand(10)+0.5; y=x*3.0+7; y*y-x",
+    "sq={x -> x*x}; sq(math.rand(1)+2)",
+    "f={a b -> a*b+a-b}; f(math.rand(3),math.rand(4)+1)",
+    "x=math.rand(9); -x + !x",
+    "x=math.rand(10); (x, x/3, x%4, 7/x, x<5, x>=5, x==3, x!=3, x*1.5 < 6)",
+    "x:=math.rand(3); y:=x*2; x++; y++; (x,y)",
+  };
+
+  @Test public void testAgree() {
+    for( String prog : PROGS ) {
+      Exec.go(Env.TOP,"test",prog,0,true,true);
+      GCM gcm = GCM.schedule();
+      Interp interp = new Interp(gcm,Env.ROOT);
+      Jit jit = new Jit(gcm,Env.ROOT);
+      Env.top_reset();
+      for( int seed=0; seed<8; seed++ ) {
+        PrimNode.RandI64.seed(seed);
+        String expect = String.valueOf(interp.run());
+        PrimNode.RandI64.seed(seed);
+        assertEquals(prog,expect,String.valueOf(jit.run()));
+      }
+    }
+  }
+
+  // Tuples of ints and flts are final-field classes with primitive fields
+  @Test public void testRec() throws Exception {
+    Exec.go(Env.TOP,"test","(math.rand(3),math.rand(2)+1.5,3)",0,true,true);
+    Object r = Jit.run_program();
+    Env.top_reset();
+    assertTrue(r instanceof Jit.Rec);
+    assertSame(long  .class,r.getClass().getField("0").getType());
+    assertSame(double.class,r.getClass().getField("1").getType());
+    assertEquals(3L,r.getClass().getField("2").get(r));
+  }
+
+  @Test public void testLoop() {
+    Node[] ns = TestInterp.loop(100000);
+    assertEquals(4999950000L,new Jit(new GCM(ns[0],ns[1]),ns[0]).run());
+    TestInterp.unhook(ns);
+  }
+}
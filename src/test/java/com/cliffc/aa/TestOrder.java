@@ -0,0 +1,70 @@
+package com.cliffc.aa;
+
+import com.cliffc.aa.util.Work;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Worklist pop orders: every order reaches the same fixed point as RANDOM.
+// Escaping lambdas are order-sensitive in H-M, as Root escapes a function
+// before or after it unifies as a function.
+public class TestOrder {
+
+  @After public void reset() {
+    AA.GVN_ORDER = AA.COMBO_ORDER = AA.LIVE_ORDER = Work.Order.RANDOM;
+  }
+
+  @Test public void testEscapes() {
+    test("{ g -> (g,3)}",                           "{A B -> (B, int:3)}", null);
+    test("x={x -> x x}",                            "{A B:{C B -> D} -> D}", null);
+    // With GCP, the display is typed as well
+    test("fun={ g -> f={x -> g}; (f 3,f 1)}",       "{A B -> (B, B)}", "A:{*@{fun=A;...} B -> (B, B)}");
+    test("noinline_map={tup fcn -> (0,fcn tup.1)};","{A *@{1=B;...}? {C B -> D} -> (E?, D)}", null);
+  }
+
+  // Parse errors still report, and do not trip the Combo worklists
+  @Test public void testErr() {
+    String prog = "f0={x -> x ? _+_(f0(x-1),1) : 0}; f0(2)";
+    for( Work.Order order : Work.Order.values() ) {
+      AA.COMBO_ORDER = AA.LIVE_ORDER = order;
+      for( int rseed=0; rseed<4; rseed++ ) {
+        for( int mode=0; mode<2; mode++ ) {
+          TypeEnv te = Exec.file("test",prog,rseed,true,mode==1);
+          assertNotNull(te._errs);
+          assertTrue(te._errs.get(0).toString().startsWith("test:1:missing expr after '?'"));
+        }
+      }
+    }
+  }
+
+  // Run in all orders and all 3 modes; GCP results match RANDOM order, HM
+  // results match the expected, alone and with GCP.
+  private static void test( String prog, String hmt, String hmt_both ) {
+    if( hmt_both==null ) hmt_both = hmt;
+    String gcp=null, gcp_both=null;
+    for( Work.Order order : Work.Order.values() ) {
+      AA.COMBO_ORDER = AA.LIVE_ORDER = order;
+      for( int rseed=0; rseed<4; rseed++ ) {
+        TypeEnv te;
+        te = Exec.file("test",prog,rseed,true,false);
+        assertNull(te._errs);
+        String g = te._tmem.sharptr(te._t).toString();
+        if( gcp==null ) gcp = g;
+        assertEquals(gcp,g);
+
+        te = Exec.file("test",prog,rseed,false,true);
+        assertNull(te._errs);
+        assertEquals(strip(hmt),strip(te._hmt.p()));
+
+        te = Exec.file("test",prog,rseed,true,true);
+        assertNull(te._errs);
+        g = te._tmem.sharptr(te._t).toString();
+        if( gcp_both==null ) gcp_both = g;
+        assertEquals(gcp_both,g);
+        assertEquals(strip(hmt_both),strip(te._hmt.p()));
+      }
+    }
+  }
+  private static String strip( String s ) { return s.replace("\n","").replace(" ",""); }
+}
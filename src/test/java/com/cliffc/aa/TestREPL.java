@@ -11,6 +11,7 @@ import java.nio.file.Paths;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 public class TestREPL {
@@ -44,13 +45,35 @@ public class TestREPL {
     test("x=3", "3");
     test("x*x", "9");
     testerr("y*y", "y*y", "Unknown ref 'y'",4,0);
-    test("x=4", "4");
-    testerr("x+x", "x=4", "Cannot re-assign final val 'x'",4,0);
+    testerr("x=4", "x=4", "Cannot re-assign final val 'x'",4,0);
+    test("x+x", "6");
     test("3+2", "5");
     test("sq={x->x*x}", "[sq=*{x -> }]");
     test("sq 5","25");
     testerr("sq \"abc\"", "sq={x->x*x}", "*\"abc\" is none of (flt64,int64)", 6,7);
-    testerr("x", "x=4", "Cannot re-assign final val 'x'",4,0);
+    test("x", "3");
+  }
+
+  // Functions defined on one line stay callable on later lines
+  @Test public void testREPL05() {
+    test("sq={x->x*x}", "[sq=*{x -> }]");
+    testerr("z*2", "z*2", "Unknown ref 'z'",2,0);
+    test("sq 5","25");
+    test("sq 3","9");
+    test("z=sq 4","16");
+    test("z*2","32");
+    test("sq(2.5)","6.25f");
+  }
+
+  // A line that throws leaves the session mid-parse; a new session recovers
+  @Test public void testREPL06() {
+    test("x=3", "3");
+    try { REPL.go_one(_prog,"s=\"abc\""); fail(); } // Strings are unimplemented
+    catch( RuntimeException e ) { assertEquals("unimplemented",e.getMessage()); }
+    sysOut.clearLog();
+    open_repl();
+    test("x=2", "2");
+    test("x*3", "6");
   }
 
   // Requires multi-pass type inference.
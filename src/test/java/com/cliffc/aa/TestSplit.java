@@ -0,0 +1,44 @@
+package com.cliffc.aa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Type-splitting: callers passing ints and flts get their own clones, and the
+// overloaded operators in the clones bind statically
+public class TestSplit {
+
+  private static String run( String prog ) {
+    return Exec.file("test",prog,0,true,true)._t.toString();
+  }
+
+  @Test public void testAnswers() {
+    assertEquals("flt:($10.2)",run("x=3; mul2={x -> x*2}; mul2(2.1)+mul2(x)"));
+    assertEquals("(int:($2), flt:($5.0f), int:($6))",run("m={x -> x*2}; (m(1),m(2.5),m(3))"));
+    assertEquals("(int:($8), flt:($4.5f), flt:($3.0f))",run("f={x y -> x*y+x}; (f(2,3),f(1.5,2),f(2,0.5))"));
+  }
+
+  // Counters for the last program
+  @Test public void testCounters() {
+    Exec.go(Env.TOP,"test","m={x -> x*2}; (m(1),m(2.5),m(3),m(4.5),m(5),m(6.5))",0,true,true);
+    assertEquals(6,Exec.TYPE_SPLITS);
+    assertEquals(6,Exec.SPLIT_DISPATCHES);
+    Env.top_reset();
+    // Nothing to split
+    Exec.go(Env.TOP,"test","1+2*3",0,true,true);
+    assertEquals(0,Exec.TYPE_SPLITS);
+    assertEquals(0,Exec.SPLIT_DISPATCHES);
+    Env.top_reset();
+  }
+
+  // The code-growth budget caps the clones of any one function; the rest of
+  // the callers share the original.
+  @Test public void testBudget() {
+    StringBuilder sb = new StringBuilder("m={x -> x*2}; (");
+    for( int i=1; i<=20; i++ ) sb.append(i==1 ? "" : ",").append("m(").append(i).append(")");
+    TypeEnv te = Exec.go(Env.TOP,"test",sb.append(")").toString(),0,true,true);
+    assertEquals(16,Exec.TYPE_SPLITS);
+    assertTrue(te._t.toString().contains("int:($40)"));
+    Env.top_reset();
+  }
+}
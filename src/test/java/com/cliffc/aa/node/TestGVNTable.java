@@ -0,0 +1,104 @@
+package com.cliffc.aa.node;
+
+import com.cliffc.aa.type.Type;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestGVNTable {
+  // A Node with a settable hash, and equal by key: same key is the same value
+  private static class HNode extends Node {
+    int _h;  final int _key;
+    HNode( int h, int key ) { super(OP_CON); _h=h; _key=key; }
+    @Override public int hashCode() { return _h; }
+    @Override public boolean equals(Object o) { return this==o || (o instanceof HNode h && h._key==_key); }
+    @Override public Type value() { return Type.ALL; }
+    @Override public boolean has_tvar() { return false; }
+  }
+
+  // Install as GVN does: miss in get, caching the hash; put; then edge-lock
+  private static HNode put( GVNTable tab, int h, int key ) {
+    HNode n = new HNode(h,key);
+    assertNull(tab.get(n));
+    tab.put(n);
+    n._elock = true;
+    return n;
+  }
+
+  // A hash whose home slot is idx, in the initial 1<<10 table.  Fibonacci
+  // hashing multiplies by an odd constant, so invert it mod 2^32.
+  private static int home( int idx ) {
+    int a = 0x9E3779B9, inv = a;
+    for( int i=0; i<5; i++ ) inv *= 2-a*inv; // Newton: 5 steps for 32 bits
+    return (idx<<22)*inv;
+  }
+
+  @Test public void testCollide() {
+    GVNTable tab = new GVNTable();
+    HNode[] ns = new HNode[10];
+    for( int i=0; i<ns.length; i++ ) ns[i] = put(tab,12345,i);
+    assertEquals(ns.length,tab.size());
+    // Same hash, found by equals; a fresh equal Node finds the installed one
+    for( int i=0; i<ns.length; i++ ) {
+      assertSame(ns[i],tab.get(ns[i]));
+      assertSame(ns[i],tab.get(new HNode(12345,i)));
+    }
+    assertNull(tab.get(new HNode(12345,99)));
+    // Remove from the middle of the probe run; the rest stay reachable
+    assertSame(ns[3],tab.remove(ns[3]));
+    assertNull(tab.remove(ns[3]));
+    assertNull(tab.get(new HNode(12345,3)));
+    for( int i=0; i<ns.length; i++ )
+      if( i!=3 ) assertSame(ns[i],tab.get(ns[i]));
+    assertEquals(ns.length-1,tab.size());
+  }
+
+  // Backward-shift delete, where the probe run wraps past the table end
+  @Test public void testRemoveWrap() {
+    GVNTable tab = new GVNTable();
+    HNode a = put(tab,home(1023),1); // Slot 1023
+    HNode b = put(tab,home(1023),2); // Wraps to slot 0
+    HNode c = put(tab,home(1023),3); // Slot 1
+    HNode d = put(tab,home(0),4);    // Home 0, pushed to slot 2
+    HNode e = put(tab,home(3),5);    // Home 3, slot 3
+    assertSame(a,tab.remove(a));     // b,c,d shift back across the wrap; e stays
+    for( HNode n : new HNode[]{b,c,d,e} )
+      assertSame(n,tab.get(n));
+    assertSame(c,tab.remove(c));
+    assertSame(b,tab.remove(b));
+    assertSame(d,tab.get(d));
+    assertSame(e,tab.get(e));
+    assertEquals(2,tab.size());
+    int cnt=0;
+    for( Node n : tab ) { assertTrue(n==d || n==e); cnt++; }
+    assertEquals(2,cnt);
+  }
+
+  // Growing rehashes by the cached hash, not hashCode(): a locked Node whose
+  // hashCode() has since changed is still found, and still removable.
+  @Test public void testGrowLocked() {
+    GVNTable tab = new GVNTable();
+    HNode[] ns = new HNode[3000];
+    for( int i=0; i<ns.length; i++ ) {
+      ns[i] = put(tab,i*7,i);
+      ns[i]._h = -i;            // hashCode() moves, the cached _hash must not
+    }
+    assertEquals(ns.length,tab.size());
+    for( int i=0; i<ns.length; i++ ) {
+      assertEquals(i*7,ns[i]._hash);
+      assertSame(ns[i],tab.get(ns[i]));
+      assertEquals(i*7,ns[i]._hash); // Lookup of a locked Node keeps its hash
+    }
+    for( int i=0; i<ns.length; i+=2 )
+      assertSame(ns[i],tab.remove(ns[i]));
+    for( int i=0; i<ns.length; i++ )
+      assertSame(i%2==0 ? null : ns[i],tab.get(ns[i]));
+    assertEquals(ns.length/2,tab.size());
+    // An unlocked Node re-caches its hash on lookup
+    HNode n = ns[1];
+    assertSame(n,tab.remove(n));
+    n._elock = false;
+    assertNull(tab.get(n));
+    assertEquals(-1,n._hash);
+  }
+}
@@ -532,7 +532,7 @@ public class TestNodeSmall {
     // Now run GCP to closure.  This is the key call being tested.
     DO_GCP=true;
     DO_HMT=false;
-    Combo.opto();
+    Env.COMBO.opto();
 
     // Validate cyclic display/function type
     TypeFunPtr tfptr0 = (TypeFunPtr) fptr._val;
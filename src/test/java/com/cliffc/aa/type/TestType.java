@@ -7,6 +7,7 @@ import org.junit.Test;
 
 import static com.cliffc.aa.type.TypeMemPtr.NO_DISP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
@@ -373,6 +374,91 @@ public class TestType {
     assertTrue(ld.isa(ax));
   }
 
+  // Path-copying TypeMem.set and update match a dense rebuild, and share the
+  // hash-consed result.
+  @Test public void testMemSet() {
+    int[] as = new int[70];     // Enough for a 2-level trie
+    for( int i=0; i<as.length; i++ ) as[i] = BitsAlias.new_alias(BitsAlias.ALLX);
+    int kid = BitsAlias.new_alias(as[3]);
+    TypeStruct[] tos = new TypeStruct[kid+1];
+    tos[BitsAlias.ALLX] = TypeStruct.ISUSED;
+    for( int i=0; i<as.length; i+=2 ) tos[as[i]] = TypeStruct.POINT;
+    tos[kid] = TypeStruct.NAMEPT;
+    TypeMem mem = TypeMem.make0(tos);
+
+    for( int alias : new int[]{as[0],as[3],as[69],kid} )
+      for( TypeStruct obj : new TypeStruct[]{TypeStruct.ISUSED,TypeStruct.POINT,TypeStruct.NAMEPT} ) {
+        TypeMem set = mem.set(alias,obj);
+        TypeStruct[] ds = dense(mem,alias+1);
+        ds[alias] = obj;
+        assertSame(TypeMem.make0(ds),set);
+        if( alias!=as[3] )      // Else can drop the kid as a dup
+          assertSame(mem,set.set(alias,mem.at(alias)));
+      }
+    // A dup of the parent is removed, and the memory is tight
+    assertEquals(as[68]+1,mem.set(kid,TypeStruct.ISUSED).len());
+
+    BitsAlias bs = BitsAlias.make0(as[3],as[40]);
+    TypeStruct[] ds = dense(mem,0);
+    for( int alias : new int[]{as[3],kid,as[40]} )
+      ds[alias] = mem.at(alias).update(TypeStruct.NAMEPT,false);
+    assertSame(TypeMem.make0(ds),mem.update(bs,TypeStruct.NAMEPT,false));
+  }
+  // Meet, dual and remove work on the tries, and match a dense rebuild
+  @Test public void testMemMeet() {
+    int[] as = new int[70];     // Enough for a 2-level trie
+    for( int i=0; i<as.length; i++ ) as[i] = BitsAlias.new_alias(BitsAlias.ALLX);
+    int kid = BitsAlias.new_alias(as[3]);
+    TypeStruct[] tos = new TypeStruct[kid+1];
+    tos[BitsAlias.ALLX] = TypeStruct.ISUSED;
+    for( int i=0; i<as.length; i+=2 ) tos[as[i]] = TypeStruct.POINT;
+    tos[kid] = TypeStruct.NAMEPT;
+    TypeMem mem1 = TypeMem.make0(tos);
+    // Shares most sub-tries with mem1; as[3] now dups its kid
+    TypeMem mem2 = mem1.set(as[3],TypeStruct.NAMEPT).set(as[41],TypeStruct.NAMEPT).set(as[4],TypeStruct.ISUSED);
+
+    TypeStruct[] ds = dense(mem2,mem1.len());
+    for( int i=1; i<ds.length; i++ )
+      ds[i] = (TypeStruct)mem1.at(i).meet(mem2.at(i));
+    TypeMem mt = (TypeMem)mem1.meet(mem2);
+    assertSame(TypeMem.make0(ds),mt);
+    assertSame(mt,mem2.meet(mem1));
+    assertSame(mem1,mem1.meet(TypeMem.make0(dense(mem1,0))));
+
+    TypeMem dual = mem2.dual();
+    for( int i=0; i<mem2.len(); i++ )
+      assertSame(mem2.slot(i)==null ? null : mem2.slot(i).dual(),dual.slot(i));
+
+    ds = dense(mem1,0);
+    ds[as[3]] = ds[as[40]] = TypeStruct.UNUSED;
+    assertSame(TypeMem.make0(ds),mem1.remove(BitsAlias.make0(as[3],as[40])));
+  }
+  // Memories differing only in unreachable aliases share sharpened pointers
+  @Test public void testSharpCache() {
+    int a1 = BitsAlias.new_alias(BitsAlias.ALLX);
+    int a2 = BitsAlias.new_alias(BitsAlias.ALLX);
+    int a3 = BitsAlias.new_alias(BitsAlias.ALLX);
+    TypeStruct[] tos = new TypeStruct[a3+1];
+    tos[BitsAlias.ALLX] = TypeStruct.ISUSED;
+    tos[a1] = TypeStruct.make_test("p",TypeMemPtr.make(a2,TypeStruct.ISUSED),TypeFld.Access.Final);
+    tos[a2] = TypeStruct.POINT;
+    tos[a3] = TypeStruct.POINT;
+    TypeMem mem1 = TypeMem.make0(tos);
+    TypeMemPtr dull = TypeMemPtr.make(a1,TypeStruct.ISUSED).simple_ptr();
+    TypeMemPtr sharp = mem1.sharpen(dull);
+    long hits = TypeMem.SHARP_HITS, misses = TypeMem.SHARP_MISSES;
+    assertSame(sharp,mem1.set(a3,TypeStruct.NAMEPT).sharpen(dull)); // a3 not reached
+    assertEquals(hits+1,TypeMem.SHARP_HITS);
+    mem1.set(a2,TypeStruct.NAMEPT).sharpen(dull); // a2 reached from a1
+    assertEquals(misses+1,TypeMem.SHARP_MISSES);
+  }
+
+  private static TypeStruct[] dense( TypeMem mem, int len ) {
+    TypeStruct[] ds = new TypeStruct[Math.max(mem.len(),len)];
+    for( int i=1; i<mem.len(); i++ ) ds[i] = mem.slot(i);
+    return ds;
+  }
+
 
   @Test public void testFunction() {
     PrimNode[] ignore2 = PrimNode.PRIMS(); // Force node